@@ -0,0 +1,107 @@
+package com.baiktown.sentilight;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.HttpUrl;
+
+/**
+ * 전구(IP)별 응답 지연 추적 → 시도 1번의 타임아웃 계산 (TasmotaFanOut이 Call.timeout()으로 적용)
+ * - 응답을 받을 때마다 지연 시간의 지수 이동 평균(EWMA)과 분산을 갱신 (가중치 1/8)
+ * - 타임아웃 = 평균 + 4σ 를 [floorMs, capMs]로 자름 → 빠른 전구는 빨리 실패 판정, 느린(메시) 전구는 넉넉하게
+ * - 응답 없이 실패(타임아웃/연결 실패)할 때마다 연속 실패 수를 올리고 타임아웃을 2배씩 늘림 (최대 capMs, 응답 1번이면 초기화)
+ *   → 갑자기 느려진 전구가 짧은 타임아웃에 갇혀 계속 실패하지 않음
+ * - 표본이 없는 전구는 initialMs
+ * 키는 URL의 host:port. 모든 메서드는 스레드 안전합니다. (OkHttp 디스패처 스레드에서 동시에 기록)
+ */
+final class BulbLatencyTracker {
+
+    private static final double ALPHA = 1.0 / 8;
+    private static final int MAX_BACKOFF_SHIFT = 4;
+
+    /** 전구 1대의 지연 통계 (this로 동기화) */
+    private static final class Stats {
+        private double meanMs;
+        private double varianceMs2;
+        private long samples;
+        private int failureStreak;
+
+        synchronized void success(long latencyMs) {
+            if (samples++ == 0) {
+                // 첫 표본: 편차를 지연의 절반으로 가정 (타임아웃 = 3배)
+                meanMs = latencyMs;
+                varianceMs2 = (latencyMs / 2.0) * (latencyMs / 2.0);
+            } else {
+                double diff = latencyMs - meanMs;
+                double incr = ALPHA * diff;
+                meanMs += incr;
+                varianceMs2 = (1 - ALPHA) * (varianceMs2 + diff * incr);
+            }
+            failureStreak = 0;
+        }
+
+        synchronized void failure() {
+            failureStreak++;
+        }
+
+        synchronized long timeoutMs(long floorMs, long initialMs, long capMs) {
+            long base = (samples == 0)
+                    ? initialMs
+                    : Math.max(floorMs, Math.round(meanMs + 4 * Math.sqrt(varianceMs2)));
+            long backedOff = base << Math.min(failureStreak, MAX_BACKOFF_SHIFT);
+            return Math.min(capMs, backedOff);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US, "mean=%.0fms σ=%.0fms n=%d streak=%d",
+                    meanMs, Math.sqrt(varianceMs2), samples, failureStreak);
+        }
+    }
+
+    private final long floorMs;
+    private final long initialMs;
+    private final long capMs;
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param floorMs   타임아웃 하한 (Wi-Fi 절전 등 일시적 지연 여유)
+     * @param initialMs 표본이 없는 전구의 타임아웃
+     * @param capMs     타임아웃 상한 (연속 실패로 늘어나도 이 이상은 아님)
+     */
+    BulbLatencyTracker(long floorMs, long initialMs, long capMs) {
+        this.floorMs = floorMs;
+        this.capMs = Math.max(floorMs, capMs);
+        this.initialMs = Math.max(floorMs, Math.min(this.capMs, initialMs));
+    }
+
+    /** url의 전구에 보낼 시도 1번의 타임아웃 */
+    long timeoutMs(HttpUrl url) {
+        Stats s = stats.get(keyOf(url));
+        return (s != null) ? s.timeoutMs(floorMs, initialMs, capMs) : initialMs;
+    }
+
+    /** 응답(상태 코드와 무관)을 받기까지 걸린 시간 기록 */
+    void recordSuccess(HttpUrl url, long latencyMs) {
+        stats.computeIfAbsent(keyOf(url), k -> new Stats()).success(Math.max(0, latencyMs));
+    }
+
+    /** 응답 없이 실패 (타임아웃/연결 거부/취소) */
+    void recordFailure(HttpUrl url) {
+        stats.computeIfAbsent(keyOf(url), k -> new Stats()).failure();
+    }
+
+    /** 로그용 요약 (표본이 없으면 "unknown") */
+    String describe(HttpUrl url) {
+        Stats s = stats.get(keyOf(url));
+        return (s != null) ? s + " timeout=" + timeoutMs(url) + "ms" : "unknown";
+    }
+
+    void clear() {
+        stats.clear();
+    }
+
+    private static String keyOf(HttpUrl url) {
+        return url.host() + ':' + url.port();
+    }
+}
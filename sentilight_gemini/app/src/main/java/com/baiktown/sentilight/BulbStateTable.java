@@ -0,0 +1,152 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 전구(IP)별 마지막으로 확인된 상태 표 (delta 전송용)
+ * - 명령 응답(ack)과 State 조회(poll) 응답으로 갱신, 전송 실패 시 해당 IP는 모름 상태로 되돌림
+ * - maxAgeMs가 지난 항목은 모름으로 취급 (벽 스위치/다른 앱으로 바뀌었을 수 있으므로 전체 명령을 다시 보냄)
+ * - TasmotaCommandCompiler가 이 상태와 목표를 비교해 바뀐 필드만 보내거나, 이미 목표 상태면 전송을 생략
+ * 모든 메서드는 스레드 안전합니다. (OkHttp 콜백 스레드에서 동시에 갱신)
+ */
+final class BulbStateTable {
+
+    /** 전구 1대의 상태 (불변). 꺼져 있으면 OFF 하나로 표현 */
+    static final class State {
+        static final State OFF = new State(false, false, 0, 0, 0, 0);
+
+        final boolean power;
+        final boolean colorMode; // true: HSBColor(RGB) 모드, false: 백색(CT) 모드
+        final int hue;
+        final int saturation;
+        final int dimmer;
+        final int ct;
+
+        private State(boolean power, boolean colorMode, int hue, int saturation, int dimmer, int ct) {
+            this.power = power;
+            this.colorMode = colorMode;
+            this.hue = hue;
+            this.saturation = saturation;
+            this.dimmer = dimmer;
+            this.ct = ct;
+        }
+
+        static State color(int hue, int saturation, int dimmer) {
+            return new State(true, true, hue, saturation, dimmer, 0);
+        }
+
+        static State white(int ct, int dimmer) {
+            return new State(true, false, 0, 0, dimmer, ct);
+        }
+
+        State withDimmer(int dimmer) {
+            return new State(power, colorMode, hue, saturation, dimmer, ct);
+        }
+
+        /**
+         * Tasmota 응답/State JSON → 상태 ({"POWER":"ON","Dimmer":70,"HSBColor":"60,100,70","White":0,"CT":250})
+         * White가 0보다 크면 백색 모드, 아니면 HSBColor 기준 색 모드. 판단할 수 없으면 null
+         */
+        static State fromTasmotaJson(String body) {
+            if (body == null || body.isEmpty()) return null;
+            try {
+                JsonElement root = JsonParser.parseString(body);
+                if (!root.isJsonObject()) return null;
+                JsonObject o = root.getAsJsonObject();
+                if (!o.has("POWER")) return null;
+                if ("OFF".equalsIgnoreCase(o.get("POWER").getAsString())) return OFF;
+                if (!o.has("Dimmer")) return null;
+                int dimmer = o.get("Dimmer").getAsInt();
+                if (o.has("White") && o.get("White").getAsInt() > 0 && o.has("CT")) {
+                    return white(o.get("CT").getAsInt(), dimmer);
+                }
+                if (!o.has("HSBColor")) return null;
+                String[] hsb = o.get("HSBColor").getAsString().split(",");
+                if (hsb.length != 3) return null;
+                return color(Integer.parseInt(hsb[0].trim()), Integer.parseInt(hsb[1].trim()), dimmer);
+            } catch (RuntimeException e) {
+                return null; // JSON 형식 오류/숫자 아님 → 모름
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof State)) return false;
+            State other = (State) o;
+            if (!power || !other.power) return power == other.power;
+            return colorMode == other.colorMode && hue == other.hue && saturation == other.saturation
+                    && dimmer == other.dimmer && ct == other.ct;
+        }
+
+        @Override
+        public int hashCode() {
+            if (!power) return 0;
+            int h = colorMode ? 1 : 2;
+            h = 31 * h + hue;
+            h = 31 * h + saturation;
+            h = 31 * h + dimmer;
+            h = 31 * h + ct;
+            return h;
+        }
+
+        @Override
+        public String toString() {
+            if (!power) return "OFF";
+            return colorMode ? "HSB " + hue + "," + saturation + "," + dimmer : "CT " + ct + " Dimmer " + dimmer;
+        }
+    }
+
+    private static final class Entry {
+        final State state;
+        final long updatedAtMs;
+
+        Entry(State state, long updatedAtMs) {
+            this.state = state;
+            this.updatedAtMs = updatedAtMs;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long maxAgeMs;
+
+    BulbStateTable(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /** 확인된 상태 (기록이 없거나 maxAgeMs가 지났으면 null) */
+    State get(String host) {
+        Entry e = entries.get(host);
+        if (e == null) return null;
+        if (System.currentTimeMillis() - e.updatedAtMs > maxAgeMs) {
+            entries.remove(host, e);
+            return null;
+        }
+        return e.state;
+    }
+
+    void update(String host, State state) {
+        if (state == null) {
+            entries.remove(host);
+        } else {
+            entries.put(host, new Entry(state, System.currentTimeMillis()));
+        }
+    }
+
+    /** 전송 실패/IP 변경 등으로 상태를 알 수 없게 된 전구 */
+    void forget(String host) {
+        entries.remove(host);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
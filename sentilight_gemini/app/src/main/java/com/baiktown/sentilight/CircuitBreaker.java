@@ -0,0 +1,186 @@
+package com.baiktown.sentilight;
+
+/**
+ * 원격 엔드포인트용 서킷 브레이커 (최근 N건의 성공/실패 링 버퍼로 오류율 계산)
+ * - CLOSED: 정상 호출. 표본이 minCalls 이상이고 오류율이 임계값 이상이면 OPEN
+ * - OPEN: openDurationMs 동안 호출하지 않음 (호출자는 즉시 로컬 대체 경로 사용)
+ * - HALF_OPEN: OPEN 시간이 지나면 탐침 호출 1건만 허용, 성공하면 CLOSED / 실패하면 다시 OPEN
+ * 호출마다 tryAcquire()로 받은 Permit에 결과를 알립니다. 상태가 바뀐 뒤 도착한 이전 호출의 결과는 무시하므로,
+ * HALF_OPEN에서는 탐침 Permit의 결과만 상태를 바꿉니다. (CLOSED 시절에 시작한 느린 호출이 늦게 성공해도 닫히지 않음)
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** 상태가 바뀔 때 호출됨 (상태 변경을 일으킨 호출 스레드에서 실행) */
+    public interface StateListener {
+        void onStateChanged(State from, State to);
+    }
+
+    private final boolean[] outcomes; // true = 실패
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMs;
+
+    private int next = 0;
+    private int count = 0;
+    private int failures = 0;
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean probeInFlight = false;
+    private long generation = 0; // 상태가 바뀔 때마다 증가 (이전 상태에서 발급한 Permit 구분)
+    private volatile StateListener listener;
+
+    /**
+     * @param windowSize           오류율을 계산할 최근 호출 수
+     * @param minCalls             오류율 판단에 필요한 최소 표본 수
+     * @param failureRateThreshold OPEN으로 전환할 오류율 (0.0~1.0)
+     * @param openDurationMs       OPEN 유지 시간 (이후 HALF_OPEN 탐침)
+     */
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openDurationMs) {
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, outcomes.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    public void setStateListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /** 호출 1건의 허가. onSuccess/onFailure 중 처음 호출된 것만 반영됩니다. */
+    public final class Permit {
+        private final long issuedGeneration;
+        private final boolean probe;
+        private boolean reported;
+
+        private Permit(long issuedGeneration, boolean probe) {
+            this.issuedGeneration = issuedGeneration;
+            this.probe = probe;
+        }
+
+        public void onSuccess() {
+            if (markReported()) CircuitBreaker.this.onSuccess(this);
+        }
+
+        public void onFailure() {
+            if (markReported()) CircuitBreaker.this.onFailure(this);
+        }
+
+        /** 결과를 이미 알렸는지 (finally에서 누락된 결과를 실패로 처리할 때 사용) */
+        public synchronized boolean isReported() {
+            return reported;
+        }
+
+        private synchronized boolean markReported() {
+            if (reported) return false;
+            reported = true;
+            return true;
+        }
+    }
+
+    /**
+     * 호출해도 되는지 확인합니다. Permit을 받은 호출자는 반드시 onSuccess/onFailure 중 하나를 호출해야 합니다.
+     * 허용되지 않으면 null (HALF_OPEN에서는 탐침 1건에만 Permit)
+     */
+    public Permit tryAcquire() {
+        State from;
+        Permit permit;
+        synchronized (this) {
+            if (state == State.CLOSED) return new Permit(generation, false);
+            if (state == State.HALF_OPEN) {
+                if (probeInFlight) return null;
+                probeInFlight = true;
+                return new Permit(generation, true);
+            }
+            if (System.currentTimeMillis() - openedAt < openDurationMs) return null;
+            from = state;
+            changeState(State.HALF_OPEN);
+            probeInFlight = true;
+            permit = new Permit(generation, true);
+        }
+        notifyListener(from, State.HALF_OPEN);
+        return permit;
+    }
+
+    /** 상태 변경 없이 현재 호출이 허용되는 상태인지만 확인 (추측 호출처럼 생략 가능한 호출용) */
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    private void onSuccess(Permit permit) {
+        State from;
+        synchronized (this) {
+            if (permit.issuedGeneration != generation) return; // 이전 상태에서 시작한 호출
+            if (state == State.HALF_OPEN) {
+                if (!permit.probe) return;
+                from = state;
+                changeState(State.CLOSED);
+                probeInFlight = false;
+                resetWindow();
+            } else {
+                record(false);
+                return;
+            }
+        }
+        notifyListener(from, State.CLOSED);
+    }
+
+    private void onFailure(Permit permit) {
+        State from;
+        synchronized (this) {
+            if (permit.issuedGeneration != generation) return;
+            if (state == State.HALF_OPEN) {
+                if (!permit.probe) return;
+                probeInFlight = false;
+            } else {
+                record(true);
+                if (state != State.CLOSED || count < minCalls || (double) failures / count < failureRateThreshold) {
+                    return;
+                }
+            }
+            from = state;
+            changeState(State.OPEN);
+            openedAt = System.currentTimeMillis();
+        }
+        notifyListener(from, State.OPEN);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** 현재 창의 오류율 (표본이 없으면 0.0) */
+    public synchronized double getFailureRate() {
+        return count == 0 ? 0.0 : (double) failures / count;
+    }
+
+    // -------------------- 내부 --------------------
+
+    private void record(boolean failed) {
+        if (count == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            count++;
+        }
+        outcomes[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void changeState(State to) {
+        state = to;
+        generation++;
+    }
+
+    private void resetWindow() {
+        next = 0;
+        count = 0;
+        failures = 0;
+    }
+
+    private void notifyListener(State from, State to) {
+        StateListener l = this.listener;
+        if (l != null) l.onStateChanged(from, to);
+    }
+}
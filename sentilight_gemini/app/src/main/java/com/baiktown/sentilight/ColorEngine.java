@@ -0,0 +1,148 @@
+package com.baiktown.sentilight;
+
+/**
+ * 순수 Java 색상 엔진 (android.graphics.Color 없이 JVM에서도 동작)
+ * - HSB(Tasmota 단위: hue 0~359, 채도/밝기 0~100) → RGB 정수 연산
+ * - CT(mired 153~500) → RGB 근사 (흑체 복사 근사식을 mired 단위로 미리 계산)
+ * - 배경색 대비 색상 (기존 MainActivity.getContrastingColor와 같은 규칙)
+ * 모든 변환은 미리 만든 조회 테이블과 정수 연산만 사용하며 호출마다 객체/배열을 만들지 않습니다.
+ * 반환값은 Android 색상과 같은 ARGB int 입니다.
+ */
+public final class ColorEngine {
+
+    private static final int OPAQUE = 0xFF000000;
+
+    // 💡 hue별 R/G/B 계수 (0~255, 채도·밝기 100일 때의 채널 값). 360 × 3 바이트
+    private static final byte[] HUE_TABLE = new byte[360 * 3];
+
+    // 💡 mired(153~500)별 RGB (불투명 ARGB). 348 × 4 바이트
+    private static final int[] CT_TABLE = new int[LightCommand.MAX_CT - LightCommand.MIN_CT + 1];
+
+    static {
+        for (int h = 0; h < 360; h++) {
+            int sector = h / 60;
+            int rising = Math.round((h % 60) * 255 / 60f); // 구간 안에서 증가하는 채널
+            int falling = 255 - rising;                      // 구간 안에서 감소하는 채널
+            int r, g, b;
+            switch (sector) {
+                case 0: r = 255; g = rising; b = 0; break;
+                case 1: r = falling; g = 255; b = 0; break;
+                case 2: r = 0; g = 255; b = rising; break;
+                case 3: r = 0; g = falling; b = 255; break;
+                case 4: r = rising; g = 0; b = 255; break;
+                default: r = 255; g = 0; b = falling; break;
+            }
+            HUE_TABLE[h * 3] = (byte) r;
+            HUE_TABLE[h * 3 + 1] = (byte) g;
+            HUE_TABLE[h * 3 + 2] = (byte) b;
+        }
+        for (int m = LightCommand.MIN_CT; m <= LightCommand.MAX_CT; m++) {
+            CT_TABLE[m - LightCommand.MIN_CT] = kelvinToRgb(1_000_000.0 / m);
+        }
+    }
+
+    private ColorEngine() {
+    }
+
+    // -------------------- HSB → RGB --------------------
+
+    /**
+     * HSB → 불투명 RGB. 범위 밖 값은 보정합니다. (hue는 360으로 나눈 나머지)
+     * 채널 = 밝기 × (1 - 채도 × (1 - hue 계수)) 를 10000 분모의 정수식으로 계산
+     */
+    public static int hsbToRgb(int hue, int saturation, int brightness) {
+        int h = hue % 360;
+        if (h < 0) h += 360;
+        int s = clampPercent(saturation);
+        int v = clampPercent(brightness);
+        int i = h * 3;
+        return OPAQUE
+                | channel(HUE_TABLE[i] & 0xFF, s, v) << 16
+                | channel(HUE_TABLE[i + 1] & 0xFF, s, v) << 8
+                | channel(HUE_TABLE[i + 2] & 0xFF, s, v);
+    }
+
+    /** v × (25500 - s × (255 - k)) / 10000 (반올림) */
+    private static int channel(int k, int s, int v) {
+        return (v * (25500 - s * (255 - k)) + 5000) / 10000;
+    }
+
+    private static int clampPercent(int v) {
+        return v < 0 ? 0 : (v > 100 ? 100 : v);
+    }
+
+    // -------------------- CT → RGB --------------------
+
+    /** 색온도(mired) → 불투명 RGB. 153(약 6500K, 차가운 백색) ~ 500(2000K, 따뜻한 주황) 밖은 보정 */
+    public static int ctToRgb(int mireds) {
+        int m = mireds < LightCommand.MIN_CT ? LightCommand.MIN_CT : Math.min(mireds, LightCommand.MAX_CT);
+        return CT_TABLE[m - LightCommand.MIN_CT];
+    }
+
+    /** 켈빈 → RGB 근사 (Tanner Helland 근사식, 테이블 생성 시에만 사용) */
+    private static int kelvinToRgb(double kelvin) {
+        double t = kelvin / 100.0;
+        double r, g, b;
+        if (t <= 66) {
+            r = 255;
+            g = 99.4708025861 * Math.log(t) - 161.1195681661;
+            b = (t <= 19) ? 0 : 138.5177312231 * Math.log(t - 10) - 305.0447927307;
+        } else {
+            r = 329.698727446 * Math.pow(t - 60, -0.1332047592);
+            g = 288.1221695283 * Math.pow(t - 60, -0.0755148492);
+            b = 255;
+        }
+        return OPAQUE | clampByte(r) << 16 | clampByte(g) << 8 | clampByte(b);
+    }
+
+    private static int clampByte(double v) {
+        long r = Math.round(v);
+        return r < 0 ? 0 : (r > 255 ? 255 : (int) r);
+    }
+
+    // -------------------- 대비/혼합 --------------------
+
+    /**
+     * 배경색과 대비되는 색 (알파 유지)
+     * - hue: 보색(180도 회전)
+     * - 채도: 배경 채도가 낮으면 95, 높으면 75
+     * - 밝기: 어두운 배경이면 95, 밝은 배경이면 25
+     */
+    public static int contrastColor(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        int delta = max - min;
+
+        int hue = 0;
+        if (delta != 0) {
+            if (max == r) {
+                hue = roundDiv(60 * (g - b), delta);
+            } else if (max == g) {
+                hue = 120 + roundDiv(60 * (b - r), delta);
+            } else {
+                hue = 240 + roundDiv(60 * (r - g), delta);
+            }
+        }
+        // 채도 < 0.5 ⇔ 2 × delta < max, 명도 < 0.5 ⇔ 2 × max < 255
+        int saturation = (2 * delta < max) ? 95 : 75;
+        int value = (2 * max < 255) ? 95 : 25;
+        return (argb & OPAQUE) | (hsbToRgb(hue + 180, saturation, value) & 0x00FFFFFF);
+    }
+
+    /** n / d 반올림 (d > 0, n은 음수 가능) */
+    private static int roundDiv(int n, int d) {
+        return (n >= 0) ? (2 * n + d) / (2 * d) : -((-2 * n + d) / (2 * d));
+    }
+
+    /** from → to 선형 혼합 (amount 0~256, 256이면 to). 전환 효과 프레임 계산용 */
+    public static int mix(int from, int to, int amount) {
+        int a = amount < 0 ? 0 : Math.min(amount, 256);
+        int inv = 256 - a;
+        int ag = ((from >>> 8) & 0x00FF00FF) * inv + ((to >>> 8) & 0x00FF00FF) * a;
+        int rb = (from & 0x00FF00FF) * inv + (to & 0x00FF00FF) * a;
+        return (ag & 0xFF00FF00) | ((rb >>> 8) & 0x00FF00FF);
+    }
+}
@@ -0,0 +1,294 @@
+package com.baiktown.sentilight;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * LLM 호출 경로 계측 (단계별 지연 히스토그램 + usageMetadata 토큰 합계)
+ * - 단계: DNS, TCP 연결, TLS, 첫 바이트까지(TTFB), 본문 수신, 파싱, 호출 전체, 발화 전체(end-to-end)
+ * - 네트워크 단계는 OkHttp EventListener로 호출마다 기록 (Gemini/OpenAI 호환 경로만, Tasmota 호출 제외)
+ * - 히스토그램은 락 없이 AtomicLongArray 버킷에 누적 (log2 구간을 8칸으로 나눔, 상대 오차 12.5% 이내)
+ * MainActivity에서 getSummary()로 읽거나 dumpTo(file)로 저장합니다.
+ */
+public class ControllerMetrics {
+
+    /** 계측 단계 */
+    public enum Phase {
+        DNS("dns"),
+        CONNECT("tcp"),
+        TLS("tls"),
+        TTFB("ttfb"),
+        BODY("body"),
+        PARSE("parse"),   // 응답 봉투 파싱 (스트리밍 파싱이라 본문 수신 시간과 겹침)
+        CALL("call"),     // callStart ~ callEnd
+        END_TO_END("e2e"); // 발화 1건: 음성 인식 결과 → 전구 명령 전송
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    // -------------------- 락 없는 히스토그램 --------------------
+
+    /** 마이크로초 값을 log-linear 버킷에 누적하는 히스토그램 (모든 메서드 스레드 안전, 락 없음) */
+    public static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_COUNT = 1 << SUB_BITS; // log2 구간마다 8칸
+        private static final int BUCKETS = SUB_COUNT + (64 - SUB_BITS) * SUB_COUNT;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long micros) {
+            long v = Math.max(0, micros);
+            counts.incrementAndGet(bucketOf(v));
+            total.increment();
+            sum.add(v);
+            long prev;
+            while (v > (prev = max.get()) && !max.compareAndSet(prev, v)) {
+                // 다른 스레드가 먼저 갱신했으면 다시 비교
+            }
+        }
+
+        public long count() {
+            return total.sum();
+        }
+
+        public long maxMicros() {
+            return max.get();
+        }
+
+        public double meanMicros() {
+            long n = total.sum();
+            return n == 0 ? 0.0 : (double) sum.sum() / n;
+        }
+
+        /** p(0.0~1.0) 백분위수 (버킷 상한값, 마이크로초). 표본이 없으면 -1 */
+        public long percentileMicros(double p) {
+            long n = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) return -1;
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), max.get());
+            }
+            return max.get();
+        }
+
+        static int bucketOf(long v) {
+            if (v < SUB_COUNT) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v); // >= SUB_BITS
+            int sub = (int) (v >>> (exp - SUB_BITS)) - SUB_COUNT;
+            return SUB_COUNT + (exp - SUB_BITS) * SUB_COUNT + sub;
+        }
+
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_COUNT) return bucket;
+            int exp = (bucket - SUB_COUNT) / SUB_COUNT + SUB_BITS;
+            int sub = (bucket - SUB_COUNT) % SUB_COUNT;
+            long width = 1L << (exp - SUB_BITS);
+            return ((SUB_COUNT + sub) * width) + width - 1;
+        }
+    }
+
+    // -------------------- 집계 --------------------
+
+    private final Histogram[] histograms = new Histogram[Phase.values().length];
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder failedCallCount = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder candidatesTokens = new LongAdder();
+    private final LongAdder totalTokens = new LongAdder();
+    private final Histogram candidatesTokensPerCall = new Histogram();
+    private final long createdAt = System.currentTimeMillis();
+
+    public ControllerMetrics() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new Histogram();
+    }
+
+    public Histogram histogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public void record(Phase phase, long micros) {
+        histograms[phase.ordinal()].record(micros);
+    }
+
+    /** 응답 usageMetadata 1건 누적 */
+    public void recordTokens(int prompt, int candidates, int total) {
+        promptTokens.add(prompt);
+        candidatesTokens.add(candidates);
+        totalTokens.add(total);
+        if (candidates > 0) candidatesTokensPerCall.record(candidates);
+    }
+
+    public long getPromptTokenTotal() {
+        return promptTokens.sum();
+    }
+
+    public long getCandidatesTokenTotal() {
+        return candidatesTokens.sum();
+    }
+
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    public long getFailedCallCount() {
+        return failedCallCount.sum();
+    }
+
+    public String getTokenSummary() {
+        return "tokens prompt=" + promptTokens.sum() + " candidates=" + candidatesTokens.sum() + " total=" + totalTokens.sum()
+                + " (candidates/call p50=" + candidatesTokensPerCall.percentileMicros(0.50)
+                + " p99=" + candidatesTokensPerCall.percentileMicros(0.99) + ")";
+    }
+
+    /** 단계별 p50/p90/p99/max (ms) 와 토큰 합계 */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("LLM calls=").append(callCount.sum()).append(" failed=").append(failedCallCount.sum()).append('\n');
+        for (Phase phase : Phase.values()) {
+            Histogram h = histogram(phase);
+            if (h.count() == 0) continue;
+            sb.append(String.format(Locale.US, "%-5s n=%-5d p50=%7.1f p90=%7.1f p99=%7.1f max=%7.1f ms%n",
+                    phase.label, h.count(),
+                    h.percentileMicros(0.50) / 1000.0, h.percentileMicros(0.90) / 1000.0,
+                    h.percentileMicros(0.99) / 1000.0, h.maxMicros() / 1000.0));
+        }
+        sb.append(getTokenSummary());
+        return sb.toString();
+    }
+
+    /** 요약을 파일로 저장 (덮어쓰기) */
+    public void dumpTo(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("계측 파일 디렉터리 생성 실패: " + parent);
+        }
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            w.write("# sentilight metrics since=" + createdAt + " dumped=" + System.currentTimeMillis() + "\n");
+            w.write(getSummary());
+            w.write("\n");
+        }
+    }
+
+    // -------------------- OkHttp 연동 --------------------
+
+    /** 공유 OkHttpClient에 등록할 팩토리 (LLM 요청에만 단계별 리스너 생성) */
+    EventListener.Factory eventListenerFactory() {
+        return call -> isLlmCall(call) ? new CallTimer() : EventListener.NONE;
+    }
+
+    private static boolean isLlmCall(Call call) {
+        String path = call.request().url().encodedPath();
+        return path.contains(":generateContent") || path.contains(":streamGenerateContent") || path.endsWith("/chat/completions");
+    }
+
+    private static long nowMicros() {
+        return System.nanoTime() / 1000;
+    }
+
+    /** 호출 1건의 단계 시각 (OkHttp가 한 호출의 이벤트를 순서대로 전달하므로 필드 동기화 불필요) */
+    private final class CallTimer extends EventListener {
+        private long callStart, dnsStart, connectStart, secureStart, requestStart, headersEnd;
+
+        @Override
+        public void callStart(Call call) {
+            callStart = nowMicros();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = nowMicros();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            record(Phase.DNS, nowMicros() - dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = nowMicros();
+            secureStart = 0;
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureStart = nowMicros();
+            record(Phase.CONNECT, secureStart - connectStart);
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            record(Phase.TLS, nowMicros() - secureStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            // TLS가 없으면(로컬 대역 서버 등) 여기서 TCP 연결 시간 기록
+            if (secureStart == 0) record(Phase.CONNECT, nowMicros() - connectStart);
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = nowMicros();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            record(Phase.TTFB, nowMicros() - requestStart);
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            headersEnd = nowMicros();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            record(Phase.BODY, nowMicros() - headersEnd);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            callCount.increment();
+            record(Phase.CALL, nowMicros() - callStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            callCount.increment();
+            failedCallCount.increment();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * fan-out 1건의 전구별 전송 확인(ack) 집계기
+ * - 전구마다 Ack(성공/HTTP 오류/명령 거부/시간 초과/연결 오류, 지연 시간)를 record()로 받아 진행 상황을 Listener에 알림
+ * - 마지막 Ack가 모이면 Result로 완료 (스레드를 점유하지 않음, record는 OkHttp 콜백 스레드에서 동시에 호출됨)
+ * - 성공 판정은 응답 문자열의 "ERROR" 접두사가 아니라 Tasmota JSON 해석으로:
+ *   {"Command":"Unknown"} / {"Command":"Error"} / {"WARNING":...}(인증 필요 등) / JSON이 아닌 응답은 거부로 봄
+ */
+final class DeliveryAggregator {
+
+    /** 전구 1대의 결과 */
+    enum Status {
+        OK,             // Tasmota가 명령을 실행하고 상태 JSON으로 응답
+        SKIPPED,        // 이미 목표 상태라 보내지 않음
+        SUPERSEDED,     // 레인에서 대기하는 동안 더 새로운 명령으로 교체됨
+        HTTP_ERROR,     // 2xx가 아닌 응답
+        REJECTED,       // 200이지만 Tasmota가 명령을 거부 (Unknown/Error/WARNING, JSON 아님)
+        TIMEOUT,        // 전송 예산 안에 응답 없음
+        NETWORK_ERROR;  // 연결 거부/호스트 없음/잘못된 주소 등
+
+        /** 전구가 목표 상태이거나 곧 그렇게 될 결과 */
+        boolean delivered() {
+            return this == OK || this == SKIPPED || this == SUPERSEDED;
+        }
+    }
+
+    /** 전구 1대의 전송 확인 */
+    static final class Ack {
+        final String host;
+        final Status status;
+        final int httpCode;     // 응답을 받지 못했으면 0
+        final long latencyMs;   // 재시도 포함, 보내지 않았으면 0
+        final String detail;    // 실패 사유 (성공이면 "")
+
+        Ack(String host, Status status, int httpCode, long latencyMs, String detail) {
+            this.host = host;
+            this.status = status;
+            this.httpCode = httpCode;
+            this.latencyMs = latencyMs;
+            this.detail = detail;
+        }
+
+        static Ack skipped(String host) {
+            return new Ack(host, Status.SKIPPED, 0, 0, "");
+        }
+
+        static Ack superseded(String host) {
+            return new Ack(host, Status.SUPERSEDED, 0, 0, "");
+        }
+
+        /** 200 응답 본문을 Tasmota JSON으로 판정 */
+        static Ack fromReply(String host, long latencyMs, String body) {
+            String rejection = rejectionOf(body);
+            return (rejection == null)
+                    ? new Ack(host, Status.OK, 200, latencyMs, "")
+                    : new Ack(host, Status.REJECTED, 200, latencyMs, rejection);
+        }
+
+        /** 요청 실패 원인 분류 (RetryEngine이 재시도를 마친 뒤의 마지막 원인) */
+        static Ack fromError(String host, long latencyMs, Throwable error) {
+            Throwable e = error;
+            while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+                e = e.getCause();
+            }
+            String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (e instanceof RetryEngine.HttpStatusException) {
+                return new Ack(host, Status.HTTP_ERROR, ((RetryEngine.HttpStatusException) e).code, latencyMs, message);
+            }
+            if (e instanceof RetryEngine.DeadlineExceededException || e instanceof InterruptedIOException) {
+                return new Ack(host, Status.TIMEOUT, 0, latencyMs, message);
+            }
+            return new Ack(host, Status.NETWORK_ERROR, 0, latencyMs, message);
+        }
+
+        @Override
+        public String toString() {
+            return host + " " + status + (httpCode > 0 ? " " + httpCode : "") + " " + latencyMs + "ms"
+                    + (detail.isEmpty() ? "" : " (" + detail + ")");
+        }
+    }
+
+    /** 진행 상황 수신자 (record를 호출한 스레드에서 호출되므로 가볍게 처리할 것) */
+    interface Listener {
+        void onAck(Ack ack, int done, int total);
+    }
+
+    /** fan-out 1건의 집계 결과 */
+    static final class Result {
+        final int total;
+        final int succeeded;   // 전달된 전구 수 (생략/교체 포함)
+        final int skipped;
+        final int superseded;
+        final List<String> failedHosts;
+        final List<Ack> acks;
+        final long elapsedMs;
+        final long maxLatencyMs;
+
+        Result(int total, List<Ack> acks, long elapsedMs) {
+            int ok = 0, skip = 0, replaced = 0;
+            long maxLatency = 0;
+            List<String> failed = new ArrayList<>();
+            for (Ack ack : acks) {
+                if (ack.status.delivered()) {
+                    ok++;
+                } else {
+                    failed.add(ack.host);
+                }
+                if (ack.status == Status.SKIPPED) skip++;
+                if (ack.status == Status.SUPERSEDED) replaced++;
+                maxLatency = Math.max(maxLatency, ack.latencyMs);
+            }
+            this.total = total;
+            this.succeeded = ok;
+            this.skipped = skip;
+            this.superseded = replaced;
+            this.failedHosts = failed;
+            this.acks = acks;
+            this.elapsedMs = elapsedMs;
+            this.maxLatencyMs = maxLatency;
+        }
+
+        boolean allSucceeded() {
+            return succeeded == total;
+        }
+
+        int count(Status status) {
+            int n = 0;
+            for (Ack ack : acks) {
+                if (ack.status == status) n++;
+            }
+            return n;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(succeeded).append('/').append(total).append(" 성공");
+            if (skipped > 0) sb.append(" (변경 없음 ").append(skipped).append("대 생략)");
+            if (superseded > 0) sb.append(" (새 명령으로 ").append(superseded).append("대 교체)");
+            sb.append(", ").append(elapsedMs).append("ms (전구 최대 ").append(maxLatencyMs).append("ms)");
+            for (Status s : new Status[]{Status.HTTP_ERROR, Status.REJECTED, Status.TIMEOUT, Status.NETWORK_ERROR}) {
+                int n = count(s);
+                if (n > 0) sb.append(' ').append(s).append('=').append(n);
+            }
+            if (!failedHosts.isEmpty()) sb.append(" (실패: ").append(failedHosts).append(')');
+            return sb.toString();
+        }
+    }
+
+    private final int total;
+    private final Listener listener;
+    private final long startedAt = System.nanoTime();
+    private final AtomicInteger done = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Ack> acks = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+    DeliveryAggregator(int total, Listener listener) {
+        this.total = total;
+        this.listener = listener;
+        if (total == 0) result.complete(new Result(0, new ArrayList<>(), 0));
+    }
+
+    /** 전구 1대의 결과 기록 (전구마다 정확히 1번) */
+    void record(Ack ack) {
+        acks.add(ack);
+        int n = done.incrementAndGet();
+        if (listener != null) listener.onAck(ack, n, total);
+        if (n == total) {
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+            result.complete(new Result(total, new ArrayList<>(acks), elapsedMs));
+        }
+    }
+
+    CompletableFuture<Result> result() {
+        return result;
+    }
+
+    /** Tasmota 응답이 명령 거부를 뜻하면 사유, 정상이면 null */
+    static String rejectionOf(String body) {
+        if (body == null || body.trim().isEmpty()) return "빈 응답";
+        try {
+            JsonElement root = JsonParser.parseString(body);
+            if (!root.isJsonObject()) return "JSON 객체가 아닌 응답";
+            JsonObject o = root.getAsJsonObject();
+            if (o.has("Command")) {
+                String c = o.get("Command").getAsString();
+                if ("Unknown".equalsIgnoreCase(c) || "Error".equalsIgnoreCase(c)) return "명령 거부: " + c;
+            }
+            if (o.has("WARNING")) return "경고: " + o.get("WARNING").getAsString();
+            return null;
+        } catch (RuntimeException e) {
+            return "JSON 형식 오류";
+        }
+    }
+}
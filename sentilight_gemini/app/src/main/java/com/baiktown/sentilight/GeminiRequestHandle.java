@@ -0,0 +1,49 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import okhttp3.Call;
+
+/**
+ * 진행 중인 Gemini 호출을 다른 스레드에서 취소하기 위한 핸들.
+ * - 호출 스레드는 매 시도마다 bind(call)로 현재 OkHttp Call을 등록
+ * - single-flight로 합류한 호출은 Call 대신 자신의 대기 future를 bind (취소 시 대기만 중단)
+ * - cancel()은 등록된 Call을 즉시 끊고, 이후 bind 시도도 실패시킴 (재시도 중단)
+ */
+final class GeminiRequestHandle {
+
+    private volatile Call call;
+    private volatile Future<?> future;
+    private volatile boolean cancelled;
+
+    /** 새 시도의 Call을 등록합니다. 이미 취소된 핸들이면 Call도 취소하고 IOException */
+    void bind(Call newCall) throws IOException {
+        this.call = newCall;
+        if (cancelled) {
+            newCall.cancel();
+            throw new IOException("Gemini 호출이 취소되었습니다.");
+        }
+    }
+
+    /** 호출자가 기다리는 future를 등록합니다. 이미 취소된 핸들이면 future도 취소하고 IOException */
+    void bind(Future<?> newFuture) throws IOException {
+        this.future = newFuture;
+        if (cancelled) {
+            newFuture.cancel(true);
+            throw new IOException("Gemini 호출이 취소되었습니다.");
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        Call c = call;
+        if (c != null) c.cancel();
+        Future<?> f = future;
+        if (f != null) f.cancel(true);
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,136 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Gemini 요청 템플릿 (모델/키/메서드별로 1회 생성)
+ * - URL(키 포함)과 JSON 본문의 고정 부분(프롬프트 앞/뒤 + contents 봉투 + generationConfig)을 미리 바이트로 직렬화
+ * - 호출마다 사용자 문장만 JSON 이스케이프하여 RequestBody sink에 바로 씁니다. (JsonObject 트리/gson.toJson 없음)
+ */
+final class GeminiRequestTemplate {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    final HttpUrl url;
+    private final byte[] head; // {"contents":[{"role":"user","parts":[{"text":"<프롬프트 앞부분>
+    private final byte[] tail; // <프롬프트 뒷부분>"}]}] [,"generationConfig":{...}] }
+
+    /**
+     * @param url                  키 쿼리까지 포함된 완성 URL
+     * @param promptPrefix         사용자 문장 앞에 붙는 프롬프트 (이스케이프 전 원문)
+     * @param promptSuffix         사용자 문장 뒤에 붙는 프롬프트 (이스케이프 전 원문)
+     * @param generationConfigJson generationConfig 객체 JSON (없으면 null)
+     */
+    GeminiRequestTemplate(HttpUrl url, String promptPrefix, String promptSuffix, String generationConfigJson) {
+        this.url = url;
+
+        StringBuilder h = new StringBuilder("{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\"");
+        appendEscaped(h, promptPrefix);
+        this.head = h.toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder t = new StringBuilder();
+        appendEscaped(t, promptSuffix);
+        t.append("\"}]}]");
+        if (generationConfigJson != null) {
+            t.append(",\"generationConfig\":").append(generationConfigJson);
+        }
+        t.append('}');
+        this.tail = t.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** 사용자 문장만 끼워 넣은 요청 본문 */
+    RequestBody body(String userInput) {
+        final String input = (userInput != null) ? userInput : "";
+        final long length = head.length + escapedUtf8Length(input) + tail.length;
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                sink.write(head);
+                writeEscaped(sink, input);
+                sink.write(tail);
+            }
+        };
+    }
+
+    // -------------------- JSON 문자열 이스케이프 --------------------
+
+    private static void appendEscaped(StringBuilder sb, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String esc = escapeOf(c);
+            if (esc != null) {
+                sb.append(esc);
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /** 이스케이프가 필요 없는 구간은 writeUtf8(s, from, to)로 통째로 써서 중간 String을 만들지 않음 */
+    private static void writeEscaped(BufferedSink sink, String s) throws IOException {
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            String esc = escapeOf(s.charAt(i));
+            if (esc == null) continue;
+            if (i > start) sink.writeUtf8(s, start, i);
+            sink.writeUtf8(esc);
+            start = i + 1;
+        }
+        if (start < s.length()) sink.writeUtf8(s, start, s.length());
+    }
+
+    /** 이스케이프된 문자열의 UTF-8 바이트 수 (Content-Length 계산용) */
+    private static long escapedUtf8Length(String s) {
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String esc = escapeOf(c);
+            if (esc != null) {
+                n += esc.length();
+            } else if (c < 0x80) {
+                n += 1;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                n += 1; // 짝 없는 서로게이트는 okio가 '?'로 기록
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
+    private static String escapeOf(char c) {
+        switch (c) {
+            case '"': return "\\\"";
+            case '\\': return "\\\\";
+            case '\n': return "\\n";
+            case '\r': return "\\r";
+            case '\t': return "\\t";
+            case '\u2028': return "\\u2028";
+            case '\u2029': return "\\u2029";
+            default:
+                if (c < 0x20) return String.format("\\u%04x", (int) c);
+                return null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Gemini generateContent 응답 봉투를 JsonReader로 한 번 훑으며 필요한 값만 꺼내는 파서
+ * - candidates[0].content.parts[0].text 와 usageMetadata의 토큰 수만 읽음
+ * - 나머지(safetyRatings, citationMetadata, 두 번째 이후 후보 등)는 skipValue로 건너뜀
+ * - 본문 전체 String과 JsonObject 트리를 만들지 않으므로 ResponseBody.charStream()에 바로 연결 가능
+ */
+final class GeminiResponseReader {
+
+    /** 응답에서 꺼낸 값. 후보가 없으면 text는 null (스트리밍 마지막 조각처럼 usageMetadata만 있는 경우) */
+    static final class Result {
+        final String text;
+        final int promptTokens;
+        final int candidatesTokens;
+        final int totalTokens;
+
+        Result(String text, int promptTokens, int candidatesTokens, int totalTokens) {
+            this.text = text;
+            this.promptTokens = promptTokens;
+            this.candidatesTokens = candidatesTokens;
+            this.totalTokens = totalTokens;
+        }
+
+        /** 후보 텍스트 (후보가 없으면 IOException, 텍스트 part가 없으면 빈 문자열) */
+        String requireText() throws IOException {
+            if (text == null) throw new IOException("Gemini 응답이 비어 있거나 후보가 없습니다.");
+            return text;
+        }
+
+        boolean hasUsage() {
+            return totalTokens > 0 || promptTokens > 0 || candidatesTokens > 0;
+        }
+    }
+
+    private GeminiResponseReader() {
+    }
+
+    /** reader를 끝까지 읽지 않고 루트 객체가 닫히면 반환합니다. (reader는 호출자가 닫음) */
+    static Result read(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        String text = null;
+        int prompt = 0, candidates = 0, total = 0;
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("candidates".equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    if (in.hasNext()) text = readFirstCandidateText(in);
+                    while (in.hasNext()) in.skipValue();
+                    in.endArray();
+                } else if ("usageMetadata".equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String field = in.nextName();
+                        if ("promptTokenCount".equals(field)) {
+                            prompt = in.nextInt();
+                        } else if ("candidatesTokenCount".equals(field)) {
+                            candidates = in.nextInt();
+                        } else if ("totalTokenCount".equals(field)) {
+                            total = in.nextInt();
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // 타입 불일치(예: 숫자 자리에 객체)는 JsonReader가 IllegalStateException으로 알림
+            throw new IOException("Gemini 응답 형식 오류: " + e.getMessage(), e);
+        }
+        return new Result(text, prompt, candidates, total);
+    }
+
+    /** candidates[0] 객체에서 content.parts[0].text (part에 text가 없으면 빈 문자열) */
+    private static String readFirstCandidateText(JsonReader in) throws IOException {
+        String text = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("content".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    if ("parts".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                        in.beginArray();
+                        if (in.hasNext()) text = readPartText(in);
+                        while (in.hasNext()) in.skipValue();
+                        in.endArray();
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        if (text == null) throw new IOException("Gemini 응답 파싱 실패(content/parts 없음).");
+        return text;
+    }
+
+    private static String readPartText(JsonReader in) throws IOException {
+        String text = "";
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("text".equals(in.nextName()) && in.peek() == JsonToken.STRING) {
+                text = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return text;
+    }
+}
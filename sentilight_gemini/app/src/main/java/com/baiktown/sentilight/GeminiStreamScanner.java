@@ -0,0 +1,82 @@
+package com.baiktown.sentilight;
+
+/**
+ * Gemini 스트리밍 응답(텍스트 조각)을 순서대로 받아 [COMMAND: ...] / [EXPLANATION: ...] 블록을 점진적으로 찾는 스캐너.
+ * - COMMAND 블록의 닫는 ']'가 도착하는 즉시 onCommandClosed 1회 호출
+ * - EXPLANATION 블록은 내용이 늘어날 때마다 onExplanationUpdate 호출 (닫히기 전에도 부분 전달)
+ * 단일 스레드(스트림 읽기 스레드)에서만 사용합니다.
+ */
+public class GeminiStreamScanner {
+
+    private static final String COMMAND_OPEN = "[COMMAND:";
+    private static final String EXPLANATION_OPEN = "[EXPLANATION:";
+
+    public interface Listener {
+        /** COMMAND 블록이 닫힌 시점까지의 전체 텍스트를 전달합니다. (extractCommand에 그대로 사용 가능) */
+        void onCommandClosed(String textSoFar);
+
+        /** 지금까지 수신된 설명 텍스트 (앞뒤 공백 제거) */
+        void onExplanationUpdate(String explanationSoFar);
+    }
+
+    private final Listener listener;
+    private final StringBuilder text = new StringBuilder();
+
+    private int commandStart = -1;      // "[COMMAND:" 다음 위치
+    private boolean commandClosed = false;
+    private int explanationStart = -1;  // "[EXPLANATION:" 다음 위치
+    private boolean explanationClosed = false;
+    private int lastExplanationLength = 0;
+
+    public GeminiStreamScanner(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** 새로 도착한 텍스트 조각을 추가하고 블록 상태를 갱신합니다. */
+    public void feed(String delta) {
+        if (delta == null || delta.isEmpty()) return;
+        // 여는 태그가 조각 경계에 걸칠 수 있으므로 태그 길이만큼 뒤로 돌아가 다시 검색
+        int from = Math.max(0, text.length() - EXPLANATION_OPEN.length());
+        text.append(delta);
+
+        if (!commandClosed) {
+            if (commandStart < 0) {
+                int i = text.indexOf(COMMAND_OPEN, from);
+                if (i >= 0) commandStart = i + COMMAND_OPEN.length();
+            }
+            if (commandStart >= 0) {
+                int close = text.indexOf("]", commandStart);
+                if (close >= 0) {
+                    commandClosed = true;
+                    listener.onCommandClosed(text.substring(0, close + 1));
+                }
+            }
+        }
+
+        if (!explanationClosed) {
+            if (explanationStart < 0) {
+                int i = text.indexOf(EXPLANATION_OPEN, from);
+                if (i >= 0) explanationStart = i + EXPLANATION_OPEN.length();
+            }
+            if (explanationStart >= 0) {
+                int close = text.indexOf("]", explanationStart);
+                int end = (close >= 0) ? close : text.length();
+                explanationClosed = close >= 0;
+                String explanation = text.substring(explanationStart, end).trim();
+                if (explanation.length() != lastExplanationLength) {
+                    lastExplanationLength = explanation.length();
+                    listener.onExplanationUpdate(explanation);
+                }
+            }
+        }
+    }
+
+    public boolean isCommandClosed() {
+        return commandClosed;
+    }
+
+    /** 지금까지 누적된 전체 텍스트 */
+    public String getText() {
+        return text.toString();
+    }
+}
@@ -7,16 +7,20 @@ import android.widget.Button;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class IpListAdapter extends RecyclerView.Adapter<IpListAdapter.IpViewHolder> {
 
     private List<String> ipList;
+    private Map<String, String> zoneByIp = new HashMap<>(); // IP → 구역 이름 (없으면 기본 구역)
     private final OnIpActionListener listener;
 
     /** IP 항목 클릭 및 삭제 이벤트를 처리하기 위한 인터페이스 */
     public interface OnIpActionListener {
         void onDeleteClick(String ipAddress);
+        void onZoneClick(String ipAddress, String currentZone);
         // void onItemClick(String ipAddress); // 필요한 경우 아이템 클릭 이벤트 추가 가능
     }
 
@@ -39,6 +43,15 @@ public class IpListAdapter extends RecyclerView.Adapter<IpListAdapter.IpViewHold
         final String ipAddress = ipList.get(position);
         holder.textViewIpAddress.setText(ipAddress);
 
+        // 구역 버튼: 현재 구역 이름 표시, 클릭 시 구역 변경
+        final String zone = zoneByIp.containsKey(ipAddress) ? zoneByIp.get(ipAddress) : TasmotaIpManager.DEFAULT_ZONE;
+        holder.buttonZoneIp.setText(zone);
+        holder.buttonZoneIp.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onZoneClick(ipAddress, zone);
+            }
+        });
+
         // 삭제 버튼 클릭 이벤트 설정
         holder.buttonDeleteIp.setOnClickListener(v -> {
             if (listener != null) {
@@ -58,14 +71,22 @@ public class IpListAdapter extends RecyclerView.Adapter<IpListAdapter.IpViewHold
         notifyDataSetChanged();
     }
 
+    /** 구역 배정이 바뀌었을 때 호출하여 구역 버튼을 갱신합니다. */
+    public void updateZones(Map<String, String> newZoneByIp) {
+        this.zoneByIp = newZoneByIp;
+        notifyDataSetChanged();
+    }
+
     /** 개별 항목을 위한 ViewHolder 클래스 */
     static class IpViewHolder extends RecyclerView.ViewHolder {
         final TextView textViewIpAddress;
+        final Button buttonZoneIp;
         final Button buttonDeleteIp;
 
         IpViewHolder(View itemView) {
             super(itemView);
             textViewIpAddress = itemView.findViewById(R.id.textViewIpAddress);
+            buttonZoneIp = itemView.findViewById(R.id.buttonZoneIp);
             buttonDeleteIp = itemView.findViewById(R.id.buttonDeleteIp);
         }
     }
@@ -7,11 +7,14 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // 💡 TasmotaIPManager 클래스가 별도로 정의되어 있다고 가정합니다.
 // 💡 IpListAdapter 클래스가 별도로 정의되어 있다고 가정합니다.
@@ -45,6 +48,7 @@ public class IpManagerActivity extends AppCompatActivity
 
         // 어댑터 초기화 및 연결
         ipListAdapter = new IpListAdapter(tasmotaIpManager.getIpList(), this); // 🌟 FIX: 변수명 변경
+        ipListAdapter.updateZones(loadZoneByIp());
         recyclerViewIpList.setAdapter(ipListAdapter);
 
         // [추가] 버튼 리스너 설정
@@ -80,6 +84,16 @@ public class IpManagerActivity extends AppCompatActivity
     private void refreshIpList() {
         // TasmotaIpManager에서 최신 목록을 가져와 어댑터를 업데이트합니다.
         ipListAdapter.updateList(tasmotaIpManager.getIpList()); // 🌟 FIX: 변수명 변경
+        ipListAdapter.updateZones(loadZoneByIp());
+    }
+
+    /** 구역별 IP 목록을 IP → 구역 이름으로 뒤집어 반환합니다. (어댑터 표시용) */
+    private Map<String, String> loadZoneByIp() {
+        Map<String, String> zoneByIp = new HashMap<>();
+        for (Map.Entry<String, List<String>> e : tasmotaIpManager.getZoneMap().entrySet()) {
+            for (String ip : e.getValue()) zoneByIp.put(ip, e.getKey());
+        }
+        return zoneByIp;
     }
 
     // -------------------- OnIpActionListener 구현 (삭제 이벤트) --------------------
@@ -96,4 +110,32 @@ public class IpManagerActivity extends AppCompatActivity
             Toast.makeText(this, "삭제 실패", Toast.LENGTH_SHORT).show();
         }
     }
+
+    // -------------------- OnIpActionListener 구현 (구역 지정) --------------------
+
+    /**
+     * IpListAdapter에서 [구역] 버튼 클릭 시 호출됩니다.
+     * 💡 구역(예: 거실, 침실)이 2개 이상이면 기분 한 번에 구역별로 다른 조명을 받습니다. 비워 두면 기본 구역
+     */
+    @Override
+    public void onZoneClick(String ipAddress, String currentZone) {
+        final EditText input = new EditText(this);
+        input.setSingleLine(true);
+        input.setHint("예: 거실, 침실 (비우면 " + TasmotaIpManager.DEFAULT_ZONE + ")");
+        if (!TasmotaIpManager.DEFAULT_ZONE.equals(currentZone)) {
+            input.setText(currentZone);
+            input.setSelection(currentZone.length());
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle(ipAddress + " 구역 지정")
+                .setView(input)
+                .setPositiveButton("저장", (dialog, which) -> {
+                    tasmotaIpManager.setZone(ipAddress, input.getText().toString());
+                    Toast.makeText(this, ipAddress + " → " + tasmotaIpManager.getZone(ipAddress), Toast.LENGTH_SHORT).show();
+                    refreshIpList();
+                })
+                .setNegativeButton("취소", null)
+                .show();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.baiktown.sentilight;
+
+import java.util.Arrays;
+
+/**
+ * 최근 N개의 지연 시간(ms) 표본을 보관하고 백분위수를 계산하는 작은 링 버퍼.
+ * 표본이 적고(수백 개 이하) 조회가 드물어 조회 시 복사/정렬합니다.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private int next = 0;
+    private int count = 0;
+
+    LatencyWindow(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /** p(0.0~1.0) 백분위수. 표본이 없으면 -1 */
+    synchronized long percentile(double p) {
+        if (count == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, idx))];
+    }
+}
@@ -0,0 +1,327 @@
+package com.baiktown.sentilight;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Tasmota 조명 명령 값 객체 (HSBCOLOR / Dimmer / CT)
+ * - 손으로 작성한 단일 패스 스캐너로 "HSBCOLOR h,s,b;Dimmer d;CT c" 를 파싱 (Pattern/replaceAll/중간 String 없음)
+ * - 키워드는 대소문자 무시, 순서 무관. 모르는 명령이나 숫자가 아닌 값은 다음 ';'까지 건너뜀
+ * - 응답 텍스트에서 [COMMAND: ...] 블록을 찾는 fromResponse 제공 (기존 extractCommand와 같은 기본값 규칙)
+ * - 값은 생성 시 프롬프트 범위로 보정 (Hue 0~359, 채도/밝기/Dimmer 0~100, CT 153~500)
+ * - 같은 값의 명령은 하나의 인스턴스로 인턴되어, URL 인코딩 결과(cmnd 쿼리, HttpUrl 템플릿)를 한 번만 만들고 공유
+ * - 전구로 보내는 형태는 TasmotaCommandCompiler가 결정 (toCommandString은 화면/로그 표시용)
+ */
+public final class LightCommand {
+
+    /** 존재하는 필드 플래그 */
+    public static final int HSB = 1;
+    public static final int DIMMER = 1 << 1;
+    public static final int CT = 1 << 2;
+
+    // 💡 인턴 테이블: 실제로 쓰이는 명령 종류는 적으므로 상한을 넘으면 인턴하지 않고 새 인스턴스 사용
+    private static final int MAX_INTERNED = 512;
+    private static final ConcurrentHashMap<LightCommand, LightCommand> INTERNED = new ConcurrentHashMap<>();
+
+    /** [COMMAND: ...] 블록이 없을 때 (조명 끔) */
+    public static final LightCommand OFF = of(0, 0, 0, 0, 500);
+    /** 블록은 있으나 HSBCOLOR가 없을 때 (밝은 노란색) */
+    public static final LightCommand DEFAULT = of(60, 100, 100, 70, 250);
+
+    static final int NO_RGB = 0xFF181B1C; // 변환 실패 시 화면 기본값 (약간 어두운 파란색, #181B1C)
+    private static final int MAX_DIGITS = 6;
+
+    // 💡 Tasmota/프롬프트 허용 범위
+    static final int MAX_HUE = 359;
+    static final int MAX_PERCENT = 100;
+    static final int MIN_CT = 153;
+    static final int MAX_CT = 500;
+
+    public final int hue;
+    public final int saturation;
+    public final int brightness;
+    public final int dimmer;
+    public final int ct;
+    private final int fields;
+
+    // 지연 생성 캐시 (불변 객체라 경쟁 시에도 같은 값이 만들어지므로 동기화 불필요)
+    private String commandString;
+    private String encodedQuery;
+    private HttpUrl urlTemplate;
+
+    /** 없는 필드는 0으로 두고, 있는 필드는 허용 범위로 보정합니다. */
+    private LightCommand(int hue, int saturation, int brightness, int dimmer, int ct, int fields) {
+        boolean hsb = (fields & HSB) != 0;
+        this.hue = hsb ? clamp(hue, 0, MAX_HUE) : 0;
+        this.saturation = hsb ? clamp(saturation, 0, MAX_PERCENT) : 0;
+        this.brightness = hsb ? clamp(brightness, 0, MAX_PERCENT) : 0;
+        this.dimmer = ((fields & DIMMER) != 0) ? clamp(dimmer, 0, MAX_PERCENT) : 0;
+        this.ct = ((fields & CT) != 0) ? clamp(ct, MIN_CT, MAX_CT) : 0;
+        this.fields = fields;
+    }
+
+    /** 세 명령이 모두 있는 명령 (범위 밖 값은 보정, 같은 값이면 같은 인스턴스) */
+    public static LightCommand of(int hue, int saturation, int brightness, int dimmer, int ct) {
+        return intern(new LightCommand(hue, saturation, brightness, dimmer, ct, HSB | DIMMER | CT));
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
+    }
+
+    /** 같은 값의 정규 인스턴스를 반환 (인코딩 캐시 공유) */
+    private static LightCommand intern(LightCommand cmd) {
+        LightCommand existing = INTERNED.get(cmd);
+        if (existing != null) return existing;
+        if (INTERNED.size() >= MAX_INTERNED) return cmd;
+        existing = INTERNED.putIfAbsent(cmd, cmd);
+        return (existing != null) ? existing : cmd;
+    }
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    // -------------------- 파싱 --------------------
+
+    /**
+     * 응답 전체에서 첫 [COMMAND: ...] 블록을 파싱합니다.
+     * 블록이 없으면 OFF, 블록에 HSBCOLOR가 없으면 DEFAULT.
+     */
+    public static LightCommand fromResponse(CharSequence response) {
+        int start = indexOf(response, "[COMMAND:", 0);
+        if (start < 0) return OFF;
+        start += "[COMMAND:".length();
+        int end = indexOf(response, "]", start);
+        if (end < 0) return OFF;
+        LightCommand cmd = parse(response, start, end);
+        return (cmd != null && cmd.has(HSB)) ? cmd : DEFAULT;
+    }
+
+    /** "HSBCOLOR h,s,b;Dimmer d;CT c" 형식 전체를 파싱합니다. 인식한 명령이 없으면 null */
+    public static LightCommand parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /** text[from, to) 구간을 파싱합니다. 인식한 명령이 없으면 null */
+    public static LightCommand parse(CharSequence text, int from, int to) {
+        int h = 0, s = 0, b = 0, d = 0, c = 0, found = 0;
+        int i = from;
+        while (i < to) {
+            // 구분자/공백 건너뛰기
+            char ch = text.charAt(i);
+            if (!isLetter(ch)) {
+                i++;
+                continue;
+            }
+            int kwStart = i;
+            while (i < to && isLetter(text.charAt(i))) i++;
+            int kwLen = i - kwStart;
+
+            if (keywordIs(text, kwStart, kwLen, "HSBCOLOR")) {
+                int n = 0, v0 = 0, v1 = 0, v2 = 0;
+                while (n < 3) {
+                    i = skipSpaces(text, i, to);
+                    int v = readInt(text, i, to);
+                    if (v < 0) break;
+                    if (n == 0) {
+                        v0 = v;
+                    } else if (n == 1) {
+                        v1 = v;
+                    } else {
+                        v2 = v;
+                    }
+                    n++;
+                    i = skipInt(text, i, to);
+                    i = skipSpaces(text, i, to);
+                    if (n < 3) {
+                        if (i < to && text.charAt(i) == ',') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                if (n == 3) {
+                    h = v0;
+                    s = v1;
+                    b = v2;
+                    found |= HSB;
+                }
+            } else if (keywordIs(text, kwStart, kwLen, "DIMMER")) {
+                i = skipSpaces(text, i, to);
+                int v = readInt(text, i, to);
+                if (v >= 0) {
+                    d = v;
+                    found |= DIMMER;
+                }
+            } else if (keywordIs(text, kwStart, kwLen, "CT")) {
+                i = skipSpaces(text, i, to);
+                int v = readInt(text, i, to);
+                if (v >= 0) {
+                    c = v;
+                    found |= CT;
+                }
+            }
+            // 현재 명령의 나머지는 다음 ';'까지 무시
+            while (i < to && text.charAt(i) != ';') i++;
+        }
+        return (found == 0) ? null : intern(new LightCommand(h, s, b, d, c, found));
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
+    }
+
+    private static boolean keywordIs(CharSequence text, int start, int len, String upperKeyword) {
+        if (len != upperKeyword.length()) return false;
+        for (int k = 0; k < len; k++) {
+            char ch = text.charAt(start + k);
+            if (ch >= 'a' && ch <= 'z') ch -= 'a' - 'A';
+            if (ch != upperKeyword.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence text, int i, int to) {
+        while (i < to && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    /** i 위치의 0 이상 정수 (숫자가 아니면 -1, 6자리 초과분은 무시) */
+    private static int readInt(CharSequence text, int i, int to) {
+        int v = 0, digits = 0;
+        while (i < to) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') break;
+            if (digits < MAX_DIGITS) v = v * 10 + (ch - '0');
+            digits++;
+            i++;
+        }
+        return digits == 0 ? -1 : v;
+    }
+
+    private static int skipInt(CharSequence text, int i, int to) {
+        while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    private static int indexOf(CharSequence text, String needle, int from) {
+        if (text instanceof String) return ((String) text).indexOf(needle, from);
+        outer:
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            for (int k = 0; k < needle.length(); k++) {
+                if (text.charAt(i + k) != needle.charAt(k)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // -------------------- 변환 --------------------
+
+    /** Tasmota cmnd 문자열 ("HSBCOLOR h,s,b;Dimmer d;CT c", 있는 필드만) */
+    public String toCommandString() {
+        String s = commandString;
+        if (s == null) {
+            StringBuilder sb = new StringBuilder(40);
+            if (has(HSB)) sb.append("HSBCOLOR ").append(hue).append(',').append(saturation).append(',').append(brightness);
+            if (has(DIMMER)) {
+                if (sb.length() > 0) sb.append(';');
+                sb.append("Dimmer ").append(dimmer);
+            }
+            if (has(CT)) {
+                if (sb.length() > 0) sb.append(';');
+                sb.append("CT ").append(ct);
+            }
+            s = sb.toString();
+            commandString = s;
+        }
+        return s;
+    }
+
+    /**
+     * URL 인코딩된 cmnd 쿼리 (인스턴스당 1회 변환/인코딩)
+     * 표시용 toCommandString()이 아니라 TasmotaCommandCompiler가 묶은 형태를 보냄 (예: "cmnd=HSBColor+200%2C80%2C70")
+     */
+    public String toEncodedQuery() {
+        String q = encodedQuery;
+        if (q == null) {
+            q = "cmnd=" + URLEncoder.encode(TasmotaCommandCompiler.compile(this), StandardCharsets.UTF_8);
+            encodedQuery = q;
+        }
+        return q;
+    }
+
+    /**
+     * 전구 1대의 요청 URL (http://ip/cm?cmnd=...)
+     * 인코딩된 쿼리를 담은 템플릿 HttpUrl을 한 번 만들어 두고 호스트만 바꾸므로 IP마다 다시 인코딩하지 않습니다.
+     * host는 "192.168.0.50" 또는 "127.0.0.1:8080" (로컬 대역 서버/에뮬레이터) 형식. 잘못된 주소면 IllegalArgumentException
+     */
+    public HttpUrl toUrl(String host) {
+        HttpUrl template = urlTemplate;
+        if (template == null) {
+            template = new HttpUrl.Builder()
+                    .scheme("http")
+                    .host("localhost")
+                    .addPathSegment("cm")
+                    .encodedQuery(toEncodedQuery())
+                    .build();
+            urlTemplate = template;
+        }
+        return withHost(template.newBuilder(), host).build();
+    }
+
+    /** 전구 1대에 임의의 cmnd를 보내는 URL (delta 명령, State 조회 등 캐시하지 않는 명령용) */
+    static HttpUrl commandUrl(String host, String cmnd) {
+        HttpUrl.Builder builder = new HttpUrl.Builder()
+                .scheme("http")
+                .addPathSegment("cm")
+                .encodedQuery("cmnd=" + URLEncoder.encode(cmnd, StandardCharsets.UTF_8));
+        return withHost(builder, host).build();
+    }
+
+    private static HttpUrl.Builder withHost(HttpUrl.Builder builder, String host) {
+        int colon = host.indexOf(':');
+        if (colon > 0 && host.indexOf(':', colon + 1) < 0) {
+            builder.host(host.substring(0, colon)).port(Integer.parseInt(host.substring(colon + 1)));
+        } else {
+            builder.host(host);
+        }
+        return builder;
+    }
+
+    /** HSB 값을 Android RGB 정수값으로 변환 (HSBCOLOR가 없으면 화면 기본값, 할당 없음) */
+    public int toRgb() {
+        if (!has(HSB)) return NO_RGB;
+        return ColorEngine.hsbToRgb(hue, saturation, brightness);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LightCommand)) return false;
+        LightCommand other = (LightCommand) o;
+        return fields == other.fields && hue == other.hue && saturation == other.saturation
+                && brightness == other.brightness && dimmer == other.dimmer && ct == other.ct;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = fields;
+        h = 31 * h + hue;
+        h = 31 * h + saturation;
+        h = 31 * h + brightness;
+        h = 31 * h + dimmer;
+        h = 31 * h + ct;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return toCommandString();
+    }
+}
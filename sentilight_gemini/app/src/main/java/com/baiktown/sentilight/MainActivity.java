@@ -4,6 +4,8 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.speech.RecognitionListener;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
@@ -30,6 +32,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class MainActivity extends AppCompatActivity implements RecognitionListener {
@@ -66,6 +70,17 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     // Tasmota IP Manager
     private TasmotaIpManager ipManager;
 
+    // 💡 Gemini 서킷 브레이커가 닫혀 있지 않으면 오프라인 판단으로 응답 중 (결과 화면에 표시)
+    private boolean geminiDegraded = false;
+
+    // 💡 부분 인식 결과가 이 시간 동안 바뀌지 않으면 '안정화'된 것으로 보고 Gemini 추측 호출 시작
+    private static final long PARTIAL_STABLE_DELAY_MS = 300;
+    private final Handler partialHandler = new Handler(Looper.getMainLooper());
+    private String lastPartialText = null;
+    private final Runnable speculateRunnable = () -> {
+        if (lastPartialText != null) tasmotaController.speculate(lastPartialText);
+    };
+
     private String[] permissions = {Manifest.permission.RECORD_AUDIO};
 
     @Override
@@ -90,6 +105,28 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         ipManager = new TasmotaIpManager(getApplicationContext());
         tasmotaController = new TasmotaController();
         tasmotaController.setIpManager(ipManager);
+        // 💡 자주 쓰는 기분 문장은 Gemini 호출 없이 캐시된 응답으로 바로 제어
+        tasmotaController.setResponseCache(new MoodResponseCache(), new File(getFilesDir(), "mood_response_cache.bin"));
+        // 💡 SSE 스트리밍: [COMMAND: ...]가 닫히는 즉시 전구 제어, 설명은 도착하는 대로 표시
+        tasmotaController.setStreamingEnabled(true);
+        // 💡 전구에 구역(방)이 2개 이상 지정되어 있으면 Gemini 1회 호출로 구역별 명령을 받아 전송 (구역은 IP 관리 화면에서 지정)
+        tasmotaController.setMultiZoneEnabled(true);
+        // 💡 Gemini 장애 시 스피너 대신 오프라인 판단으로 즉시 응답하고 상태를 알림
+        tasmotaController.setGeminiHealthCallback(state -> {
+            boolean degraded = state != CircuitBreaker.State.CLOSED;
+            if (degraded == geminiDegraded) return;
+            geminiDegraded = degraded;
+            Toast.makeText(this,
+                    degraded ? "Gemini 연결 불안정: 오프라인 모드로 동작합니다." : "Gemini 연결 복구됨",
+                    Toast.LENGTH_SHORT).show();
+        });
+
+        // 💡 전구 응답을 기다리지 않고 먼저 결과를 보여준 뒤, 응답하지 않은 전구가 있으면 알림
+        tasmotaController.setDeliveryCallback((command, delivered, total, summary) -> {
+            if (delivered < total) {
+                Toast.makeText(this, "전구 " + total + "대 중 " + (total - delivered) + "대가 응답하지 않았습니다.", Toast.LENGTH_SHORT).show();
+            }
+        });
 
         // 💡 초기 IP 상태 표시
         updateIpStatusView();
@@ -139,15 +176,35 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
             Intent intent = new Intent(MainActivity.this, IpManagerActivity.class);
             startActivity(intent);
         });
+
+        // 💡 결과 텍스트를 길게 누르면 LLM 호출 계측 요약 표시 + 파일 저장
+        resultTextView.setOnLongClickListener(v -> {
+            showControllerMetrics();
+            return true;
+        });
+    }
+
+    /** 단계별 지연(p50/p90/p99)과 토큰 합계를 화면에 표시하고 files/controller_metrics.txt로 저장합니다. */
+    private void showControllerMetrics() {
+        ControllerMetrics metrics = tasmotaController.getMetrics();
+        resultTextView.setText(metrics.getSummary());
+        File dumpFile = new File(getFilesDir(), "controller_metrics.txt");
+        try {
+            metrics.dumpTo(dumpFile);
+            Toast.makeText(this, "계측 저장: " + dumpFile.getName(), Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "계측 저장 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
     }
 
     // -------------------------------------------------------------
-    // 💡 onResume에서 IP 목록 갱신 및 UI 업데이트
+    // 💡 onResume에서 IP 목록/전구 상태 갱신 및 UI 업데이트
     // -------------------------------------------------------------
     @Override
     protected void onResume() {
         super.onResume();
         updateIpStatusView();
+        tasmotaController.refreshBulbStates(); // 앱 밖에서 바뀐 전구 상태 반영 (delta 전송 기준)
     }
 
     /**
@@ -178,20 +235,8 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
      * @return 대비되는 필터 색상 (int RGB)
      */
     private int getContrastingColor(int color) {
-        float[] hsv = new float[3];
-        Color.colorToHSV(color, hsv);
-
-        // 1. Hue (색조)를 보색(180도 회전)으로 설정합니다.
-        float complementaryHue = (hsv[0] + 180) % 360;
-
-        // 2. Saturation (채도) 조절: 배경색의 채도와 상관없이 Lottie 색상의 채도를 높여 시인성을 확보합니다.
-        float contrastingSaturation = hsv[1] < 0.5f ? 0.95f : 0.75f;
-
-        // 3. Value (명도) 조절: 어두운 배경색에서 Lottie를 밝게, 밝은 배경색에서 Lottie를 어둡게 만듭니다.
-        float contrastingValue = hsv[2] < 0.5f ? 0.95f : 0.25f;
-
-        // 최종 HSV 배열 생성 및 ARGB로 변환
-        return Color.HSVToColor(Color.alpha(color), new float[]{complementaryHue, contrastingSaturation, contrastingValue});
+        // 💡 보색 hue + 채도/명도 반전 규칙은 ColorEngine에서 정수 연산으로 처리 (float 배열 할당 없음)
+        return ColorEngine.contrastColor(color);
     }
 
     // 💡 Lottie 색상 필터를 적용/제거하는 함수 수정
@@ -240,6 +285,8 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
 
     private void startListening() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED) {
+            // 💡 말하는 동안 Gemini 연결을 미리 맺어 첫 응답의 DNS/TLS 지연 제거
+            tasmotaController.warmUpGeminiConnection();
             speechRecognizer.startListening(recognizerIntent);
             isListening = true;
             resultTextView.setText("말씀해주세요...");
@@ -268,6 +315,7 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     public void onReadyForSpeech(Bundle params) {
         resultTextView.setText("음성 인식 준비 완료. 말하세요...");
+        tasmotaController.warmUpGeminiConnection(); // 이미 예열했으면 무시됨
         lottieAnimationView.setVisibility(View.VISIBLE);
         lottieAnimationView.playAnimation();
     }
@@ -279,6 +327,7 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
 
     @Override
     public void onError(int error) {
+        resetSpeculation();
         lottieAnimationView.cancelAnimation();
         lottieAnimationView.setVisibility(View.INVISIBLE);
         isListening = false;
@@ -303,6 +352,9 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
     @Override
     public void onResults(Bundle results) {
         isListening = false;
+        // 최종 결과가 나왔으므로 대기 중인 추측 시작은 취소 (진행 중인 호출은 컨트롤러가 일치 여부로 재사용/취소)
+        partialHandler.removeCallbacks(speculateRunnable);
+        lastPartialText = null;
 
         ArrayList<String> data = results.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
         if (data != null && !data.isEmpty()) {
@@ -322,7 +374,8 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                             resultTextView.setText(
                                     "인식: " + recognizedText + "\n" +
                                             "COMMAND: " + command + "\n" +
-                                            "전구 응답: " + tasmotaResponse
+                                            "전구 응답: " + tasmotaResponse +
+                                            (geminiDegraded ? "\n(오프라인 모드)" : "")
                             );
                             Toast.makeText(MainActivity.this, "조명 제어 완료!", Toast.LENGTH_SHORT).show();
                         }
@@ -350,7 +403,11 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
                             setLottieColorFilter(colorRgb);
                             resultTextView.append("\n(색상 명령 수신 완료)");
                         }
-                    }
+                    },
+                    // 3. ExplanationStreamCallback (스트리밍 모드에서 설명이 생성되는 대로 표시)
+                    explanationSoFar -> resultTextView.setText(
+                            "인식: " + recognizedText + "\n(색상 명령 수신 완료)\n" + explanationSoFar
+                    )
             );
         } else {
             resultTextView.setText("결과 없음");
@@ -358,12 +415,33 @@ public class MainActivity extends AppCompatActivity implements RecognitionListen
         }
     }
 
-    @Override public void onPartialResults(Bundle partialResults) { /* 기존 코드와 동일 */ }
+    @Override
+    public void onPartialResults(Bundle partialResults) {
+        ArrayList<String> data = partialResults.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        if (data == null || data.isEmpty() || data.get(0) == null) return;
+
+        String partial = data.get(0).trim();
+        if (partial.length() < 2 || partial.equals(lastPartialText)) return;
+
+        // 💡 새 부분 결과가 올 때마다 타이머를 다시 걸어, 잠시 멈춘(안정화된) 문장으로만 추측 호출
+        lastPartialText = partial;
+        partialHandler.removeCallbacks(speculateRunnable);
+        partialHandler.postDelayed(speculateRunnable, PARTIAL_STABLE_DELAY_MS);
+    }
+
+    /** 대기 중인 추측 시작과 진행 중인 추측 호출을 모두 취소합니다. */
+    private void resetSpeculation() {
+        partialHandler.removeCallbacks(speculateRunnable);
+        lastPartialText = null;
+        if (tasmotaController != null) tasmotaController.cancelSpeculation();
+    }
+
     @Override public void onEvent(int eventType, Bundle params) { /* 기존 코드와 동일 */ }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        resetSpeculation();
         if (speechRecognizer != null) {
             speechRecognizer.destroy();
         }
@@ -0,0 +1,26 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+
+/**
+ * 기분 문장 → 조명 명령 해석기 (Gemini, OpenAI 호환 로컬 서버, 오프라인 분류기, 고정 스텁 등)
+ * 결과는 Gemini와 같은 괄호 형식 텍스트입니다: "[COMMAND: HSBCOLOR h,s,b;Dimmer d;CT c] [EXPLANATION: ...]"
+ * 구현체는 여러 스레드에서 동시에 호출될 수 있습니다.
+ */
+public interface MoodInterpreter {
+
+    /** 로그/통계용 이름 (예: "gemini", "openai-compat", "offline", "stub") */
+    String name();
+
+    /** 기분 문장을 해석합니다. 호출 스레드를 블로킹할 수 있으므로 메인스레드에서 호출하지 마세요. */
+    String interpret(String moodText) throws IOException;
+
+    /**
+     * 시도 1번을 timeoutMs 안에 끝내는 해석 (컨트롤러가 발화 예산 안에서 재시도하며 남은 시간을 넘김)
+     * 원격 구현체는 Call.timeout()으로 적용하고, 재시도 판단을 위해 HTTP 오류는 RetryEngine.HttpStatusException으로 던집니다.
+     * 기본 구현은 네트워크가 없는 해석기용으로 timeoutMs를 무시합니다.
+     */
+    default String interpret(String moodText, long timeoutMs) throws IOException {
+        return interpret(moodText);
+    }
+}
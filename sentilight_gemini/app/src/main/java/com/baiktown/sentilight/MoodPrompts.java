@@ -0,0 +1,42 @@
+package com.baiktown.sentilight;
+
+import java.util.Locale;
+
+/**
+ * 기분 → 조명 변환 프롬프트 고정부 (사용자 문장은 PREFIX와 SUFFIX 사이에 들어감)
+ * - Gemini 요청 템플릿과 OpenAI 호환 해석기가 같은 문구를 사용
+ * - Android 의존성이 없어 benchmark 모듈에서도 그대로 사용
+ */
+final class MoodPrompts {
+
+    static final String PREFIX = "사용자 기분: '";
+
+    static final String BRACKET_SUFFIX =
+            "'. 이를 Tasmota 전구 제어 명령으로 변환하세요. " +
+                    "결과 형식은 [COMMAND: HSBCOLOR hue,saturation,brightness;Dimmer value;CT temperature] " +
+                    "이 세 가지 명령 조합으로만 출력하세요. " +
+                    "[EXPLANATION: 기분 변화에 대한 설명] 으로만 출력하세요. " +
+                    "(hue:0-359, saturation/brightness:0-100, Dimmer:0-100, CT:153-500). " +
+                    "예: [COMMAND: HSBCOLOR 60,100,100;Dimmer 70;CT 250] [EXPLANATION: 밝고 따뜻한 노란색으로 활력을 줍니다.]";
+
+    private static final String ZONE_FORMAT =
+            "'. 이 집의 조명 구역은 %s 입니다. 각 구역의 쓰임새에 어울리도록 구역별 Tasmota 전구 제어 명령을 만드세요. " +
+                    "결과 형식은 구역마다 [ZONE: 구역 이름 | COMMAND: HSBCOLOR hue,saturation,brightness;Dimmer value;CT temperature] 를 하나씩, " +
+                    "마지막에 [EXPLANATION: 기분 변화에 대한 설명] 하나로만 출력하세요. " +
+                    "(hue:0-359, saturation/brightness:0-100, Dimmer:0-100, CT:153-500). " +
+                    "예: [ZONE: 거실 | COMMAND: HSBCOLOR 60,100,100;Dimmer 70;CT 250] [ZONE: 침실 | COMMAND: HSBCOLOR 30,60,40;Dimmer 35;CT 420] " +
+                    "[EXPLANATION: 거실은 밝게, 침실은 차분하게 맞췄습니다.]";
+
+    static final String STRUCTURED_SUFFIX =
+            "'. 이를 Tasmota 전구 조명 값으로 변환하세요. " +
+                    "(hue:0-359, saturation/brightness:0-100, dimmer:0-100, ct:153-500). " +
+                    "explanation에는 기분 변화에 대한 설명을 한 문장으로 작성하세요.";
+
+    private MoodPrompts() {
+    }
+
+    /** 구역 일괄 해석 프롬프트 뒷부분 (zoneList 예: "거실, 침실") */
+    static String zoneSuffix(String zoneList) {
+        return String.format(Locale.ROOT, ZONE_FORMAT, zoneList);
+    }
+}
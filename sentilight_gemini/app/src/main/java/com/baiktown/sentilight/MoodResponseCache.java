@@ -0,0 +1,339 @@
+package com.baiktown.sentilight;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 기분 문장 → Gemini 응답 캐시 (LRU + TTL + 디스크 스냅샷)
+ * - 키: 공백/문장부호/조사/종결어미를 정규화한 기분 문장 ("피곤해요!" == "피곤해")
+ * - 값: Gemini 전체 응답 텍스트 ([COMMAND: ...] [EXPLANATION: ...])
+ * - 스냅샷: DataOutputStream 기반의 작은 바이너리 파일 (앱 시작 시 로드)
+ *   저장은 인스턴스당 한 번에 하나씩, 저장마다 고유 임시 파일에 쓴 뒤 교체 (동시 저장이 같은 .tmp를 덮어쓰지 않음)
+ */
+public class MoodResponseCache {
+
+    private static final String TAG = "MoodResponseCache";
+
+    private static final int SNAPSHOT_MAGIC = 0x534C4331; // "SLC1"
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    public static final long DEFAULT_TTL_MILLIS = 7L * 24 * 60 * 60 * 1000; // 7일
+
+    // 💡 단어 끝에서 떼어낼 조사 (긴 것부터 검사)
+    private static final String[] PARTICLES = {
+            "에서", "으로", "이랑", "하고", "까지", "부터", "처럼", "보다",
+            "은", "는", "이", "가", "을", "를", "에", "도", "로", "와", "과", "랑", "의"
+    };
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // accessOrder=true → 조회 시 최근 사용 순으로 재정렬되는 LRU
+    private final LinkedHashMap<String, Entry> entries;
+
+    // 스냅샷 저장 직렬화용 (entries 락과 분리: 파일 쓰는 동안 조회/저장을 막지 않음)
+    private final Object snapshotLock = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong hitLatencyTotalMs = new AtomicLong();
+    private final AtomicLong missLatencyTotalMs = new AtomicLong();
+
+    private static final class Entry {
+        final String response;
+        final long createdAt;
+
+        Entry(String response, long createdAt) {
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public MoodResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    public MoodResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MoodResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    // -------------------- 조회/저장 --------------------
+
+    /** 캐시된 Gemini 응답을 반환합니다. 없거나 만료되었으면 null (hit/miss 카운터 갱신) */
+    public String get(String moodText) {
+        String key = normalize(moodText);
+        if (key.isEmpty()) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && !isExpired(e, System.currentTimeMillis())) {
+                hitCount.incrementAndGet();
+                return e.response;
+            }
+            if (e != null) entries.remove(key);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /** hit/miss 카운터를 건드리지 않고 유효한 항목이 있는지만 확인합니다. */
+    public boolean contains(String moodText) {
+        String key = normalize(moodText);
+        if (key.isEmpty()) return false;
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            return e != null && !isExpired(e, System.currentTimeMillis());
+        }
+    }
+
+    /** Gemini 응답을 저장합니다. (빈 키/빈 응답은 무시) */
+    public void put(String moodText, String response) {
+        String key = normalize(moodText);
+        if (key.isEmpty() || response == null || response.trim().isEmpty()) return;
+        synchronized (entries) {
+            entries.put(key, new Entry(response, System.currentTimeMillis()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private boolean isExpired(Entry e, long now) {
+        return ttlMillis > 0 && now - e.createdAt > ttlMillis;
+    }
+
+    // -------------------- 통계 (hit/miss) --------------------
+
+    /** 기분 입력 → 전구 전송까지 걸린 시간을 hit/miss 별로 기록합니다. */
+    public void recordEndToEndLatency(boolean hit, long elapsedMs) {
+        if (hit) {
+            hitLatencyTotalMs.addAndGet(elapsedMs);
+        } else {
+            missLatencyTotalMs.addAndGet(elapsedMs);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long getAverageHitLatencyMs() {
+        long hits = hitCount.get();
+        return hits == 0 ? 0 : hitLatencyTotalMs.get() / hits;
+    }
+
+    public long getAverageMissLatencyMs() {
+        long misses = missCount.get();
+        return misses == 0 ? 0 : missLatencyTotalMs.get() / misses;
+    }
+
+    public String getStatsSummary() {
+        return String.format(Locale.US, "cache hit=%d miss=%d rate=%.1f%% avg(hit)=%dms avg(miss)=%dms size=%d",
+                getHitCount(), getMissCount(), getHitRate() * 100.0,
+                getAverageHitLatencyMs(), getAverageMissLatencyMs(), size());
+    }
+
+    // -------------------- 디스크 스냅샷 --------------------
+
+    /**
+     * 스냅샷 파일에서 만료되지 않은 항목을 불러옵니다. 파일이 없거나 손상되었으면 무시합니다.
+     * 끝까지 읽은 뒤에만 반영하므로 잘린 파일에서 일부 항목만 들어오지 않습니다.
+     */
+    public void loadSnapshot(File file) {
+        if (file == null || !file.exists()) return;
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                Log.w(TAG, "스냅샷 형식이 달라 무시합니다: " + file);
+                return;
+            }
+            int count = in.readInt();
+            if (count < 0) throw new IOException("잘못된 항목 수: " + count);
+            List<String> keys = new ArrayList<>();
+            List<Entry> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long createdAt = in.readLong();
+                String key = in.readUTF();
+                String response = in.readUTF();
+                keys.add(key);
+                values.add(new Entry(response, createdAt));
+            }
+            synchronized (entries) {
+                // 파일은 오래된 순으로 저장되어 있으므로 그대로 넣으면 LRU 순서가 복원됩니다.
+                for (int i = 0; i < keys.size(); i++) {
+                    if (!isExpired(values.get(i), now)) entries.put(keys.get(i), values.get(i));
+                }
+            }
+            Log.i(TAG, "스냅샷 로드 완료: " + size() + "개 항목");
+        } catch (IOException e) {
+            Log.w(TAG, "스냅샷 로드 실패: " + e.getMessage());
+        }
+    }
+
+    /** 현재 항목을 임시 파일에 기록한 뒤 교체하여 스냅샷을 저장합니다. (동시 호출은 차례로 실행) */
+    public void saveSnapshot(File file) throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot(file);
+        }
+    }
+
+    private void writeSnapshot(File file) throws IOException {
+        List<String> keys;
+        List<Entry> values;
+        synchronized (entries) {
+            keys = new ArrayList<>(entries.size());
+            values = new ArrayList<>(entries.size());
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> me = it.next();
+                if (isExpired(me.getValue(), now)) {
+                    it.remove();
+                    continue;
+                }
+                keys.add(me.getKey());
+                values.add(me.getValue());
+            }
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        boolean replaced = false;
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(keys.size());
+                for (int i = 0; i < keys.size(); i++) {
+                    Entry e = values.get(i);
+                    out.writeLong(e.createdAt);
+                    out.writeUTF(keys.get(i));
+                    out.writeUTF(e.response);
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("스냅샷 파일 교체 실패: " + file);
+            }
+            replaced = true;
+        } finally {
+            if (!replaced && !tmp.delete()) Log.w(TAG, "임시 스냅샷 삭제 실패: " + tmp);
+        }
+    }
+
+    // -------------------- 정규화 --------------------
+
+    /**
+     * 기분 문장을 캐시 키로 정규화합니다.
+     * - 소문자화, 문장부호/이모티콘 자모(ㅋㅎㅠㅜ) 제거, 공백 단일화
+     * - 각 어절 끝의 조사 1개 제거 ("기분이" → "기분")
+     * - 마지막 어절의 존댓말 종결 "요" 제거 ("피곤해요" → "피곤해", "좋아요" → "좋아")
+     *   단, 요 앞이 종결어미일 때만 ("필요"/"중요"/"월요"는 단어의 일부이므로 그대로)
+     */
+    public static String normalize(String moodText) {
+        if (moodText == null) return "";
+
+        String lowered = moodText.toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < lowered.length(); i++) {
+            char c = lowered.charAt(i);
+            if (isHangulSyllable(c) || Character.isLetterOrDigit(c) && !isHangulJamo(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) words.add(word.toString());
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            String w = stripParticle(words.get(i));
+            if (i == words.size() - 1 && isPoliteEnding(w)) {
+                w = w.substring(0, w.length() - 1);
+            }
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(w);
+        }
+        return sb.toString();
+    }
+
+    private static String stripParticle(String w) {
+        for (String p : PARTICLES) {
+            // 조사를 떼고도 두 글자 이상 남는 경우만 제거 ("나는"/"아이" 같은 짧은 단어 보호)
+            if (w.length() >= p.length() + 2 && w.endsWith(p)) {
+                return w.substring(0, w.length() - p.length());
+            }
+        }
+        return w;
+    }
+
+    // 💡 "요" 앞에 올 수 있는 해요체 어미의 중성: ㅏ ㅐ ㅓ ㅔ ㅕ ㅖ ㅘ ㅙ ㅝ (받침 없음: 해/아/어/워/려/돼/예/에/네…)
+    private static final boolean[] POLITE_VOWELS = new boolean[21];
+
+    static {
+        for (int jung : new int[]{0, 1, 4, 5, 6, 7, 9, 10, 14}) POLITE_VOWELS[jung] = true;
+    }
+
+    /** 마지막 어절이 "…해요/…어요/…예요/…지요/…군요/…걸요" 처럼 존댓말 "요"로 끝나는지 */
+    private static boolean isPoliteEnding(String w) {
+        if (w.length() < 2 || !w.endsWith("요")) return false;
+        char prev = w.charAt(w.length() - 2);
+        if (prev == '지' || prev == '군' || prev == '걸') return true;
+        if (!isHangulSyllable(prev)) return false;
+        int index = prev - '가';
+        int jong = index % 28;
+        int jung = (index / 28) % 21;
+        return jong == 0 && POLITE_VOWELS[jung];
+    }
+
+    private static boolean isHangulSyllable(char c) {
+        return c >= '가' && c <= '힣';
+    }
+
+    private static boolean isHangulJamo(char c) {
+        return (c >= 'ㄱ' && c <= 'ㆎ') || (c >= 'ᄀ' && c <= 'ᇿ');
+    }
+}
@@ -0,0 +1,167 @@
+package com.baiktown.sentilight;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 네트워크 없이 동작하는 한국어 기분 분류기 (어휘 사전 + 글자 bigram)
+ * - 기분 문장을 미리 정의된 분위기(피곤/행복/슬픔 ...) 중 하나로 분류하고
+ *   해당 분위기의 HSB/Dimmer/CT 조합과 신뢰도(0.0~1.0)를 반환합니다.
+ * - 사전 단어 완전 일치는 글자 수만큼, 사전에 등장하는 bigram 일치는 BIGRAM_WEIGHT만큼 점수를 줍니다.
+ * - 부정 표현("안 좋아", "좋지 않아")이 있으면 신뢰도를 크게 낮춰 Gemini로 넘깁니다.
+ * Android API를 사용하지 않으므로 JVM에서 그대로 테스트/벤치마크할 수 있습니다.
+ */
+public class OfflineMoodClassifier {
+
+    /** 분류 결과를 Gemini 대신 그대로 쓸 기본 최소 신뢰도 */
+    public static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.8;
+
+    private static final double BIGRAM_WEIGHT = 0.25;
+    private static final double NEGATION_PENALTY = 0.5;
+
+    private static final String[] NEGATIONS = {"안 ", "안좋", "지 않", "지않", "못 ", "별로", "아니"};
+
+    /** 분위기 하나 = 키워드 목록 + 조명 설정 */
+    private static final class Mood {
+        final String name;
+        final String[] keywords;
+        final String command;
+        final String explanation;
+
+        Mood(String name, String[] keywords, int hue, int sat, int bri, int dimmer, int ct, String explanation) {
+            this.name = name;
+            this.keywords = keywords;
+            this.command = "HSBCOLOR " + hue + "," + sat + "," + bri + ";Dimmer " + dimmer + ";CT " + ct;
+            this.explanation = explanation;
+        }
+    }
+
+    private static final Mood[] MOODS = {
+            new Mood("tired", new String[]{"피곤", "지쳤", "지친", "졸려", "졸리", "나른", "힘들", "녹초", "기운없"},
+                    30, 60, 40, 35, 450, "따뜻하고 은은한 주황빛으로 피로를 풀어줍니다."),
+            new Mood("happy", new String[]{"좋아", "행복", "기뻐", "기쁘", "신나", "신난", "즐거", "최고", "상쾌"},
+                    50, 90, 100, 85, 250, "밝고 따뜻한 노란색으로 즐거운 기분을 살려줍니다."),
+            new Mood("sad", new String[]{"슬퍼", "슬프", "우울", "눈물", "외로", "허전", "속상", "서러"},
+                    210, 50, 60, 50, 350, "잔잔한 푸른빛으로 마음을 차분히 감싸줍니다."),
+            new Mood("angry", new String[]{"화나", "화가", "짜증", "스트레스", "열받", "빡쳐", "분노", "답답"},
+                    180, 40, 70, 55, 300, "시원한 청록빛으로 흥분된 마음을 가라앉혀 줍니다."),
+            new Mood("anxious", new String[]{"불안", "긴장", "걱정", "초조", "무서", "떨려"},
+                    120, 35, 65, 55, 320, "부드러운 초록빛으로 긴장을 풀어줍니다."),
+            new Mood("focus", new String[]{"집중", "공부", "일해", "업무", "작업", "독서", "책읽"},
+                    200, 10, 100, 100, 180, "밝고 차가운 백색광으로 집중력을 높여줍니다."),
+            new Mood("relax", new String[]{"편안", "쉬고", "휴식", "힐링", "여유", "느긋"},
+                    35, 45, 70, 60, 400, "포근한 웜톤 조명으로 편안한 휴식을 돕습니다."),
+            new Mood("sleep", new String[]{"잘래", "자야", "잠자", "잠이", "수면", "자고싶", "자러", "잘게"},
+                    25, 80, 15, 10, 500, "아주 어두운 주황빛으로 잠들 준비를 돕습니다."),
+            new Mood("romantic", new String[]{"사랑", "데이트", "로맨틱", "설레", "설렘"},
+                    330, 70, 60, 45, 400, "은은한 분홍빛으로 로맨틱한 분위기를 만들어줍니다."),
+            new Mood("energetic", new String[]{"파티", "춤추", "에너지", "활기", "운동", "신나게"},
+                    280, 100, 100, 100, 200, "선명한 보랏빛으로 에너지를 끌어올립니다."),
+    };
+
+    // bigram(두 글자를 int로 합친 값) → 분위기별 출현 횟수
+    private static final Map<Integer, int[]> BIGRAM_INDEX = new HashMap<>();
+
+    static {
+        for (int m = 0; m < MOODS.length; m++) {
+            for (String kw : MOODS[m].keywords) {
+                for (int i = 0; i + 1 < kw.length(); i++) {
+                    int[] counts = BIGRAM_INDEX.get(bigram(kw.charAt(i), kw.charAt(i + 1)));
+                    if (counts == null) {
+                        counts = new int[MOODS.length];
+                        BIGRAM_INDEX.put(bigram(kw.charAt(i), kw.charAt(i + 1)), counts);
+                    }
+                    counts[m]++;
+                }
+            }
+        }
+    }
+
+    /** 분류 결과 */
+    public static final class Result {
+        public final String mood;
+        public final String command;
+        public final String explanation;
+        public final double confidence;
+        /** 부정 표현("안 좋아", "행복하지 않아")이 있었는지. 있으면 mood는 부정된 분위기일 수 있음 */
+        public final boolean negated;
+
+        Result(String mood, String command, String explanation, double confidence, boolean negated) {
+            this.mood = mood;
+            this.command = command;
+            this.explanation = explanation;
+            this.confidence = confidence;
+            this.negated = negated;
+        }
+
+        /** 이 분위기로 조명을 정해도 되는지 (부정 표현이 없고 신뢰도가 threshold 이상) */
+        public boolean isUsable(double threshold) {
+            return !negated && confidence >= threshold;
+        }
+
+        /** Gemini 응답과 같은 괄호 형식 텍스트 */
+        public String toBracketText() {
+            return "[COMMAND: " + command + "] [EXPLANATION: " + explanation + "]";
+        }
+    }
+
+    /**
+     * 기분 문장을 분류합니다. 아무 단서도 없으면 null을 반환합니다.
+     */
+    public Result classify(String moodText) {
+        if (moodText == null || moodText.isEmpty()) return null;
+
+        // 공백/문장부호를 제거한 압축 문자열에서 키워드를 찾아 어절 경계에 영향받지 않게 함
+        StringBuilder compact = new StringBuilder(moodText.length());
+        for (int i = 0; i < moodText.length(); i++) {
+            char c = moodText.charAt(i);
+            if (Character.isLetterOrDigit(c)) compact.append(c);
+        }
+        if (compact.length() == 0) return null;
+
+        double[] scores = new double[MOODS.length];
+        String text = compact.toString();
+        for (int m = 0; m < MOODS.length; m++) {
+            for (String kw : MOODS[m].keywords) {
+                if (text.contains(kw)) scores[m] += kw.length();
+            }
+        }
+        for (int i = 0; i + 1 < text.length(); i++) {
+            int[] counts = BIGRAM_INDEX.get(bigram(text.charAt(i), text.charAt(i + 1)));
+            if (counts == null) continue;
+            for (int m = 0; m < counts.length; m++) {
+                if (counts[m] > 0) scores[m] += BIGRAM_WEIGHT;
+            }
+        }
+
+        int best = -1;
+        double top = 0, total = 0;
+        for (int m = 0; m < scores.length; m++) {
+            total += scores[m];
+            if (scores[m] > top) {
+                top = scores[m];
+                best = m;
+            }
+        }
+        if (best < 0) return null;
+
+        // 신뢰도 = (1위 점수 비중) × (근거의 양: 키워드 1개(2글자) 이상이면 1.0)
+        double confidence = (top / total) * Math.min(1.0, top / 2.0);
+        boolean negated = hasNegation(moodText);
+        if (negated) confidence *= NEGATION_PENALTY;
+
+        Mood mood = MOODS[best];
+        return new Result(mood.name, mood.command, mood.explanation, confidence, negated);
+    }
+
+    private static boolean hasNegation(String text) {
+        for (String neg : NEGATIONS) {
+            if (text.contains(neg)) return true;
+        }
+        return false;
+    }
+
+    private static int bigram(char a, char b) {
+        return (a << 16) | b;
+    }
+}
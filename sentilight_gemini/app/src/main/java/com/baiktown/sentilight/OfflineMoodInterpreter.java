@@ -0,0 +1,46 @@
+package com.baiktown.sentilight;
+
+/**
+ * OfflineMoodClassifier를 MoodInterpreter로 감싼 구현 (네트워크 없음)
+ * 분류 단서가 없거나, 신뢰도가 임계값 미만이거나, 부정 표현이 있으면 은은한 웜화이트 기본 조명을 반환합니다.
+ */
+public class OfflineMoodInterpreter implements MoodInterpreter {
+
+    static final String NEUTRAL_REPLY =
+            "[COMMAND: HSBCOLOR 40,30,80;Dimmer 70;CT 350] [EXPLANATION: 편안한 웜화이트 조명으로 맞췄습니다.]";
+
+    /**
+     * 분류 결과가 쓸 만하면(부정 표현 없음, 신뢰도 threshold 이상) 그 분위기의 응답, 아니면 NEUTRAL_REPLY
+     * 🚨 "기분이 안 좋아"처럼 부정된 문장도 부정된 분위기(happy)로 분류되므로 그대로 쓰면 반대 조명이 됨
+     */
+    static String replyFor(OfflineMoodClassifier.Result result, double threshold) {
+        return (result != null && result.isUsable(threshold)) ? result.toBracketText() : NEUTRAL_REPLY;
+    }
+
+    private final OfflineMoodClassifier classifier;
+    private final double confidenceThreshold;
+
+    public OfflineMoodInterpreter() {
+        this(new OfflineMoodClassifier());
+    }
+
+    public OfflineMoodInterpreter(OfflineMoodClassifier classifier) {
+        this(classifier, OfflineMoodClassifier.DEFAULT_CONFIDENCE_THRESHOLD);
+    }
+
+    /** @param confidenceThreshold 분류한 분위기를 그대로 쓸 최소 신뢰도 (미만이면 NEUTRAL_REPLY) */
+    public OfflineMoodInterpreter(OfflineMoodClassifier classifier, double confidenceThreshold) {
+        this.classifier = classifier;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    @Override
+    public String name() {
+        return "offline";
+    }
+
+    @Override
+    public String interpret(String moodText) {
+        return replyFor(classifier.classify(moodText), confidenceThreshold);
+    }
+}
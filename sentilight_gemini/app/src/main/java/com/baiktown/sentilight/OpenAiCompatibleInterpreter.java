@@ -0,0 +1,101 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * OpenAI 호환 Chat Completions 엔드포인트(llama.cpp server, Ollama, vLLM 등)를 사용하는 해석기
+ * - POST {baseUrl}/chat/completions, 응답의 choices[0].message.content를 그대로 반환
+ * - 프롬프트는 Gemini 괄호 형식과 동일하므로 이후 파싱 경로를 그대로 사용합니다.
+ * - interpret(text, timeoutMs)는 시도 1번을 Call.timeout()으로 제한하고 HTTP 오류를 HttpStatusException으로 던짐
+ *   (컨트롤러가 Gemini와 같은 발화 예산/재시도/서킷 브레이커로 감쌈)
+ */
+public class OpenAiCompatibleInterpreter implements MoodInterpreter {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    private final String completionsUrl;
+    private final String model;
+    private final String apiKey; // 없으면 Authorization 헤더 생략
+    private final Gson gson = new Gson();
+
+    /**
+     * @param baseUrl 예: "http://192.168.0.10:8080/v1"
+     */
+    public OpenAiCompatibleInterpreter(OkHttpClient client, String baseUrl, String model, String apiKey) {
+        this.client = client;
+        String trimmed = baseUrl.trim();
+        this.completionsUrl = (trimmed.endsWith("/") ? trimmed : trimmed + "/") + "chat/completions";
+        this.model = model;
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public String name() {
+        return "openai-compat";
+    }
+
+    @Override
+    public String interpret(String moodText) throws IOException {
+        return interpret(moodText, 0);
+    }
+
+    /** @param timeoutMs 이 시도의 호출 타임아웃 (0 이하면 공유 클라이언트 설정) */
+    @Override
+    public String interpret(String moodText, long timeoutMs) throws IOException {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "user");
+        message.addProperty("content", MoodPrompts.PREFIX + moodText + MoodPrompts.BRACKET_SUFFIX);
+        JsonArray messages = new JsonArray();
+        messages.add(message);
+
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", model);
+        requestBody.add("messages", messages);
+        requestBody.addProperty("temperature", 0.3);
+
+        Request.Builder builder = new Request.Builder()
+                .url(completionsUrl)
+                .post(RequestBody.create(gson.toJson(requestBody), JSON));
+        if (apiKey != null && !apiKey.trim().isEmpty()) {
+            builder.header("Authorization", "Bearer " + apiKey.trim());
+        }
+
+        Call call = client.newCall(builder.build());
+        if (timeoutMs > 0) call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        try (Response response = call.execute()) {
+            String responseString = (response.body() != null) ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                throw new RetryEngine.HttpStatusException(response.code(), "OpenAI 호환 API 오류: HTTP " + response.code() + " / " + responseString);
+            }
+
+            JsonObject json = gson.fromJson(responseString, JsonObject.class);
+            if (json == null || !json.has("choices") || json.getAsJsonArray("choices").size() == 0) {
+                throw new IOException("OpenAI 호환 응답에 choices가 없습니다.");
+            }
+            JsonObject msg = json.getAsJsonArray("choices").get(0).getAsJsonObject().getAsJsonObject("message");
+            if (msg == null || !msg.has("content") || msg.get("content").isJsonNull()) {
+                throw new IOException("OpenAI 호환 응답 파싱 실패(message.content 없음).");
+            }
+            String text = msg.get("content").getAsString();
+            if (text.trim().isEmpty()) {
+                throw new IOException("OpenAI 호환 서버가 텍스트를 생성하지 못했습니다.");
+            }
+            return text.trim();
+        } catch (RuntimeException e) {
+            throw new IOException("OpenAI 호환 응답 파싱 실패: " + e.getMessage(), e);
+        }
+    }
+}
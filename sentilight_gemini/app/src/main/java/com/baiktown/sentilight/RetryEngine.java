@@ -0,0 +1,189 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * 마감 시간(deadline) 기반 재시도 엔진
+ * - 시도마다 남은 예산(remainingMs)을 넘겨 호출 타임아웃으로 사용하게 함
+ * - 재시도 간격은 decorrelated jitter: delay = min(cap, random(base, prev * 3))
+ * - 대기는 Thread.sleep이 아니라 scheduler에 다음 시도를 예약 (대기 중 스레드를 점유하지 않음)
+ * - 429/5xx/연결 거부/소켓 타임아웃만 재시도, 그 외(4xx, 취소, 파싱 오류)는 즉시 실패
+ * - 다음 시도가 마감 전에 끝날 여유(minAttemptBudgetMs)가 없으면 재시도하지 않음
+ */
+final class RetryEngine {
+
+    /** 한 번의 시도. remainingMs는 마감까지 남은 시간 (호출 타임아웃으로 사용) */
+    interface Attempt<T> {
+        CompletableFuture<T> start(int attemptNo, long remainingMs) throws IOException;
+    }
+
+    /** OkHttp 응답 본문 해석기 (응답은 호출 후 자동으로 닫힘) */
+    interface ResponseParser<T> {
+        T parse(Response response) throws IOException;
+    }
+
+    /** 재시도 여부 판단을 위해 HTTP 상태 코드를 담은 예외 */
+    static final class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int code;
+
+        HttpStatusException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    /** 마감 시간 초과 (마지막 시도의 원인을 cause로 보존) */
+    static final class DeadlineExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        DeadlineExceededException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int maxAttempts;
+    private final long minAttemptBudgetMs;
+
+    RetryEngine(ScheduledExecutorService scheduler, long baseDelayMs, long maxDelayMs, int maxAttempts, long minAttemptBudgetMs) {
+        this.scheduler = scheduler;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxAttempts = maxAttempts;
+        this.minAttemptBudgetMs = minAttemptBudgetMs;
+    }
+
+    /** deadlineAtMs(System.currentTimeMillis 기준)까지 attempt를 재시도하며 실행합니다. */
+    <T> CompletableFuture<T> execute(Attempt<T> attempt, long deadlineAtMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        run(attempt, deadlineAtMs, 1, baseDelayMs, null, result);
+        return result;
+    }
+
+    private <T> void run(Attempt<T> attempt, long deadlineAtMs, int attemptNo, long prevDelayMs,
+                         Throwable lastError, CompletableFuture<T> result) {
+        if (result.isDone()) return;
+        long remaining = deadlineAtMs - System.currentTimeMillis();
+        if (remaining < minAttemptBudgetMs) {
+            result.completeExceptionally(new DeadlineExceededException("마감 시간 초과 (" + (attemptNo - 1) + "회 시도)", lastError));
+            return;
+        }
+
+        CompletableFuture<T> f;
+        try {
+            f = attempt.start(attemptNo, remaining);
+        } catch (IOException | RuntimeException e) {
+            f = new CompletableFuture<>();
+            f.completeExceptionally(e);
+        }
+
+        f.whenComplete((value, err) -> {
+            if (err == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(err);
+            if (attemptNo >= maxAttempts || !isRetryable(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long delay = nextDelayMs(prevDelayMs);
+            if (System.currentTimeMillis() + delay + minAttemptBudgetMs > deadlineAtMs) {
+                result.completeExceptionally(new DeadlineExceededException("재시도할 예산 부족 (" + attemptNo + "회 시도)", cause));
+                return;
+            }
+            scheduler.schedule(() -> run(attempt, deadlineAtMs, attemptNo + 1, delay, cause, result), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /** decorrelated jitter: [base, prev * 3) 구간의 무작위 값, 상한 maxDelayMs */
+    long nextDelayMs(long prevDelayMs) {
+        long upper = Math.max(baseDelayMs + 1, prevDelayMs * 3);
+        long delay = ThreadLocalRandom.current().nextLong(baseDelayMs, upper);
+        return Math.min(maxDelayMs, delay);
+    }
+
+    // -------------------- 오류 분류 --------------------
+
+    /** 재시도 가능한 오류: 429, 5xx, 연결 거부/경로 없음, 소켓 타임아웃 */
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof HttpStatusException) {
+            int code = ((HttpStatusException) e).code;
+            return code == 429 || code >= 500;
+        }
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof SocketTimeoutException) {
+            return true;
+        }
+        // OkHttp callTimeout은 InterruptedIOException("timeout"), 취소는 IOException("Canceled")
+        if (e instanceof InterruptedIOException) {
+            return "timeout".equals(e.getMessage());
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    // -------------------- OkHttp 연동 --------------------
+
+    /** Call을 enqueue로 실행하고 parser 결과로 완료되는 future를 반환합니다. (스레드를 점유하지 않음) */
+    static <T> CompletableFuture<T> enqueue(Call call, ResponseParser<T> parser) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                try (Response r = response) {
+                    future.complete(parser.parse(r));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /** 블로킹 호출자용: future 완료를 기다리고 실패 원인을 IOException으로 변환합니다. */
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("대기 중 인터럽트");
+        } catch (CancellationException e) {
+            throw new IOException("호출이 취소되었습니다.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 같은 키의 동시 요청을 하나의 진행 중 호출로 합치는 single-flight 계층
+ * - 첫 호출자(leader)만 starter로 실제 요청을 시작하고, 이후 호출자는 같은 결과를 기다림
+ * - 호출자마다 별도의 future(view)를 받으므로 한 호출자가 취소해도 다른 호출자에게 영향 없음
+ * - 마지막 대기자까지 취소하면 그때 실제 요청(Call)을 취소
+ * - 완료되면 키를 즉시 제거 (결과 보관은 MoodResponseCache의 역할)
+ */
+final class SingleFlight<V> {
+
+    /** 실제 요청 시작. handle에 시도마다 Call을 등록해야 마지막 대기자 취소 시 끊을 수 있음 */
+    interface Starter<V> {
+        CompletableFuture<V> start(GeminiRequestHandle handle) throws IOException;
+    }
+
+    private static final class Flight<V> {
+        final GeminiRequestHandle handle = new GeminiRequestHandle();
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        int waiters; // SingleFlight 모니터로 보호
+    }
+
+    private final Map<String, Flight<V>> flights = new HashMap<>(); // this로 보호
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /** key로 진행 중인 요청이 있으면 합류하고, 없으면 starter로 시작합니다. */
+    CompletableFuture<V> join(String key, Starter<V> starter) {
+        final Flight<V> flight;
+        final boolean leader;
+        synchronized (this) {
+            Flight<V> existing = flights.get(key);
+            leader = existing == null;
+            flight = leader ? new Flight<>() : existing;
+            if (leader) flights.put(key, flight);
+            flight.waiters++;
+        }
+
+        final CompletableFuture<V> view = new CompletableFuture<>();
+        view.whenComplete((v, e) -> {
+            if (view.isCancelled()) leave(key, flight);
+        });
+        flight.result.whenComplete((v, e) -> {
+            if (e != null) {
+                view.completeExceptionally(e);
+            } else {
+                view.complete(v);
+            }
+        });
+
+        if (leader) {
+            startedCount.incrementAndGet();
+            flight.result.whenComplete((v, e) -> remove(key, flight));
+            try {
+                starter.start(flight.handle).whenComplete((v, e) -> {
+                    if (e != null) {
+                        flight.result.completeExceptionally(e);
+                    } else {
+                        flight.result.complete(v);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                flight.result.completeExceptionally(e);
+            }
+        } else {
+            coalescedCount.incrementAndGet();
+        }
+        return view;
+    }
+
+    /** 실제로 시작한 요청 수 */
+    long getStartedCount() {
+        return startedCount.get();
+    }
+
+    /** 진행 중인 요청에 합류하여 호출을 아낀 횟수 */
+    long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private void leave(String key, Flight<V> flight) {
+        synchronized (this) {
+            flight.waiters--;
+            if (flight.waiters > 0 || flight.result.isDone()) return;
+            flights.remove(key, flight);
+        }
+        flight.handle.cancel();
+        flight.result.completeExceptionally(new IOException("모든 호출자가 취소하여 요청을 중단했습니다."));
+    }
+
+    private synchronized void remove(String key, Flight<V> flight) {
+        flights.remove(key, flight);
+    }
+}
@@ -0,0 +1,144 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Gemini 구조화 출력(responseSchema) 응답을 담는 타입 객체.
+ * { "hue": 60, "saturation": 100, "brightness": 100, "dimmer": 70, "ct": 250, "explanation": "..." }
+ * - JsonReader로 스트리밍 파싱하여 바로 필드에 채웁니다. (정규식/replaceAll 없음)
+ */
+public final class StructuredLightReply {
+
+    // 파싱 중 "아직 안 나온 필드" 표시 (음수 값도 toLightCommand에서 범위로 보정되므로 -1을 쓸 수 없음)
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    public final int hue;
+    public final int saturation;
+    public final int brightness;
+    public final int dimmer;
+    public final int ct;
+    public final String explanation;
+
+    public StructuredLightReply(int hue, int saturation, int brightness, int dimmer, int ct, String explanation) {
+        this.hue = hue;
+        this.saturation = saturation;
+        this.brightness = brightness;
+        this.dimmer = dimmer;
+        this.ct = ct;
+        this.explanation = explanation;
+    }
+
+    /** Tasmota cmnd 문자열 ("HSBCOLOR h,s,b;Dimmer d;CT c") */
+    public String toCommand() {
+        return toLightCommand().toCommandString();
+    }
+
+    public LightCommand toLightCommand() {
+        return LightCommand.of(hue, saturation, brightness, dimmer, ct);
+    }
+
+    /** 기존 괄호 형식 텍스트 (캐시 저장 등 괄호 형식을 기대하는 경로와의 호환용) */
+    public String toBracketText() {
+        return "[COMMAND: " + toCommand() + "] [EXPLANATION: " + explanation + "]";
+    }
+
+    // -------------------- 요청 스키마 --------------------
+
+    /** generationConfig에 넣을 responseSchema (OpenAPI 부분집합 형식) */
+    public static JsonObject buildResponseSchema() {
+        JsonObject properties = new JsonObject();
+        properties.add("hue", integerField("0-359"));
+        properties.add("saturation", integerField("0-100"));
+        properties.add("brightness", integerField("0-100"));
+        properties.add("dimmer", integerField("0-100"));
+        properties.add("ct", integerField("153-500"));
+        JsonObject explanation = new JsonObject();
+        explanation.addProperty("type", "STRING");
+        properties.add("explanation", explanation);
+
+        JsonArray required = new JsonArray();
+        JsonArray ordering = new JsonArray();
+        for (String name : new String[]{"hue", "saturation", "brightness", "dimmer", "ct", "explanation"}) {
+            required.add(name);
+            ordering.add(name);
+        }
+
+        JsonObject schema = new JsonObject();
+        schema.addProperty("type", "OBJECT");
+        schema.add("properties", properties);
+        schema.add("required", required);
+        schema.add("propertyOrdering", ordering);
+        return schema;
+    }
+
+    private static JsonObject integerField(String range) {
+        JsonObject field = new JsonObject();
+        field.addProperty("type", "INTEGER");
+        field.addProperty("description", range);
+        return field;
+    }
+
+    // -------------------- 파서 --------------------
+
+    /**
+     * 구조화 응답 텍스트를 스트리밍 파싱합니다. 필수 숫자 필드가 빠져 있거나 null이면 IOException
+     * 범위를 벗어난 값(음수, 359 초과 등)은 그대로 두고 toLightCommand에서 보정합니다.
+     */
+    public static StructuredLightReply parse(Reader reader) throws IOException {
+        int hue = MISSING, saturation = MISSING, brightness = MISSING, dimmer = MISSING, ct = MISSING;
+        String explanation = null;
+
+        JsonReader in = new JsonReader(reader);
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "hue": hue = nextInt(in); break;
+                    case "saturation": saturation = nextInt(in); break;
+                    case "brightness": brightness = nextInt(in); break;
+                    case "dimmer": dimmer = nextInt(in); break;
+                    case "ct": ct = nextInt(in); break;
+                    case "explanation":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            explanation = in.nextString();
+                        }
+                        break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("구조화 응답 파싱 실패: " + e.getMessage(), e);
+        }
+
+        if (hue == MISSING || saturation == MISSING || brightness == MISSING || dimmer == MISSING || ct == MISSING) {
+            throw new IOException("구조화 응답에 필수 필드가 없습니다.");
+        }
+        StructuredLightReply reply = new StructuredLightReply(hue, saturation, brightness, dimmer, ct,
+                explanation != null ? explanation.trim() : "");
+        if (reply.explanation.isEmpty()) {
+            return new StructuredLightReply(hue, saturation, brightness, dimmer, ct, reply.toCommand() + " 명령을 생성했습니다. (설명 없음)");
+        }
+        return reply;
+    }
+
+    /** 정수/실수/숫자 문자열 모두 허용 (모델이 60.0 또는 "60"으로 줄 때 대비). null이면 MISSING */
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return MISSING;
+        }
+        // int 범위를 넘는 값이 잘려 엉뚱한 값이 되지 않도록 포화시킨 뒤 반환 (MISSING과 겹치지 않게 +1)
+        long v = Math.round(in.nextDouble());
+        return (int) Math.max(MISSING + 1L, Math.min(Integer.MAX_VALUE, v));
+    }
+}
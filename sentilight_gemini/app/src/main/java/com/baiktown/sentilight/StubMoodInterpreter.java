@@ -0,0 +1,43 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+
+/**
+ * 결정적(deterministic) 스텁 해석기: 같은 문장(정규화 기준)에는 항상 같은 명령을 돌려줍니다.
+ * 파이프라인 부하 테스트용으로 고정 지연(latencyMs)을 흉내낼 수 있습니다.
+ */
+public class StubMoodInterpreter implements MoodInterpreter {
+
+    private final long latencyMs;
+
+    public StubMoodInterpreter() {
+        this(0);
+    }
+
+    public StubMoodInterpreter(long latencyMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public String interpret(String moodText) throws IOException {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("스텁 해석이 중단되었습니다.", e);
+            }
+        }
+        // 문장 해시로 색조/밝기를 정해 입력마다 다르지만 재현 가능한 결과를 만듦
+        int h = MoodResponseCache.normalize(moodText).hashCode() & 0x7fffffff;
+        int hue = h % 360;
+        int dimmer = 40 + (h / 360) % 61;
+        return "[COMMAND: HSBCOLOR " + hue + ",80," + dimmer + ";Dimmer " + dimmer + ";CT 300] "
+                + "[EXPLANATION: 스텁 응답 (hue " + hue + ")]";
+    }
+}
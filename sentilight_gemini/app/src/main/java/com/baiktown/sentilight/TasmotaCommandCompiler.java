@@ -0,0 +1,86 @@
+package com.baiktown.sentilight;
+
+/**
+ * LightCommand → 전구 1대에 보낼 Tasmota cmnd 문자열 (HTTP 요청 1번으로 전부 적용)
+ * - Tasmota는 ';'로 이어 붙인 여러 명령을 Backlog로 받을 때만 차례로 실행합니다.
+ *   ("HSBCOLOR h,s,b;Dimmer d;CT c"를 그대로 보내면 HSBColor만 실행되고 나머지는 인자로 취급되어 버려짐)
+ * - 일반 Backlog는 명령 사이에 약 200ms씩 쉬므로, 여러 명령이 필요하면 지연 없는 Backlog0으로 묶음
+ * - 겹치는 채널은 미리 정리:
+ *   · HSBColor 뒤의 CT는 전구를 백색 모드로 되돌려 색을 지우므로 색상 명령에서는 CT를 버림
+ *   · HSBColor 뒤의 Dimmer는 색 밝기를 덮어쓰므로 Dimmer 값을 HSB 밝기로 합침 (명령 1개)
+ *   · 채도 0 + CT는 RGB 흰색 대신 백색 채널(CT)로 보냄
+ *   · 최종 밝기가 0이면 Power OFF
+ * - 전구의 마지막 확인 상태(BulbStateTable)를 알면 바뀐 필드만 보내고, 이미 목표 상태면 null (전송 생략)
+ * 상태를 모를 때의 결과는 LightCommand.toEncodedQuery()가 인스턴스당 한 번만 계산해 캐시합니다.
+ */
+final class TasmotaCommandCompiler {
+
+    static final String POWER_OFF = "Power OFF";
+
+    private TasmotaCommandCompiler() {
+    }
+
+    /** 상태를 모르는 전구용 전체 명령 (명령이 1개면 Backlog 없이 그대로) */
+    static String compile(LightCommand cmd) {
+        return compileFor(cmd, null);
+    }
+
+    /**
+     * known 상태의 전구를 cmd의 목표 상태로 만드는 최소 명령
+     * @param known 마지막 확인 상태 (모르면 null → 전체 명령)
+     * @return 보낼 cmnd, 이미 목표 상태면 null
+     */
+    static String compileFor(LightCommand cmd, BulbStateTable.State known) {
+        BulbStateTable.State target = targetState(cmd, known);
+        if (target == null) {
+            // Dimmer만/CT만 있는 명령인데 현재 상태를 모름 → 그 필드만 그대로
+            return cmd.has(LightCommand.CT) ? "CT " + cmd.ct : "Dimmer " + cmd.dimmer;
+        }
+        return delta(known, target);
+    }
+
+    /** cmd를 적용한 뒤의 전구 상태 (Dimmer만/CT만 있는 명령은 켜진 known 상태가 있어야 계산 가능, 아니면 null) */
+    static BulbStateTable.State targetState(LightCommand cmd, BulbStateTable.State known) {
+        if (cmd.has(LightCommand.HSB)) {
+            int brightness = cmd.has(LightCommand.DIMMER) ? cmd.dimmer : cmd.brightness;
+            if (brightness == 0) return BulbStateTable.State.OFF;
+            if (cmd.saturation == 0 && cmd.has(LightCommand.CT)) {
+                return BulbStateTable.State.white(cmd.ct, brightness);
+            }
+            return BulbStateTable.State.color(cmd.hue, cmd.saturation, brightness);
+        }
+        if (cmd.has(LightCommand.DIMMER) && cmd.dimmer == 0) return BulbStateTable.State.OFF;
+        if (cmd.has(LightCommand.CT) && cmd.has(LightCommand.DIMMER)) {
+            return BulbStateTable.State.white(cmd.ct, cmd.dimmer);
+        }
+        if (known == null || !known.power) return null;
+        if (cmd.has(LightCommand.CT)) return BulbStateTable.State.white(cmd.ct, known.dimmer);
+        return known.withDimmer(cmd.dimmer);
+    }
+
+    /** known → target 전환 명령 (같으면 null). HSBColor/CT/Dimmer는 꺼진 전구도 켭니다. */
+    private static String delta(BulbStateTable.State known, BulbStateTable.State target) {
+        if (!target.power) {
+            return (known != null && !known.power) ? null : POWER_OFF;
+        }
+        boolean on = known != null && known.power;
+        if (target.colorMode) {
+            if (on && known.colorMode && known.hue == target.hue && known.saturation == target.saturation) {
+                return (known.dimmer == target.dimmer) ? null : "Dimmer " + target.dimmer;
+            }
+            return "HSBColor " + target.hue + ',' + target.saturation + ',' + target.dimmer;
+        }
+        if (on && !known.colorMode) {
+            if (known.ct == target.ct) {
+                return (known.dimmer == target.dimmer) ? null : "Dimmer " + target.dimmer;
+            }
+            if (known.dimmer == target.dimmer) return "CT " + target.ct;
+        }
+        return white(target.ct, target.dimmer);
+    }
+
+    /** 백색 모드: CT로 모드를 바꾼 뒤 Dimmer로 밝기 (순서 중요) */
+    private static String white(int ct, int dimmer) {
+        return "Backlog0 CT " + ct + ";Dimmer " + dimmer;
+    }
+}
@@ -5,36 +5,51 @@ import com.baiktown.sentilight.BuildConfig;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
-import android.graphics.Color;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.Callable; // 더 이상 사용되지 않지만 인터페이스 유지를 위해 남겨둠
-import java.util.concurrent.ExecutionException; // 더 이상 사용되지 않음
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future; // 더 이상 사용되지 않음
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import okhttp3.MediaType;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSource;
 
 /**
  * Android용 Tasmota + Gemini 제어 컨트롤러 (OkHttp 사용)
  * - Gemini: URL 쿼리 파라미터(?key=...) 방식
- * - Tasmota: HTTP GET /cm?cmnd=... (URL 인코딩 필수)
+ * - Tasmota: HTTP GET /cm?cmnd=... (URL 인코딩 필수, 여러 명령은 TasmotaCommandCompiler가 요청 1개로 묶음)
  */
 public class TasmotaController {
 
@@ -44,12 +59,62 @@ public class TasmotaController {
     private volatile String apiKey;
     private volatile String geminiModel = "gemini-2.5-flash-lite";
 
-    private volatile String tasmotaIpAddress = null;
+    // 💡 Gemini 엔드포인트 (로컬 SSE 대역 서버 테스트 시 교체 가능)
+    private static final String DEFAULT_GEMINI_BASE_URL = "https://generativelanguage.googleapis.com/v1/";
+    private volatile String geminiBaseUrl = DEFAULT_GEMINI_BASE_URL;
+
+    // 💡 true면 :streamGenerateContent(SSE)로 받아 COMMAND 블록이 닫히는 즉시 전구에 전송
+    private volatile boolean streamingEnabled = false;
+
+    // 💡 true면 responseSchema(JSON) 구조화 출력을 요청하고 StructuredLightReply로 바로 파싱 (스트리밍보다 우선)
+    private volatile boolean structuredOutputEnabled = false;
+    // 스키마 요청에 HTTP 400으로 응답한 모델 (이후 괄호 형식으로만 호출)
+    private final Set<String> schemaUnsupportedModels = ConcurrentHashMap.newKeySet();
+
+    // 💡 오프라인 기분 분류기: 신뢰도가 임계값 이상이면 Gemini를 호출하지 않음 (null이면 미사용)
+    private volatile OfflineMoodClassifier offlineClassifier = new OfflineMoodClassifier();
+    private volatile double offlineConfidenceThreshold = OfflineMoodClassifier.DEFAULT_CONFIDENCE_THRESHOLD;
+    private final AtomicLong offlineHitCount = new AtomicLong();
+
+    // 💡 음성 인식 부분 결과로 미리 시작한 Gemini 호출 (최종 결과와 일치하면 재사용)
+    private final Object speculationLock = new Object();
+    private Speculation speculation; // speculationLock으로 보호
+    private final AtomicLong speculationWinCount = new AtomicLong();
+    private final AtomicLong speculationWastedCount = new AtomicLong();
+
+    // 💡 헤징: 기본 모델이 p90 지연 안에 답하지 않으면 보조 모델에도 같은 요청을 보내고 먼저 온 유효 응답 사용
+    private volatile String hedgeModel = null; // null이면 헤징 미사용
+    private static final long DEFAULT_HEDGE_DELAY_MS = 1500;
+    private static final long MIN_HEDGE_DELAY_MS = 200;
+    private static final long MAX_HEDGE_DELAY_MS = 5000;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private final LatencyWindow primaryLatency = new LatencyWindow(128);  // 기본 모델 단독 지연
+    private final LatencyWindow hedgedLatency = new LatencyWindow(128);   // 헤징 적용 후 실제 지연
+    private final AtomicLong hedgeCallCount = new AtomicLong();
+    private final AtomicLong hedgeFiredCount = new AtomicLong();
+    private final AtomicLong hedgeSecondaryWinCount = new AtomicLong();
+
+    // 💡 구역 일괄 해석: 구역이 2개 이상이면 Gemini 1회 호출로 구역별 명령을 받아 각 구역 IP로 병렬 전송
+    private volatile boolean multiZoneEnabled = false;
+
+    // 💡 해석 백엔드 교체 (null이면 내장 Gemini 경로: 스트리밍/구조화/헤징/추측 호출 지원)
+    private volatile MoodInterpreter moodInterpreter = null;
 
     // 🌟 TasmotaIpManager 인스턴스
     private TasmotaIpManager tasmotaIpManager;
+
+    // 💡 기분 문장 → Gemini 응답 캐시 (null이면 캐시 미사용)
+    private volatile MoodResponseCache responseCache;
+    private volatile File responseCacheFile;
+    // 💡 스냅샷 저장 전용 스레드 (저장이 겹치지 않음) + 연속 저장 요청 합치기
+    private static final long SNAPSHOT_DEBOUNCE_MS = 2000;
+    private final ScheduledExecutorService snapshotWriter = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
     // ====================================================================
 
+    // 💡 LLM 호출 단계별 지연/토큰 계측 (client보다 먼저 초기화)
+    private final ControllerMetrics metrics = new ControllerMetrics();
+
     private static final int WAITING_TIME = 20; // 초 단위
     private final OkHttpClient client = new OkHttpClient.Builder()
             .connectTimeout(WAITING_TIME, TimeUnit.SECONDS)
@@ -57,13 +122,62 @@ public class TasmotaController {
             .readTimeout(WAITING_TIME, TimeUnit.SECONDS)
             .callTimeout(WAITING_TIME * 2, TimeUnit.SECONDS)
             .retryOnConnectionFailure(true)
+            .eventListenerFactory(metrics.eventListenerFactory())
             .build();
 
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private final Gson gson = new Gson();
+    // 💡 Gemini 요청 템플릿 캐시 (키: 베이스 URL|모델|메서드|형식|API 키)
+    private final ConcurrentHashMap<String, GeminiRequestTemplate> requestTemplates = new ConcurrentHashMap<>();
+    // 💡 같은 문장(정규화 기준)+모델의 동시 Gemini 호출은 하나로 합침 (연타, 추측+최종, 여러 기기)
+    private final SingleFlight<String> geminiFlights = new SingleFlight<>();
+    private final SingleFlight<StructuredLightReply> structuredFlights = new SingleFlight<>();
     private final ExecutorService executor = Executors.newCachedThreadPool();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
+    // 💡 마감 시간 기반 재시도 (대기는 scheduler에 예약하므로 스레드를 점유하지 않음)
+    private static final long DEFAULT_UTTERANCE_DEADLINE_MS = 2500; // 발화 1건당 Gemini(또는 교체 백엔드) 응답 예산
+    private static final long TASMOTA_DEADLINE_MS = 3000;            // 전구 명령 1건당 전송 예산
+    private static final long STREAM_TAIL_ALLOWANCE_MS = 5000;       // COMMAND 수신 후 설명 스트림에 더 주는 시간
+    private volatile long utteranceDeadlineMs = DEFAULT_UTTERANCE_DEADLINE_MS;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final RetryEngine geminiRetry = new RetryEngine(scheduler, 100, 1000, 3, 300); // 교체 백엔드도 같은 정책
+    // 💡 전구별 마지막 확인 상태: 이미 같은 상태인 전구는 건너뛰고 바뀐 필드만 전송 (30초 지나면 다시 전체 전송)
+    private static final long BULB_STATE_MAX_AGE_MS = 30_000;
+    private final BulbStateTable bulbStates = new BulbStateTable(BULB_STATE_MAX_AGE_MS);
+    private volatile DeliveryCallback deliveryCallback;
+    // 💡 전구별 적응형 타임아웃: 응답 지연 평균 + 4σ (300ms~2500ms, 처음 보는 전구는 1초, 연속 실패 시 2배)
+    //    꺼진 전구는 시도 1번에 전송 예산 전체를 쓰지 않고 짧게 끊은 뒤 재시도, 느린 메시 전구는 넉넉하게
+    private static final long BULB_TIMEOUT_FLOOR_MS = 300;
+    private static final long BULB_TIMEOUT_INITIAL_MS = 1000;
+    private static final long BULB_TIMEOUT_CAP_MS = 2500;
+    private final BulbLatencyTracker bulbLatencies =
+            new BulbLatencyTracker(BULB_TIMEOUT_FLOOR_MS, BULB_TIMEOUT_INITIAL_MS, BULB_TIMEOUT_CAP_MS);
+    // 💡 전구 fan-out 전용 디스패처 (동시 16건, 전구 1대당 2건): 전구 수와 관계없이 스레드 수 고정
+    private final TasmotaFanOut tasmotaFanOut = new TasmotaFanOut(client, scheduler,
+            TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, TasmotaFanOut.DEFAULT_MAX_PER_BULB, TASMOTA_DEADLINE_MS, bulbStates, bulbLatencies);
+
+    // 💡 연결 예열: 말하는 동안 Gemini 호스트와의 연결(DNS+TCP+TLS, HTTP/2)을 연결 풀에 미리 만들어 둠
+    private static final long WARM_UP_INTERVAL_MS = 30_000; // 연결 풀 유휴 유지 시간(5분)보다 충분히 짧게
+    private static final long WARM_UP_TIMEOUT_MS = 5_000;
+    private final AtomicLong lastWarmUpAt = new AtomicLong();
+
+    // 💡 Gemini 서킷 브레이커: 최근 20건 중 절반 이상 실패하면 30초간 Gemini를 건너뛰고 오프라인 판단 사용
+    private final CircuitBreaker geminiBreaker = new CircuitBreaker(20, 5, 0.5, 30_000);
+    // 💡 교체 백엔드(OpenAI 호환 등)용 브레이커 (같은 기준, 백엔드를 바꾸면 새로 시작)
+    private volatile CircuitBreaker backendBreaker = new CircuitBreaker(20, 5, 0.5, 30_000);
+
+    private final MoodInterpreter geminiInterpreter = new MoodInterpreter() {
+        @Override
+        public String name() {
+            return "gemini";
+        }
+
+        @Override
+        public String interpret(String moodText) throws IOException {
+            return generateHedgedResponse(moodText, System.currentTimeMillis() + utteranceDeadlineMs);
+        }
+    };
+
     /** BuildConfig의 API 키 초기화를 위한 생성자 */
     public TasmotaController() {
         this.apiKey = safeString(BuildConfig.SENTILIGHT_LLM_API_KEY);
@@ -80,11 +194,36 @@ public class TasmotaController {
         void onGeminiSuccess(String command, int colorRgb);
     }
 
+    /** 💡 Gemini 서킷 브레이커 상태 변경 알림 (메인스레드로 호출, OPEN이면 오프라인 판단으로 즉시 응답 중) */
+    public interface GeminiHealthCallback {
+        void onGeminiCircuitChanged(CircuitBreaker.State state);
+    }
+
+    /**
+     * 💡 전구별 전송 확인 콜백 (메인스레드로 호출)
+     * 제어 결과(onSuccess)는 전구 응답을 기다리지 않고 먼저 오고, 이 콜백으로 실제 전달 결과가 이어서 도착합니다.
+     * 성공 판정은 Tasmota JSON 응답 기준 (명령 거부/HTTP 오류/시간 초과는 실패)
+     */
+    public interface DeliveryCallback {
+        /** 전구 응답이 도착할 때마다 (짧은 간격으로 몰리면 최신 값으로 합쳐 한 번만 호출) */
+        default void onDeliveryProgress(int done, int total, int delivered) {
+        }
+
+        /** fan-out 1건의 최종 집계 (구역별 전송이면 구역마다 1번) */
+        void onDeliveryComplete(String command, int delivered, int total, String summary);
+    }
+
+    /** 💡 스트리밍 모드에서 설명 텍스트가 도착하는 대로 화면에 전달하는 콜백 (메인스레드로 호출) */
+    public interface ExplanationStreamCallback {
+        void onExplanationPartial(String explanationSoFar);
+    }
+
     // -------------------- 외부 설정자 (Setter/Getter) --------------------
 
+    /** @deprecated 단일 IP 전송 경로는 제거되었습니다. IP는 TasmotaIpManager로 관리합니다. (호출해도 무시) */
+    @Deprecated
     public void setTasmotaIpAddress(String ipAddress) {
-        // 🚨 참고: 이 메서드는 이제 사용하지 않도록 권장됩니다. IP는 Manager를 통해 관리되어야 합니다.
-        this.tasmotaIpAddress = ipAddress;
+        Log.w(TAG, "setTasmotaIpAddress는 더 이상 사용되지 않습니다. TasmotaIpManager에 등록하세요: " + ipAddress);
     }
 
     public void setApiKey(String apiKey) {
@@ -95,12 +234,138 @@ public class TasmotaController {
         if (!isBlank(model)) this.geminiModel = model.trim();
     }
 
+    /**
+     * 헤징용 보조 모델 설정 (null/공백 또는 기본 모델과 같으면 헤징 비활성화)
+     * 🚨 헤징은 블로킹(generateContent) 경로에만 적용되며, 스트리밍/구조화 출력 모드에서는 기본 모델만 사용합니다.
+     */
+    public void setHedgeModel(String model) {
+        this.hedgeModel = isBlank(model) ? null : model.trim();
+    }
+
+    /**
+     * 기분 해석 백엔드 교체 (OpenAI 호환 로컬 서버, 오프라인, 스텁 등). null이면 내장 Gemini 경로 사용.
+     * 캐시/오프라인 분류기 빠른 경로는 백엔드와 관계없이 먼저 적용됩니다.
+     * 백엔드 호출도 Gemini와 같이 발화 예산 안에서만 재시도하고(시도마다 남은 시간을 타임아웃으로), 별도 서킷 브레이커를 거칩니다.
+     */
+    public void setMoodInterpreter(MoodInterpreter interpreter) {
+        MoodInterpreter next = (interpreter == geminiInterpreter) ? null : interpreter;
+        if (next != this.moodInterpreter) backendBreaker = new CircuitBreaker(20, 5, 0.5, 30_000);
+        this.moodInterpreter = next;
+    }
+
+    /** 내장 Gemini 경로를 MoodInterpreter로 노출 (벤치마크에서 다른 백엔드와 나란히 비교할 때 사용) */
+    public MoodInterpreter getGeminiInterpreter() {
+        return geminiInterpreter;
+    }
+
+    /** LLM 호출 단계별 지연(p50/p90/p99)과 토큰 합계 */
+    public ControllerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** 해석 백엔드가 같은 연결 풀을 쓰도록 공유 OkHttpClient 제공 */
+    OkHttpClient getHttpClient() {
+        return client;
+    }
+
+    /** Gemini API 베이스 URL 교체 (예: "http://127.0.0.1:8080/v1/"). null/공백이면 기본값 복원 */
+    public void setGeminiBaseUrl(String baseUrl) {
+        if (isBlank(baseUrl)) {
+            this.geminiBaseUrl = DEFAULT_GEMINI_BASE_URL;
+        } else {
+            String trimmed = baseUrl.trim();
+            this.geminiBaseUrl = trimmed.endsWith("/") ? trimmed : trimmed + "/";
+        }
+    }
+
+    /**
+     * 발화 1건당 Gemini 응답 예산(ms). 재시도는 이 시간 안에서만 수행하며,
+     * 시간 안에 응답을 받지 못하면 오프라인 분류 결과(없으면 기본 조명)로 대체합니다.
+     */
+    public void setUtteranceDeadlineMs(long deadlineMs) {
+        this.utteranceDeadlineMs = Math.max(500, deadlineMs);
+    }
+
+    public void setDeliveryCallback(DeliveryCallback callback) {
+        this.deliveryCallback = callback;
+    }
+
+    public void setGeminiHealthCallback(GeminiHealthCallback callback) {
+        if (callback == null) {
+            geminiBreaker.setStateListener(null);
+            return;
+        }
+        geminiBreaker.setStateListener((from, to) -> {
+            Log.w(TAG, "Gemini 서킷 브레이커: " + from + " → " + to
+                    + String.format(Locale.US, " (오류율 %.0f%%)", geminiBreaker.getFailureRate() * 100.0));
+            mainHandler.post(() -> callback.onGeminiCircuitChanged(to));
+        });
+    }
+
+    public CircuitBreaker.State getGeminiCircuitState() {
+        return geminiBreaker.getState();
+    }
+
+    public void setStreamingEnabled(boolean enabled) {
+        this.streamingEnabled = enabled;
+    }
+
+    public void setStructuredOutputEnabled(boolean enabled) {
+        this.structuredOutputEnabled = enabled;
+    }
+
+    /**
+     * 구역 일괄 해석 사용 여부. 켜져 있고 TasmotaIpManager에 구역이 2개 이상이면
+     * 기분과 구역 목록을 한 프롬프트로 보내 구역별 명령을 받습니다. (스트리밍/구조화 출력 대신 블로킹 호출)
+     * 구역 모드에서는 캐시/오프라인 분류기를 쓰지 않고, 추측 호출도 구역별 응답으로 요청합니다.
+     */
+    public void setMultiZoneEnabled(boolean enabled) {
+        this.multiZoneEnabled = enabled;
+    }
+
+    /** 오프라인 분류기 교체 (null이면 항상 Gemini 호출) */
+    public void setOfflineClassifier(OfflineMoodClassifier classifier) {
+        this.offlineClassifier = classifier;
+    }
+
+    /** 오프라인 분류 결과를 그대로 사용할 최소 신뢰도 (0.0~1.0, 1.0보다 크면 사실상 비활성화) */
+    public void setOfflineConfidenceThreshold(double threshold) {
+        this.offlineConfidenceThreshold = threshold;
+    }
+
+    /** 진행 중인 같은 Gemini 요청에 합류하여 호출을 생략한 횟수 */
+    public long getCoalescedRequestCount() {
+        return geminiFlights.getCoalescedCount() + structuredFlights.getCoalescedCount();
+    }
+
+    /** 오프라인 분류기로 Gemini 호출을 생략한 횟수 */
+    public long getOfflineHitCount() {
+        return offlineHitCount.get();
+    }
+
     // 💡 IP Manager 주입 메서드
     public void setIpManager(TasmotaIpManager ipManager) {
         this.tasmotaIpManager = ipManager;
+        bulbStates.clear(); // 다른 목록의 전구 상태를 재사용하지 않음
         Log.i(TAG, "TasmotaIpManager 주입 완료. 현재 IP 개수: " + (ipManager != null ? ipManager.getIpCount() : "null"));
     }
 
+    /**
+     * 💡 응답 캐시 주입. snapshotFile이 주어지면 백그라운드에서 스냅샷을 로드하고,
+     * 새 응답이 캐시되면 잠시 모았다가(연속 저장은 1번으로) 스냅샷 전용 스레드에서 같은 파일로 저장합니다.
+     */
+    public void setResponseCache(MoodResponseCache cache, File snapshotFile) {
+        this.responseCache = cache;
+        this.responseCacheFile = snapshotFile;
+        if (cache != null && snapshotFile != null) {
+            snapshotWriter.execute(() -> cache.loadSnapshot(snapshotFile)); // 저장과 같은 스레드: 로드 전에 저장이 덮어쓰지 않음
+        }
+    }
+
+    public MoodResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     /** 💡 현재 제어할 IP 목록 반환 (TasmotaIpManager의 목록 사용을 강제) */
     public List<String> getIpList() {
         if (tasmotaIpManager != null && tasmotaIpManager.getIpCount() > 0) {
@@ -114,10 +379,48 @@ public class TasmotaController {
         return new ArrayList<>();
     }
 
+    /** 💡 등록된 모든 전구의 현재 상태를 조회해 delta 전송용 상태 표를 갱신 (앱 복귀 시 등, 응답을 기다리지 않음) */
+    public void refreshBulbStates() {
+        List<String> ips = getIpList();
+        if (ips.isEmpty()) return;
+        tasmotaFanOut.poll(ips).whenComplete((result, error) -> {
+            if (result != null) {
+                Log.d(TAG, "전구 상태 조회 완료: " + result + " / 상태 표 " + bulbStates.size() + "대");
+            }
+        });
+    }
+
+    /** 구역 일괄 해석 대상 구역 → IP 목록 (모드가 꺼져 있거나 구역이 2개 미만이면 null) */
+    private Map<String, List<String>> getBatchZones() {
+        final TasmotaIpManager manager = this.tasmotaIpManager;
+        if (!multiZoneEnabled || manager == null) return null;
+        Map<String, List<String>> zones = manager.getZoneMap();
+        return (zones.size() >= 2) ? zones : null;
+    }
+
     // -------------------- 메인 진입점 --------------------
     /** 💡 [수정] 콜백을 ControllerCallback과 PreControlCallback 두 개를 받도록 수정 */
     public void processMoodAndControlLight(String moodText, ControllerCallback controlCallback, PreControlCallback screenCallback) {
+        processMoodAndControlLight(moodText, controlCallback, screenCallback, null);
+    }
+
+    /**
+     * 💡 스트리밍 모드 지원 버전. streamCallback이 null이 아니고 스트리밍이 켜져 있으면
+     * COMMAND 블록이 닫히는 즉시 화면 갱신/전구 전송을 하고, 설명은 도착하는 대로 streamCallback에 전달합니다.
+     */
+    public void processMoodAndControlLight(String moodText, ControllerCallback controlCallback, PreControlCallback screenCallback,
+                                           ExplanationStreamCallback streamCallback) {
         executor.execute(() -> {
+            final long startedAt = System.currentTimeMillis();
+            final long deadlineAt = startedAt + utteranceDeadlineMs;
+            final MoodResponseCache cache = this.responseCache;
+            // 스트리밍 중 조기 전송된 명령 (스트림 읽기 스레드에서 기록, 스트림 future 완료 후 현재 스레드에서 읽음)
+            final LightCommand[] earlyCommand = new LightCommand[1];
+            // 스트림이 끊겼을 때 쓸, 그때까지 도착한 설명
+            final String[] streamedExplanation = new String[1];
+            boolean streamCut = false;
+            // 브레이커 허가 (결과를 알리지 못하고 예외로 끝나면 finally에서 실패로 반납 → HALF_OPEN 탐침 슬롯이 묶이지 않음)
+            CircuitBreaker.Permit permit = null;
             String fullGeminiResponse = null;
             String tasmotaCommand = null;
             String geminiExplanation = null;
@@ -125,39 +428,154 @@ public class TasmotaController {
 
             try {
                 // 1. IP 목록 확인 (IP가 없어도 Gemini 호출은 시도함)
-                List<String> ipsToControl = getIpList();
-
-                // 2. Gemini 호출
-                fullGeminiResponse = generateGeminiResponse(moodText);
-                if (isBlank(fullGeminiResponse)) {
-                    throw new IOException("Gemini가 빈 응답을 반환했습니다.");
+                final List<String> ipsToControl = getIpList();
+
+                final MoodInterpreter backend = this.moodInterpreter;
+                // 2. 구역 일괄 해석 (내장 Gemini 경로에서만)
+                // 🚨 구역 모드에서는 캐시/오프라인 분류기를 건너뜀 (둘 다 한 가지 명령만 돌려주므로 모든 구역이 같은 색이 됨)
+                final Map<String, List<String>> zones = (backend == null) ? getBatchZones() : null;
+                // 2-1. 캐시 조회 → 없으면 Gemini 호출
+                fullGeminiResponse = (cache != null && zones == null) ? cache.get(moodText) : null;
+                final boolean cacheHit = fullGeminiResponse != null;
+                // 2-2. 오프라인 분류기가 확신하면 Gemini 호출 생략
+                final OfflineMoodClassifier.Result offline = (cacheHit || zones != null) ? null : classifyOffline(moodText);
+                // 2-3. 부분 결과로 미리 시작한 호출이 같은 문장(구역 구성 포함)이면 그 결과를 재사용
+                final String speculated = (offline == null && !cacheHit) ? takeSpeculation(moodText, zones) : null;
+                StructuredLightReply structuredReply = null;
+                String degradedReply = null;
+                final boolean useRemote = offline == null && speculated == null && !cacheHit;
+                if (useRemote) permit = breakerFor(backend).tryAcquire();
+                if (useRemote && permit == null) {
+                    // 🚨 브레이커 OPEN: 타임아웃을 기다리지 않고 즉시 오프라인 판단 (OPEN 동안 모든 발화가 이 경로)
+                    // 빠른 경로(2-2)가 이미 쓸 수 없다고 판정한 문장(애매/부정)은 다시 분류하지 않고 중립 조명
+                    final String note = ((backend == null) ? "Gemini" : backend.name()) + " 연결이 불안정하여 오프라인 판단을 사용했습니다.";
+                    degradedReply = (zones == null)
+                            ? fallbackReply((OfflineMoodClassifier.Result) null, note)
+                            : fallbackReply(moodText, note);
+                } else if (useRemote && backend == null && structuredOutputEnabled && zones == null) {
+                    try {
+                        structuredReply = generateStructuredReply(moodText, deadlineAt);
+                    } catch (IOException e) {
+                        permit.onFailure();
+                        degradedReply = fallbackReply(moodText, e);
+                    }
+                }
+                if (offline != null) {
+                    fullGeminiResponse = offline.toBracketText();
+                } else if (degradedReply != null) {
+                    // 🚨 대체 응답은 캐시하지 않음 (다음 발화에서 다시 Gemini 시도)
+                    fullGeminiResponse = degradedReply;
+                } else if (speculated != null) {
+                    fullGeminiResponse = speculated;
+                    cacheResponse(cache, moodText, fullGeminiResponse);
+                } else if (structuredReply != null) {
+                    permit.onSuccess();
+                    // 타입 객체에서 바로 명령/설명을 얻으므로 괄호 파싱을 거치지 않음 (캐시에는 괄호 형식으로 저장)
+                    fullGeminiResponse = structuredReply.toBracketText();
+                    cacheResponse(cache, moodText, fullGeminiResponse);
+                } else if (!cacheHit) {
+                    try {
+                        if (backend != null) {
+                            fullGeminiResponse = interpretWithBackend(backend, moodText, deadlineAt);
+                        } else if (zones != null) {
+                            fullGeminiResponse = generateZoneResponse(moodText, zones.keySet(), deadlineAt);
+                        } else if (streamingEnabled) {
+                            fullGeminiResponse = streamGeminiResponse(moodText, deadlineAt, new GeminiStreamScanner.Listener() {
+                                @Override
+                                public void onCommandClosed(String textSoFar) {
+                                    // 🌟 설명 생성을 기다리지 않고 바로 화면 갱신 + 전구 전송
+                                    LightCommand cmd = LightCommand.fromResponse(textSoFar);
+                                    earlyCommand[0] = cmd;
+                                    dispatchCommand(cmd, cmd.toRgb(), ipsToControl, screenCallback);
+                                    Log.d(TAG, "스트리밍 COMMAND 조기 전송 (" + (System.currentTimeMillis() - startedAt) + "ms): " + cmd);
+                                }
+
+                                @Override
+                                public void onExplanationUpdate(String explanationSoFar) {
+                                    streamedExplanation[0] = explanationSoFar;
+                                    if (streamCallback != null) {
+                                        mainHandler.post(() -> streamCallback.onExplanationPartial(explanationSoFar));
+                                    }
+                                }
+                            });
+                        } else {
+                            fullGeminiResponse = generateHedgedResponse(moodText, deadlineAt);
+                        }
+                        if (isBlank(fullGeminiResponse)) {
+                            throw new IOException("Gemini가 빈 응답을 반환했습니다.");
+                        }
+                        if (permit != null) permit.onSuccess();
+                        cacheResponse(cache, moodText, fullGeminiResponse);
+                    } catch (IOException e) {
+                        if (permit != null) permit.onFailure();
+                        if (earlyCommand[0] != null) {
+                            // 🌟 전구는 이미 바뀌었으므로 실패로 알리지 않고, 받은 데까지의 설명으로 완료 (캐시하지 않음)
+                            Log.w(TAG, "COMMAND 전송 후 스트림 중단: " + e.getMessage());
+                            streamCut = true;
+                        } else {
+                            fullGeminiResponse = fallbackReply(moodText, e);
+                        }
+                    }
+                } else {
+                    Log.d(TAG, "캐시 적중: '" + moodText + "' → 네트워크 호출 생략");
                 }
 
-                // 3. [COMMAND:], [EXPLANATION:] 파싱
-                tasmotaCommand = extractCommand(fullGeminiResponse);
-                geminiExplanation = extractExplanation(fullGeminiResponse, tasmotaCommand);
+                // 3. [COMMAND:], [EXPLANATION:] 파싱 (구역별 응답이면 [ZONE: 이름 | COMMAND: ...])
+                final Map<String, LightCommand> zoneCommands = (zones != null) ? extractZoneCommands(fullGeminiResponse, zones.keySet()) : null;
+                final LightCommand lightCommand;
+                if (zoneCommands != null) {
+                    lightCommand = zoneCommands.values().iterator().next();
+                    StringBuilder summary = new StringBuilder();
+                    for (Map.Entry<String, LightCommand> e : zoneCommands.entrySet()) {
+                        if (summary.length() > 0) summary.append('\n');
+                        summary.append(e.getKey()).append(": ").append(e.getValue().toCommandString());
+                    }
+                    tasmotaCommand = summary.toString();
+                    geminiExplanation = extractExplanation(fullGeminiResponse, tasmotaCommand);
+                } else if (structuredReply != null) {
+                    lightCommand = structuredReply.toLightCommand();
+                    tasmotaCommand = lightCommand.toCommandString();
+                    geminiExplanation = structuredReply.explanation;
+                } else if (streamCut) {
+                    lightCommand = earlyCommand[0];
+                    tasmotaCommand = lightCommand.toCommandString();
+                    geminiExplanation = isBlank(streamedExplanation[0])
+                            ? "조명은 적용했지만 설명을 끝까지 받지 못했습니다."
+                            : streamedExplanation[0] + " …(설명 수신 중단)";
+                } else {
+                    lightCommand = (earlyCommand[0] != null) ? earlyCommand[0] : LightCommand.fromResponse(fullGeminiResponse);
+                    tasmotaCommand = lightCommand.toCommandString();
+                    geminiExplanation = extractExplanation(fullGeminiResponse, tasmotaCommand);
+                }
                 Log.d(TAG, "Gemini Command: " + tasmotaCommand);
 
-                // 4. HSB 명령에서 정수형 RGB 값 추출
-                finalColorRgb = convertHsbToRgb(tasmotaCommand);
+                // 4. HSB 값에서 정수형 RGB 값 계산 (구역별이면 첫 구역 색상으로 화면 표시)
+                finalColorRgb = lightCommand.toRgb();
 
-                // -------------------------------------------------------------
-                // 🌟 [핵심] Gemini 응답 파싱 직후 화면 업데이트 콜백 즉시 호출
-                // -------------------------------------------------------------
-                final String fCmd = tasmotaCommand;
-                final int fRgb = finalColorRgb;
-                mainHandler.post(() -> screenCallback.onGeminiSuccess(fCmd, fRgb));
+                // 5. 화면 갱신 + 실제 전송 (스트리밍으로 이미 전송했다면 생략)
+                if (zoneCommands != null) {
+                    dispatchZoneCommands(zoneCommands, zones, finalColorRgb, screenCallback);
+                } else if (earlyCommand[0] == null) {
+                    dispatchCommand(lightCommand, finalColorRgb, ipsToControl, screenCallback);
+                }
 
-                // 5. 실제 전송 (Tasmota 제어)
                 String tasmotaResponse;
                 if (ipsToControl.isEmpty()) {
                     tasmotaResponse = "ERROR: 등록된 Tasmota 전구 IP가 없어 제어 요청을 스킵했습니다.";
+                } else if (zoneCommands != null) {
+                    tasmotaResponse = "OK: " + zoneCommands.size() + "개 구역(" + ipsToControl.size() + "대)에 구역별 명령을 비동기 전송했습니다.";
                 } else {
-                    // 🌟 [수정] Fire-and-Forget 방식으로 변경
-                    sendToTasmotaAndForget(tasmotaCommand, ipsToControl);
                     tasmotaResponse = "OK: " + ipsToControl.size() + "대의 전구에 제어 명령을 비동기 전송했습니다."; // 응답을 무시하므로 가상의 성공 메시지 반환
                 }
 
+                metrics.record(ControllerMetrics.Phase.END_TO_END, (System.currentTimeMillis() - startedAt) * 1000);
+                if (cache != null) {
+                    cache.recordEndToEndLatency(cacheHit, System.currentTimeMillis() - startedAt);
+                    Log.d(TAG, cache.getStatsSummary());
+                }
+
+                final String fCmd = tasmotaCommand;
+                final int fRgb = finalColorRgb;
                 final String fExp = geminiExplanation;
                 final String fResp = tasmotaResponse;
 
@@ -172,220 +590,759 @@ public class TasmotaController {
 
                 // 오류 발생 시 최종 제어 콜백만 호출
                 mainHandler.post(() -> controlCallback.onFailure(msg));
+            } finally {
+                if (permit != null && !permit.isReported()) permit.onFailure();
             }
         });
     }
 
-    // -------------------- Gemini 호출부 (변경 없음) --------------------
-    private String generateGeminiResponse(String userInput) throws IOException {
-        final String key = this.apiKey;
-        if (isBlank(key)) {
-            throw new IOException("Gemini API 키가 설정되지 않았습니다. setApiKey(...) 또는 BuildConfig 값을 확인하세요.");
-        }
-
-        final String modelName = this.geminiModel.startsWith("models/")
-                ? this.geminiModel
-                : "models/" + this.geminiModel;
+    /**
+     * 💡 마감 시간 안에 응답을 받지 못했거나 재시도할 수 없는 오류일 때의 대체 응답
+     * 오프라인 분류 결과는 빠른 경로와 같은 기준(부정 표현 없음, 신뢰도 임계값 이상)을 넘을 때만 쓰고,
+     * 아니면 중립 조명으로 설정합니다. ("기분이 안 좋아"가 밝은 조명이 되지 않도록)
+     */
+    private String fallbackReply(String moodText, IOException cause) {
+        Log.w(TAG, "Gemini 응답 실패 → 오프라인 대체: " + cause.getMessage());
+        return fallbackReply(moodText, "네트워크 응답 지연으로 오프라인 판단을 사용했습니다.");
+    }
 
-        final String base = "https://generativelanguage.googleapis.com/v1/" + modelName + ":generateContent";
+    private String fallbackReply(String moodText, String note) {
+        final OfflineMoodClassifier classifier = this.offlineClassifier;
+        return fallbackReply((classifier != null) ? classifier.classify(moodText) : null, note);
+    }
 
-        final String urlWithKey = base + "?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8.toString());
+    /** result가 쓸 만하면 그 분위기, 아니면(null 포함) 중립 조명에 note를 붙인 대체 응답 */
+    private String fallbackReply(OfflineMoodClassifier.Result result, String note) {
+        // 빠른 경로와 같은 기준: 애매하거나 부정된 문장은 추측한 분위기 대신 중립 조명
+        String reply = OfflineMoodInterpreter.replyFor(result, offlineConfidenceThreshold);
+        String command = LightCommand.fromResponse(reply).toCommandString();
+        String explanation = extractExplanation(reply, command);
+        return "[COMMAND: " + command + "] [EXPLANATION: " + explanation + " (" + note + ")]";
+    }
 
-        String prompt =
-                "사용자 기분: '" + userInput + "'. 이를 Tasmota 전구 제어 명령으로 변환하세요. " +
-                        "결과 형식은 [COMMAND: HSBCOLOR hue,saturation,brightness;Dimmer value;CT temperature] " +
-                        "이 세 가지 명령 조합으로만 출력하세요. " +
-                        "[EXPLANATION: 기분 변화에 대한 설명] 으로만 출력하세요. " +
-                        "(hue:0-359, saturation/brightness:0-100, Dimmer:0-100, CT:153-500). " +
-                        "예: [COMMAND: HSBCOLOR 60,100,100;Dimmer 70;CT 250] [EXPLANATION: 밝고 따뜻한 노란색으로 활력을 줍니다.]";
+    /**
+     * 🌟 [핵심] Gemini 응답 파싱 직후 화면 업데이트 콜백을 즉시 호출하고 전구에 Fire-and-Forget 전송합니다.
+     */
+    private void dispatchCommand(LightCommand command, int colorRgb, List<String> ipsToControl, PreControlCallback screenCallback) {
+        final String commandString = command.toCommandString();
+        mainHandler.post(() -> screenCallback.onGeminiSuccess(commandString, colorRgb));
+        if (!ipsToControl.isEmpty()) {
+            sendToTasmotaAndForget(command, ipsToControl);
+        }
+    }
 
-        JsonObject part = new JsonObject();
-        part.addProperty("text", prompt);
+    /** 구역마다 해당 구역 IP로 명령 전송 (구역 간에도 병렬, 화면은 1회 갱신) */
+    private void dispatchZoneCommands(Map<String, LightCommand> zoneCommands, Map<String, List<String>> zones, int colorRgb,
+                                      PreControlCallback screenCallback) {
+        final String firstCommand = zoneCommands.values().iterator().next().toCommandString();
+        mainHandler.post(() -> screenCallback.onGeminiSuccess(firstCommand, colorRgb));
+        for (Map.Entry<String, LightCommand> e : zoneCommands.entrySet()) {
+            List<String> zoneIps = zones.get(e.getKey());
+            if (zoneIps != null && !zoneIps.isEmpty()) {
+                sendToTasmotaAndForget(e.getValue(), zoneIps);
+            }
+        }
+    }
 
-        JsonArray contentsArray = new JsonArray();
-        JsonObject content = new JsonObject();
-        content.addProperty("role", "user");
-        JsonArray partsArray = new JsonArray();
-        partsArray.add(part);
-        content.add("parts", partsArray);
-        contentsArray.add(content);
+    // -------------------- 연결 예열 --------------------
 
-        JsonObject requestBody = new JsonObject();
-        requestBody.add("contents", contentsArray);
+    /**
+     * 💡 Gemini 호스트 연결 예열 (메인스레드에서 호출 가능, 즉시 반환)
+     * 마이크 버튼을 누른 뒤 말하는 1~3초 동안 DNS 조회와 TCP/TLS 핸드셰이크를 끝내 두어
+     * 첫 generateContent가 연결 풀의 HTTP/2 연결을 바로 쓰게 합니다.
+     * 토큰을 쓰지 않는 모델 정보 조회(GET models/{model})를 보내며, 30초 안에 다시 호출하면 무시합니다.
+     */
+    public void warmUpGeminiConnection() {
+        final String key = this.apiKey;
+        if (moodInterpreter != null || isBlank(key) || !geminiBreaker.isClosed()) return;
 
-        RequestBody body = RequestBody.create(gson.toJson(requestBody), JSON);
+        final long now = System.currentTimeMillis();
+        final long last = lastWarmUpAt.get();
+        if (now - last < WARM_UP_INTERVAL_MS || !lastWarmUpAt.compareAndSet(last, now)) return;
 
+        final String model = this.geminiModel;
+        HttpUrl base = HttpUrl.parse(geminiBaseUrl + (model.startsWith("models/") ? model : "models/" + model));
+        if (base == null) return;
         Request request = new Request.Builder()
-                .url(urlWithKey)
-                .post(body)
+                .url(base.newBuilder().addQueryParameter("key", key).build())
+                .get()
                 .build();
 
-        IOException last = null;
-        for (int attempt = 1; attempt <= 2; attempt++) {
-            try (Response response = client.newCall(request).execute()) {
-                String responseString = (response.body() != null) ? response.body().string() : "";
-                if (!response.isSuccessful()) {
-                    throw new IOException("Gemini API 오류: HTTP " + response.code() + " / " + responseString);
-                }
+        Call call = newTimedCall(request, WARM_UP_TIMEOUT_MS);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call c, Response response) {
+                response.close(); // 응답 코드와 관계없이 연결은 풀에 남음
+                Log.d(TAG, "Gemini 연결 예열 완료 (" + (System.currentTimeMillis() - now) + "ms, " + response.protocol() + ")");
+            }
 
-                JsonObject jsonResponse = gson.fromJson(responseString, JsonObject.class);
-                if (jsonResponse == null || !jsonResponse.has("candidates") || jsonResponse.getAsJsonArray("candidates").size() == 0) {
-                    throw new IOException("Gemini 응답이 비어 있거나 후보가 없습니다.");
-                }
+            @Override
+            public void onFailure(Call c, IOException e) {
+                lastWarmUpAt.compareAndSet(now, 0); // 다음 마이크 버튼에서 다시 시도
+                Log.w(TAG, "Gemini 연결 예열 실패: " + e.getMessage());
+            }
+        });
+    }
 
-                JsonObject contentObj = jsonResponse.getAsJsonArray("candidates").get(0).getAsJsonObject().getAsJsonObject("content");
-                if (contentObj == null || !contentObj.has("parts")) {
-                    throw new IOException("Gemini 응답 파싱 실패(content/parts 없음).");
-                }
+    // -------------------- 추측 실행 (음성 인식 부분 결과) --------------------
 
-                String generatedText = contentObj.getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
-                if (isBlank(generatedText)) {
-                    throw new IOException("Gemini가 텍스트를 생성하지 못했습니다.");
-                }
-                return generatedText.trim();
+    /** 부분 결과로 시작한 Gemini 호출 1건 */
+    private static final class Speculation {
+        final String key;
+        final GeminiRequestHandle handle = new GeminiRequestHandle();
+        Future<String> future;
 
-            } catch (IOException e) {
-                last = e;
-                try {
-                    Thread.sleep(300L);
-                } catch (InterruptedException ignored) {
-                }
+        Speculation(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 💡 안정화된 음성 인식 부분 결과로 Gemini 호출을 미리 시작합니다. (메인스레드에서 호출 가능)
+     * - 같은 문장(정규화 기준)으로 이미 진행 중이면 무시
+     * - 다른 문장이면 기존 호출을 취소하고 새로 시작
+     * - 캐시/오프라인 분류기로 해결되는 문장은 네트워크 호출을 하지 않음
+     * - 구역 모드면 구역별 응답을 미리 요청 (구역 구성이 바뀌면 다른 문장으로 취급)
+     */
+    public void speculate(String partialText) {
+        final MoodInterpreter backend = this.moodInterpreter;
+        final Map<String, List<String>> zones = (backend == null) ? getBatchZones() : null;
+        if (MoodResponseCache.normalize(partialText).isEmpty()) return;
+        final String key = speculationKey(partialText, zones);
+
+        if (zones == null) {
+            final MoodResponseCache cache = this.responseCache;
+            if (cache != null && cache.contains(partialText)) return;
+            final OfflineMoodClassifier classifier = this.offlineClassifier;
+            if (classifier != null) {
+                OfflineMoodClassifier.Result r = classifier.classify(partialText);
+                if (r != null && r.isUsable(offlineConfidenceThreshold)) return;
+            }
+        }
+        // 브레이커가 닫혀 있지 않으면 HALF_OPEN 탐침은 최종 발화에 양보
+        if (!breakerFor(backend).isClosed()) return;
+
+        synchronized (speculationLock) {
+            if (speculation != null && speculation.key.equals(key)) return;
+            cancelSpeculationLocked();
+            final Speculation spec = new Speculation(key);
+            final String model = this.geminiModel;
+            if (backend != null) {
+                spec.future = executor.submit(() -> interpretWithBackend(backend, partialText, System.currentTimeMillis() + utteranceDeadlineMs));
+            } else if (zones != null) {
+                spec.future = executor.submit(() -> generateZoneResponse(partialText, zones.keySet(),
+                        System.currentTimeMillis() + utteranceDeadlineMs));
+            } else {
+                spec.future = executor.submit(() -> generateGeminiResponse(model, partialText, spec.handle,
+                        System.currentTimeMillis() + utteranceDeadlineMs));
             }
+            speculation = spec;
+            Log.d(TAG, "추측 호출 시작: '" + partialText + "'");
         }
-        throw last != null ? last : new IOException("Gemini 호출 실패(원인 불명)");
     }
 
-    // -------------------- HSB <-> RGB 변환 유틸리티 (변경 없음) --------------------
-    /** HSB 값을 Android RGB 정수값으로 변환합니다. */
-    private int convertHsbToRgb(String hsbCommand) {
-        try {
-            Pattern pattern = Pattern.compile("HSBCOLOR\\s*(\\d+),(\\d+),(\\d+)", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(hsbCommand);
+    /** 진행 중인 추측 호출을 취소합니다. (음성 인식 중단/오류 시) */
+    public void cancelSpeculation() {
+        synchronized (speculationLock) {
+            cancelSpeculationLocked();
+        }
+    }
 
-            if (matcher.find()) {
-                float h = Float.parseFloat(matcher.group(1)); // Hue (0-359)
-                float s = Float.parseFloat(matcher.group(2)) / 100f; // Saturation (0.0 - 1.0)
-                float v = Float.parseFloat(matcher.group(3)) / 100f; // Value/Brightness (0.0 - 1.0)
+    private void cancelSpeculationLocked() {
+        if (speculation == null) return;
+        speculation.handle.cancel();
+        speculation.future.cancel(true);
+        speculation = null;
+        speculationWastedCount.incrementAndGet();
+    }
 
-                return Color.HSVToColor(new float[]{h, s, v});
+    /**
+     * 최종 문장과 일치하는 추측 호출이 있으면 완료를 기다려 결과를 반환합니다.
+     * 일치하지 않으면 취소하고, 추측 호출이 실패했으면 null (호출자가 정상 경로로 재호출)
+     */
+    private String takeSpeculation(String finalText, Map<String, List<String>> zones) {
+        final Speculation spec;
+        synchronized (speculationLock) {
+            if (speculation == null) return null;
+            if (!speculation.key.equals(speculationKey(finalText, zones))) {
+                Log.d(TAG, "추측 호출 불일치 → 취소: '" + speculation.key + "'");
+                cancelSpeculationLocked();
+                return null;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "HSB to RGB conversion failed in command: " + hsbCommand, e);
+            spec = speculation;
+            speculation = null;
+        }
+        try {
+            String result = spec.future.get();
+            speculationWinCount.incrementAndGet();
+            Log.d(TAG, "추측 호출 재사용 (win=" + speculationWinCount.get() + ", wasted=" + speculationWastedCount.get() + ")");
+            return isBlank(result) ? null : result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "추측 호출 실패, 다시 호출합니다: " + e.getCause());
         }
-        // 변환 실패 시 기본값 (약간 어두운 파란색, #181B1C)
-        return Color.parseColor("#181B1C");
+        speculationWastedCount.incrementAndGet();
+        return null;
     }
 
+    /** 추측 호출 비교 키: 정규화한 문장 (구역 모드면 구역 이름 목록을 앞에 붙임 → 단일 응답과 섞이지 않음) */
+    private static String speculationKey(String text, Map<String, List<String>> zones) {
+        String key = MoodResponseCache.normalize(text);
+        return (zones == null) ? key : "zones:" + zones.keySet() + "|" + key;
+    }
 
-    // -------------------- 파싱기 (변경 없음) --------------------
-    /** [COMMAND: ...] 블록에서 명령 추출 (허용 문자만 유지) */
-    private String extractCommand(String fullResponse) {
-        Pattern pattern = Pattern.compile("\\[COMMAND:\\s*(.*?)\\]", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(fullResponse);
-        if (matcher.find() && matcher.group(1) != null) {
-            String raw = matcher.group(1).trim();
-            String cleaned = raw.replaceAll("\\s+", " ");
-            cleaned = cleaned.replaceAll("[^A-Za-z0-9,;\\s]", "");
-            if (!cleaned.toUpperCase().contains("HSBCOLOR")) {
-                return "HSBCOLOR 60,100,100;Dimmer 70;CT 250";
-            }
-            return cleaned;
+    /** 추측 호출 결과를 그대로 재사용한 횟수 */
+    public long getSpeculationWinCount() {
+        return speculationWinCount.get();
+    }
+
+    /** 취소/불일치/실패로 버려진 추측 호출 횟수 */
+    public long getSpeculationWastedCount() {
+        return speculationWastedCount.get();
+    }
+
+    /** 신뢰도가 임계값 이상인 오프라인 분류 결과만 반환 (애매하면 null → Gemini 호출) */
+    private OfflineMoodClassifier.Result classifyOffline(String moodText) {
+        final OfflineMoodClassifier classifier = this.offlineClassifier;
+        if (classifier == null) return null;
+
+        long t0 = System.nanoTime();
+        OfflineMoodClassifier.Result result = classifier.classify(moodText);
+        long micros = (System.nanoTime() - t0) / 1000;
+        if (result == null || !result.isUsable(offlineConfidenceThreshold)) {
+            Log.d(TAG, "오프라인 분류 보류 (" + micros + "us): " + (result != null ? result.mood + " " + result.confidence : "단서 없음"));
+            return null;
         }
-        return "HSBCOLOR 0,0,0;Dimmer 0;CT 500";
+        offlineHitCount.incrementAndGet();
+        Log.d(TAG, "오프라인 분류 사용 (" + micros + "us): " + result.mood + " conf=" + result.confidence);
+        return result;
     }
 
-    /** [EXPLANATION: ...] 블록에서 설명 추출 */
-    private String extractExplanation(String fullResponse, String command) {
-        Pattern pattern = Pattern.compile("\\[EXPLANATION:\\s*(.*?)\\]", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(fullResponse);
-        if (matcher.find() && matcher.group(1) != null) {
-            return matcher.group(1).trim();
+    /** [COMMAND: ...] 블록이 정상적으로 들어있는 응답만 캐시에 저장하고 스냅샷을 갱신합니다. */
+    private void cacheResponse(MoodResponseCache cache, String moodText, String fullResponse) {
+        if (cache == null || !fullResponse.toUpperCase().contains("[COMMAND:")) return;
+        cache.put(moodText, fullResponse);
+
+        final File snapshotFile = this.responseCacheFile;
+        if (snapshotFile != null && snapshotPending.compareAndSet(false, true)) {
+            // 요청 경로에서 바로 쓰지 않고 전용 스레드에 예약: 그 사이 들어온 저장 요청은 한 번의 저장으로 합침
+            snapshotWriter.schedule(() -> {
+                snapshotPending.set(false);
+                try {
+                    cache.saveSnapshot(snapshotFile);
+                } catch (IOException e) {
+                    Log.w(TAG, "응답 캐시 스냅샷 저장 실패: " + e.getMessage());
+                }
+            }, SNAPSHOT_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
         }
-        return command + " 명령을 생성했습니다. (설명 없음)";
     }
 
-    // -------------------- Tasmota 전송부 (수정) --------------------
+    // -------------------- 교체 백엔드 호출부 --------------------
+
+    /** 백엔드별 서킷 브레이커 (null이면 내장 Gemini 경로) */
+    private CircuitBreaker breakerFor(MoodInterpreter backend) {
+        return (backend == null) ? geminiBreaker : backendBreaker;
+    }
+
+    /**
+     * 교체 백엔드 호출 (Gemini 경로와 같은 실패 처리)
+     * deadlineAtMs 안에서 geminiRetry로 재시도하며, 각 시도에는 남은 예산을 타임아웃으로 넘깁니다.
+     * 백엔드의 interpret는 블로킹이므로 시도마다 executor 스레드에서 실행합니다.
+     */
+    private String interpretWithBackend(MoodInterpreter backend, String moodText, long deadlineAtMs) throws IOException {
+        return RetryEngine.await(geminiRetry.execute((attemptNo, remainingMs) ->
+                CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return backend.interpret(moodText, remainingMs);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor), deadlineAtMs));
+    }
+
+    // -------------------- Gemini 호출부 --------------------
+    /**
+     * handle이 주어지면 대기 중인 호출을 다른 스레드에서 취소할 수 있게 합니다.
+     * 재시도는 deadlineAtMs 안에서만 하며, 각 시도의 callTimeout은 남은 예산으로 줄어듭니다.
+     * 같은 문장+모델로 진행 중인 호출이 있으면 새로 보내지 않고 합류합니다. (마감 시간은 먼저 시작한 호출 기준)
+     */
+    private String generateGeminiResponse(String model, String userInput, GeminiRequestHandle handle, long deadlineAtMs) throws IOException {
+        final Request request = buildGeminiRequest(model, userInput, "generateContent", false);
+        return generateGeminiResponse(request, flightKey(model, userInput), handle, deadlineAtMs);
+    }
+
+    /** 구역 일괄 해석: 구역 목록을 담은 프롬프트로 1회 호출하여 [ZONE: 이름 | COMMAND: ...] 목록을 받음 */
+    private String generateZoneResponse(String userInput, Collection<String> zoneNames, long deadlineAtMs) throws IOException {
+        final String model = this.geminiModel;
+        final Request request = buildGeminiRequest(model, userInput, "generateContent", false, zoneNames);
+        return generateGeminiResponse(request, "zones:" + zoneNames + "|" + flightKey(model, userInput), null, deadlineAtMs);
+    }
+
+    private String generateGeminiResponse(Request request, String flightKey, GeminiRequestHandle handle, long deadlineAtMs) throws IOException {
+        CompletableFuture<String> pending = geminiFlights.join(flightKey, flightHandle ->
+                geminiRetry.execute((attemptNo, remainingMs) -> {
+                    Call call = newTimedCall(request, remainingMs);
+                    flightHandle.bind(call);
+                    return RetryEngine.enqueue(call, response -> {
+                        if (!response.isSuccessful()) {
+                            String err = (response.body() != null) ? response.body().string() : "";
+                            throw new RetryEngine.HttpStatusException(response.code(), "Gemini API 오류: HTTP " + response.code() + " / " + err);
+                        }
+
+                        String generatedText = readGeneratedText(response);
+                        if (isBlank(generatedText)) {
+                            throw new IOException("Gemini가 텍스트를 생성하지 못했습니다.");
+                        }
+                        return generatedText.trim();
+                    });
+                }, deadlineAtMs));
+        if (handle != null) handle.bind(pending);
+        return RetryEngine.await(pending);
+    }
+
+    /** single-flight 키: 모델 + 정규화된 문장 */
+    private static String flightKey(String model, String userInput) {
+        return model + "|" + MoodResponseCache.normalize(userInput);
+    }
+
+    /** 남은 예산을 callTimeout으로 지정한 Call (연결/읽기 타임아웃보다 먼저 끊김) */
+    private Call newTimedCall(Request request, long timeoutMs) {
+        Call call = client.newCall(request);
+        call.timeout().timeout(Math.max(1, timeoutMs), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    // -------------------- 헤징 (기본/보조 모델 동시 요청) --------------------
+
+    /** 헤징 후보 하나의 완료 결과 */
+    private static final class HedgeOutcome {
+        final int index; // 0 = 기본 모델, 1 = 보조 모델
+        final String text;
+        final Exception error;
+
+        HedgeOutcome(int index, String text, Exception error) {
+            this.index = index;
+            this.text = text;
+            this.error = error;
+        }
 
-    /** 인코딩된 cmnd를 단일 IP로 GET 호출 (하위 호환성을 위해 유지되나 사용하지 않음) */
-    private String sendToTasmotaRaw(String encodedCmnd, boolean throwOnNon200) throws IOException {
-        // 🔴 위험 요소 수정 1: 단일 IP가 설정되어 있지 않으면 강제 실패
-        if (isBlank(this.tasmotaIpAddress)) {
-            throw new IOException("Tasmota 단일 IP 주소가 설정되지 않았습니다. TasmotaIpManager를 사용하세요.");
+        boolean isValid() {
+            return error == null && text != null && text.toUpperCase().contains("[COMMAND:");
         }
-        String url = "http://" + this.tasmotaIpAddress + "/cm?cmnd=" + encodedCmnd;
-        return executeTasmotaRequest(url, throwOnNon200);
     }
 
     /**
-     * 💡 [새로 추가된 메서드] 다중 IP에 Tasmota 명령을 전송하고 응답을 기다리지 않습니다.
+     * 💡 헤징 Gemini 호출
+     * - 기본 모델 요청 후 hedgeDelay(최근 기본 모델 지연의 p90) 안에 유효 응답이 없으면 보조 모델로 같은 요청 발사
+     * - 기본 모델이 그 전에 실패해도 즉시 보조 모델 발사
+     * - 먼저 도착한 유효 [COMMAND:] 응답을 사용하고, 진 쪽 OkHttp Call은 취소
      */
-    private void sendToTasmotaAndForget(String rawCmnd, List<String> ipAddresses) {
-        final String encodedCmnd = encodeCmndForUrl(rawCmnd);
+    private String generateHedgedResponse(String userInput, long deadlineAtMs) throws IOException {
+        final String primary = this.geminiModel;
+        final String secondary = this.hedgeModel;
+        final long startedAt = System.currentTimeMillis();
+        hedgeCallCount.incrementAndGet();
+
+        if (secondary == null || secondary.equals(primary)) {
+            String text = generateGeminiResponse(primary, userInput, null, deadlineAtMs);
+            long elapsed = System.currentTimeMillis() - startedAt;
+            primaryLatency.record(elapsed);
+            hedgedLatency.record(elapsed);
+            return text;
+        }
 
-        Log.i(TAG, "sendToTasmotaAndForget: 총 " + ipAddresses.size() + "개의 IP에 명령 비동기 전송.");
+        final GeminiRequestHandle[] handles = {new GeminiRequestHandle(), new GeminiRequestHandle()};
+        final LinkedBlockingQueue<HedgeOutcome> outcomes = new LinkedBlockingQueue<>();
+        startHedgeCandidate(0, primary, userInput, handles[0], outcomes, startedAt, deadlineAtMs);
 
-        for (String ip : ipAddresses) {
-            // 각 IP별로 비동기 실행 (Fire-and-Forget)
-            executor.execute(() -> {
-                String url = "http://" + ip + "/cm?cmnd=" + encodedCmnd;
-                try {
-                    // 응답을 기다리지 않으므로, throwOnNon200은 false로 설정하고, 응답 코드를 무시합니다.
-                    String response = executeTasmotaRequest(url, false);
-                    Log.d(TAG, "IP " + ip + " 전송 완료 (응답 길이: " + response.length() + ")");
-                } catch (IOException e) {
-                    // 전송 실패는 로깅만 하고 앱의 메인 스레드에 영향을 주지 않습니다.
-                    Log.e(TAG, "IP " + ip + " 제어 실패 (네트워크/연결 오류): " + e.getMessage());
+        int outstanding = 1;
+        boolean hedged = false;
+        Exception lastError = null;
+        try {
+            HedgeOutcome first = outcomes.poll(currentHedgeDelayMs(), TimeUnit.MILLISECONDS);
+            if (first != null) {
+                outstanding--;
+                if (first.isValid()) {
+                    hedgedLatency.record(System.currentTimeMillis() - startedAt);
+                    return first.text.trim();
                 }
-            });
+                lastError = first.error;
+            }
+
+            // 기본 모델이 늦거나 실패 → 보조 모델 발사
+            hedged = true;
+            hedgeFiredCount.incrementAndGet();
+            Log.d(TAG, "헤징 발사: " + secondary + " (" + (System.currentTimeMillis() - startedAt) + "ms 경과)");
+            startHedgeCandidate(1, secondary, userInput, handles[1], outcomes, startedAt, deadlineAtMs);
+            outstanding++;
+
+            while (outstanding > 0) {
+                HedgeOutcome outcome = outcomes.take();
+                outstanding--;
+                if (outcome.isValid()) {
+                    handles[1 - outcome.index].cancel();
+                    if (outcome.index == 1) hedgeSecondaryWinCount.incrementAndGet();
+                    hedgedLatency.record(System.currentTimeMillis() - startedAt);
+                    return outcome.text.trim();
+                }
+                if (outcome.error != null) lastError = outcome.error;
+            }
+        } catch (InterruptedException e) {
+            handles[0].cancel();
+            handles[1].cancel();
+            Thread.currentThread().interrupt();
+            throw new IOException("Gemini 헤징 호출이 중단되었습니다.", e);
+        } finally {
+            if (hedged) Log.d(TAG, getHedgeStatsSummary());
         }
+
+        if (lastError instanceof IOException) throw (IOException) lastError;
+        throw new IOException("Gemini 헤징 호출 실패: 유효한 [COMMAND:] 응답이 없습니다.", lastError);
+    }
+
+    private void startHedgeCandidate(int index, String model, String userInput, GeminiRequestHandle handle,
+                                     LinkedBlockingQueue<HedgeOutcome> outcomes, long startedAt, long deadlineAtMs) {
+        executor.execute(() -> {
+            try {
+                String text = generateGeminiResponse(model, userInput, handle, deadlineAtMs);
+                if (index == 0) primaryLatency.record(System.currentTimeMillis() - startedAt);
+                outcomes.add(new HedgeOutcome(index, text, null));
+            } catch (Exception e) {
+                outcomes.add(new HedgeOutcome(index, null, e));
+            }
+        });
     }
 
-    /** [제거됨] 기존의 sendToTasmotaRawMulti 메서드는 응답 대기 로직 때문에 제거되었습니다. */
-    /*
-    private String sendToTasmotaRawMulti(String rawCmnd, List<String> ipAddresses) throws ExecutionException, InterruptedException {
-        // ... 기존 응답 대기 로직 ...
+    /** 기본 모델 최근 지연의 p90 (표본이 부족하면 기본값) */
+    private long currentHedgeDelayMs() {
+        if (primaryLatency.size() < MIN_HEDGE_SAMPLES) return DEFAULT_HEDGE_DELAY_MS;
+        long p90 = primaryLatency.percentile(0.90);
+        return Math.max(MIN_HEDGE_DELAY_MS, Math.min(MAX_HEDGE_DELAY_MS, p90));
     }
-    */
 
-    /** HTTP 요청 실행을 위한 내부 공통 메서드 (변경 없음) */
-    private String executeTasmotaRequest(String url, boolean throwOnNon200) throws IOException {
-        Request req = new Request.Builder().url(url).get().build();
+    /** 보조 모델을 발사한 비율 (0.0~1.0) */
+    public double getHedgeRate() {
+        long calls = hedgeCallCount.get();
+        return calls == 0 ? 0.0 : (double) hedgeFiredCount.get() / calls;
+    }
 
-        IOException last = null;
-        for (int attempt = 1; attempt <= 2; attempt++) {
-            try (Response resp = client.newCall(req).execute()) {
-                String body = (resp.body() != null) ? resp.body().string() : "";
-                if (!resp.isSuccessful() && throwOnNon200) {
-                    throw new IOException("Tasmota 전송 실패: HTTP " + resp.code() + " / URL: " + url + " / " + body);
-                }
-                return body;
-            } catch (IOException e) {
-                last = e;
+    /** 헤징 통계: 발사 비율, 보조 모델 승리 수, 기본 모델 단독 p99 대비 헤징 적용 p99 */
+    public String getHedgeStatsSummary() {
+        long primaryP99 = primaryLatency.percentile(0.99);
+        long hedgedP99 = hedgedLatency.percentile(0.99);
+        return String.format(Locale.US, "hedge rate=%.1f%% (%d/%d) secondaryWins=%d delay=%dms p99(primary)=%dms p99(hedged)=%dms improvement=%dms",
+                getHedgeRate() * 100.0, hedgeFiredCount.get(), hedgeCallCount.get(), hedgeSecondaryWinCount.get(),
+                currentHedgeDelayMs(), primaryP99, hedgedP99,
+                (primaryP99 >= 0 && hedgedP99 >= 0) ? primaryP99 - hedgedP99 : 0);
+    }
+
+    /**
+     * 💡 구조화 출력 Gemini 호출. 모델이 스키마를 지원하지 않거나(HTTP 400) 응답이 스키마와 맞지 않으면
+     * null을 반환하여 호출자가 괄호 형식 경로로 대체하도록 합니다.
+     */
+    private StructuredLightReply generateStructuredReply(String userInput, long deadlineAtMs) throws IOException {
+        final String model = this.geminiModel;
+        if (schemaUnsupportedModels.contains(model)) return null;
+
+        final Request request = buildGeminiRequest(model, userInput, "generateContent", true);
+
+        return RetryEngine.await(structuredFlights.join(flightKey(model, userInput), flightHandle ->
+                geminiRetry.execute((attemptNo, remainingMs) -> {
+                    Call call = newTimedCall(request, remainingMs);
+                    flightHandle.bind(call);
+                    return RetryEngine.enqueue(call, response -> {
+                        if (!response.isSuccessful()) {
+                            String err = (response.body() != null) ? response.body().string() : "";
+                            if (response.code() == 400) {
+                                Log.w(TAG, "모델 " + model + "이(가) responseSchema를 지원하지 않아 괄호 형식으로 전환: " + err);
+                                schemaUnsupportedModels.add(model);
+                                return null;
+                            }
+                            throw new RetryEngine.HttpStatusException(response.code(), "Gemini API 오류: HTTP " + response.code() + " / " + err);
+                        }
+
+                        String generatedText = readGeneratedText(response);
+                        try {
+                            return StructuredLightReply.parse(new StringReader(generatedText));
+                        } catch (IOException e) {
+                            // 스키마를 벗어난 응답은 재시도하지 않고 괄호 형식으로 대체
+                            Log.w(TAG, "구조화 응답 파싱 실패, 괄호 형식으로 대체: " + e.getMessage());
+                            return null;
+                        }
+                    });
+                }, deadlineAtMs)));
+    }
+
+    /**
+     * 💡 Gemini 요청 생성 (generateContent / streamGenerateContent 공용)
+     * - method: "generateContent" 또는 "streamGenerateContent?alt=sse" 처럼 쿼리를 포함할 수 있음
+     * - structured: true면 괄호 형식 대신 responseSchema(JSON) 출력을 요청
+     * URL/본문 고정부는 (베이스 URL, 모델, 키, 메서드, 형식)별 템플릿으로 1회만 직렬화하고 사용자 문장만 끼워 넣습니다.
+     */
+    private Request buildGeminiRequest(String model, String userInput, String method, boolean structured) throws IOException {
+        return buildGeminiRequest(model, userInput, method, structured, null);
+    }
+
+    /** zoneNames가 주어지면 구역 일괄 해석 프롬프트 사용 (구역 구성별로 템플릿 캐시) */
+    private Request buildGeminiRequest(String model, String userInput, String method, boolean structured,
+                                       Collection<String> zoneNames) throws IOException {
+        final String key = this.apiKey;
+        if (isBlank(key)) {
+            throw new IOException("Gemini API 키가 설정되지 않았습니다. setApiKey(...) 또는 BuildConfig 값을 확인하세요.");
+        }
+
+        final String baseUrl = this.geminiBaseUrl;
+        final String zoneList = (zoneNames != null) ? String.join(", ", zoneNames) : null;
+        final String templateKey = baseUrl + '|' + model + '|' + method + '|' + structured + '|' + zoneList + '|' + key;
+        GeminiRequestTemplate template = requestTemplates.get(templateKey);
+        if (template == null) {
+            template = createRequestTemplate(baseUrl, model, key, method, structured, zoneList);
+            requestTemplates.put(templateKey, template);
+        }
+
+        return new Request.Builder()
+                .url(template.url)
+                .post(template.body(userInput))
+                .build();
+    }
+
+    private GeminiRequestTemplate createRequestTemplate(String baseUrl, String model, String key, String method,
+                                                        boolean structured, String zoneList) throws IOException {
+        final String modelName = model.startsWith("models/")
+                ? model
+                : "models/" + model;
+
+        final String base = baseUrl + modelName + ":" + method;
+
+        final String urlWithKey = base + (base.contains("?") ? "&" : "?") + "key=" + URLEncoder.encode(key, StandardCharsets.UTF_8.toString());
+        HttpUrl url = HttpUrl.parse(urlWithKey);
+        if (url == null) {
+            throw new IOException("잘못된 Gemini URL: " + base);
+        }
+
+        String generationConfigJson = null;
+        if (structured) {
+            JsonObject generationConfig = new JsonObject();
+            generationConfig.addProperty("responseMimeType", "application/json");
+            generationConfig.add("responseSchema", StructuredLightReply.buildResponseSchema());
+            generationConfigJson = gson.toJson(generationConfig);
+        }
+
+        final String suffix;
+        if (structured) {
+            suffix = MoodPrompts.STRUCTURED_SUFFIX;
+        } else if (zoneList != null) {
+            suffix = MoodPrompts.zoneSuffix(zoneList);
+        } else {
+            suffix = MoodPrompts.BRACKET_SUFFIX;
+        }
+        return new GeminiRequestTemplate(url, MoodPrompts.PREFIX, suffix, generationConfigJson);
+    }
+
+    /** 응답 본문에서 candidates[0].content.parts[0].text 추출 (usageMetadata는 누적 집계) */
+    private String readGeneratedText(Response response) throws IOException {
+        if (response.body() == null) {
+            throw new IOException("Gemini 응답이 비어 있거나 후보가 없습니다.");
+        }
+        // 💡 본문 String/JsonObject 없이 소스에서 바로 필요한 필드만 읽음
+        long t0 = System.nanoTime();
+        GeminiResponseReader.Result result = GeminiResponseReader.read(response.body().charStream());
+        metrics.record(ControllerMetrics.Phase.PARSE, (System.nanoTime() - t0) / 1000);
+        recordTokenUsage(result);
+        return result.requireText();
+    }
+
+    private void recordTokenUsage(GeminiResponseReader.Result result) {
+        metrics.recordTokens(result.promptTokens, result.candidatesTokens, result.totalTokens);
+    }
+
+    /** 누적 토큰 사용량 (usageMetadata 기준) */
+    public String getTokenUsageSummary() {
+        return metrics.getTokenSummary();
+    }
+
+    /**
+     * 💡 스트리밍 Gemini 호출 (:streamGenerateContent?alt=sse)
+     * SSE의 각 "data: {...}" 조각에서 텍스트를 꺼내 scanner에 순서대로 전달하고, 스트림이 끝나면 전체 텍스트를 반환합니다.
+     * - 마감 시간은 COMMAND 블록까지만 적용 (그 전에 닫히지 않으면 Call 취소 후 재시도/실패)
+     * - COMMAND 블록이 이미 전달된 뒤 스트림이 끊기면 재시도하지 않고 그때까지의 텍스트를 반환합니다.
+     */
+    private String streamGeminiResponse(String userInput, long deadlineAtMs, GeminiStreamScanner.Listener listener) throws IOException {
+        final Request request = buildGeminiRequest(this.geminiModel, userInput, "streamGenerateContent?alt=sse", false);
+
+        return RetryEngine.await(geminiRetry.execute((attemptNo, remainingMs) -> {
+            final Call call = newTimedCall(request, remainingMs + STREAM_TAIL_ALLOWANCE_MS);
+            final GeminiStreamScanner scanner = new GeminiStreamScanner(listener);
+            final ScheduledFuture<?> watchdog = scheduler.schedule(() -> {
+                if (!scanner.isCommandClosed()) call.cancel();
+            }, remainingMs, TimeUnit.MILLISECONDS);
+
+            // 스트림 읽기는 블로킹이므로 작업 스레드에서 수행
+            final CompletableFuture<String> result = new CompletableFuture<>();
+            executor.execute(() -> {
                 try {
-                    Thread.sleep(200L);
-                } catch (InterruptedException ignored) {
+                    result.complete(readGeminiStream(call, scanner));
+                } catch (IOException | RuntimeException e) {
+                    if (scanner.isCommandClosed()) {
+                        // 전구 명령은 이미 전송되었으므로 설명이 잘려도 그대로 마무리
+                        Log.w(TAG, "COMMAND 수신 후 스트림 중단: " + e.getMessage());
+                        result.complete(scanner.getText().trim());
+                    } else {
+                        result.completeExceptionally((e instanceof IOException) ? e
+                                : new IOException("Gemini 스트림 파싱 실패: " + e.getMessage(), e));
+                    }
+                } finally {
+                    watchdog.cancel(false);
                 }
+            });
+            return result;
+        }, deadlineAtMs));
+    }
+
+    private String readGeminiStream(Call call, GeminiStreamScanner scanner) throws IOException {
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful()) {
+                String err = (response.body() != null) ? response.body().string() : "";
+                throw new RetryEngine.HttpStatusException(response.code(), "Gemini API 오류: HTTP " + response.code() + " / " + err);
+            }
+            if (response.body() == null) {
+                throw new IOException("Gemini 스트림 응답 본문이 없습니다.");
+            }
+
+            BufferedSource source = response.body().source();
+            GeminiResponseReader.Result usage = null;
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                // SSE: 빈 줄은 이벤트 구분자, "data:" 줄만 JSON 조각을 담고 있음
+                if (!line.startsWith("data:")) continue;
+                String data = line.substring(5).trim();
+                if (data.isEmpty() || "[DONE]".equals(data)) continue;
+                GeminiResponseReader.Result chunk = GeminiResponseReader.read(new StringReader(data));
+                // 마지막 조각의 usageMetadata가 스트림 전체 누적값
+                if (chunk.hasUsage()) usage = chunk;
+                if (chunk.text != null) scanner.feed(chunk.text);
             }
+            if (usage != null) recordTokenUsage(usage);
+
+            String generatedText = scanner.getText();
+            if (isBlank(generatedText)) {
+                throw new IOException("Gemini가 텍스트를 생성하지 못했습니다.");
+            }
+            return generatedText.trim();
         }
-        throw last != null ? last : new IOException("Tasmota 호출 실패(원인 불명)");
     }
 
+    // -------------------- 파싱기 --------------------
+    // 💡 명령 파싱/HSB→RGB 변환은 LightCommand의 단일 패스 스캐너가 담당 (Pattern.compile/replaceAll 없음)
+
+    private static final Pattern ZONE_COMMAND_PATTERN =
+            Pattern.compile("\\[ZONE:\\s*([^|\\]]+?)\\s*\\|\\s*COMMAND:\\s*(.*?)\\]", Pattern.DOTALL);
 
-    /** 세미콜론 등 포함 명령을 URL-safe 하게 인코딩 (변경 없음) */
-    private static String encodeCmndForUrl(String rawCmnd) {
-        return URLEncoder.encode(rawCmnd, StandardCharsets.UTF_8);
+    /**
+     * [ZONE: 이름 | COMMAND: ...] 블록을 구역 순서대로 추출합니다. 블록이 하나도 없으면 null.
+     * 응답에 빠진 구역은 첫 번째 구역의 명령을 사용하고, 모르는 구역 이름은 무시합니다.
+     */
+    private static Map<String, LightCommand> extractZoneCommands(String fullResponse, Collection<String> zoneNames) {
+        Map<String, LightCommand> parsed = new LinkedHashMap<>();
+        Matcher matcher = ZONE_COMMAND_PATTERN.matcher(fullResponse);
+        while (matcher.find()) {
+            String zone = matcher.group(1).trim();
+            if (zoneNames.contains(zone) && !parsed.containsKey(zone)) {
+                LightCommand command = LightCommand.parse(fullResponse, matcher.start(2), matcher.end(2));
+                parsed.put(zone, (command != null && command.has(LightCommand.HSB)) ? command : LightCommand.DEFAULT);
+            }
+        }
+        if (parsed.isEmpty()) return null;
+
+        LightCommand firstCommand = parsed.values().iterator().next();
+        Map<String, LightCommand> commands = new LinkedHashMap<>();
+        for (String zone : zoneNames) {
+            LightCommand command = parsed.get(zone);
+            commands.put(zone, (command != null) ? command : firstCommand);
+        }
+        return commands;
+    }
+
+    /** [EXPLANATION: ...] 블록에서 설명 추출 (첫 ']'까지, 앞뒤 공백 제거) */
+    private static String extractExplanation(String fullResponse, String command) {
+        int start = fullResponse.indexOf("[EXPLANATION:");
+        if (start >= 0) {
+            start += "[EXPLANATION:".length();
+            int end = fullResponse.indexOf(']', start);
+            if (end >= 0) {
+                return fullResponse.substring(start, end).trim();
+            }
+        }
+        return command + " 명령을 생성했습니다. (설명 없음)";
+    }
+
+    // -------------------- Tasmota 전송부 (수정) --------------------
+
+    /**
+     * 💡 [새로 추가된 메서드] 다중 IP에 Tasmota 명령을 전송하고 응답을 기다리지 않습니다.
+     * IP별 요청은 TasmotaFanOut이 OkHttp enqueue로 보내며, 재시도 대기도 scheduler에 예약되어 작업 스레드를 점유하지 않습니다.
+     * 전구마다 직렬 레인으로 보내므로 연속 발화의 명령이 같은 전구에 순서가 뒤바뀌어 도착하지 않고, 밀린 명령은 최신 것만 보냅니다.
+     * cmnd 인코딩은 LightCommand에 한 번만 캐시되고, IP마다 템플릿 URL의 호스트만 바꿉니다.
+     */
+    private CompletableFuture<DeliveryAggregator.Result> sendToTasmotaAndForget(LightCommand command, List<String> ipAddresses) {
+        Log.i(TAG, "sendToTasmotaAndForget: 총 " + ipAddresses.size() + "개의 IP에 명령 비동기 전송.");
+        final DeliveryCallback callback = this.deliveryCallback;
+
+        // 전송 실패는 로깅/콜백으로만 알리고 앱의 메인 스레드에 영향을 주지 않습니다.
+        DeliveryAggregator.Listener listener = (callback != null) ? new DeliveryProgressPoster(callback) : null;
+        return tasmotaFanOut.send(command, ipAddresses, listener).whenComplete((result, error) -> {
+            if (result == null) return;
+            Log.d(TAG, "Tasmota 전송 완료: " + command + " → " + result);
+            if (callback != null) {
+                final String summary = result.toString();
+                mainHandler.post(() -> callback.onDeliveryComplete(command.toCommandString(), result.succeeded, result.total, summary));
+            }
+        });
+    }
+
+    /** 전구별 ack를 메인스레드로 전달 (이미 예약된 전달이 있으면 새로 예약하지 않고 최신 값만 갱신) */
+    private final class DeliveryProgressPoster implements DeliveryAggregator.Listener {
+        private final DeliveryCallback callback;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicInteger delivered = new AtomicInteger();
+        private final AtomicBoolean posted = new AtomicBoolean();
+        private volatile int total;
+
+        DeliveryProgressPoster(DeliveryCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onAck(DeliveryAggregator.Ack ack, int doneCount, int totalCount) {
+            total = totalCount;
+            done.accumulateAndGet(doneCount, Math::max);
+            if (ack.status.delivered()) delivered.incrementAndGet();
+            if (posted.compareAndSet(false, true)) {
+                mainHandler.post(() -> {
+                    posted.set(false);
+                    callback.onDeliveryProgress(done.get(), total, delivered.get());
+                });
+            }
+        }
     }
 
     // -------------------- 유틸: 프리셋 전송 (수정) --------------------
     public void sendPreset(String hsbc, int dimmer, int ct, ControllerCallback callback) {
-        final String cmd = "HSBCOLOR " + hsbc + ";Dimmer " + dimmer + ";CT " + ct;
+        final String rawCmd = "HSBCOLOR " + hsbc + ";Dimmer " + dimmer + ";CT " + ct;
 
         executor.execute(() -> {
             int finalColorRgb = 0;
 
             try {
-                // 색상 값 추출
-                finalColorRgb = convertHsbToRgb(cmd);
+                // 1회 파싱 (범위 밖 값은 보정)
+                LightCommand parsed = LightCommand.parse(rawCmd);
+                if (parsed == null || !parsed.has(LightCommand.HSB)) {
+                    mainHandler.post(() -> callback.onFailure("프리셋 형식 오류: " + rawCmd));
+                    return;
+                }
+                final String cmd = parsed.toCommandString();
+                finalColorRgb = parsed.toRgb();
 
                 List<String> ipsToControl = getIpList();
                 if (ipsToControl.isEmpty()) {
@@ -395,7 +1352,7 @@ public class TasmotaController {
                 }
 
                 // 💡 [수정] Fire-and-Forget 방식으로 변경
-                sendToTasmotaAndForget(cmd, ipsToControl);
+                sendToTasmotaAndForget(parsed, ipsToControl);
                 String resp = "OK: " + ipsToControl.size() + "대의 전구에 제어 명령을 비동기 전송했습니다.";
 
 
@@ -405,7 +1362,7 @@ public class TasmotaController {
                 // 🚨 Note: Fire-and-Forget이므로 항상 onSuccess 호출
                 mainHandler.post(() -> callback.onSuccess(cmd, fResp, "프리셋 적용", fRgb));
             } catch (Exception e) {
-                final String msg = "명령: " + cmd + " / 오류: " + e.getMessage();
+                final String msg = "명령: " + rawCmd + " / 오류: " + e.getMessage();
                 mainHandler.post(() -> callback.onFailure(msg));
             }
         });
@@ -0,0 +1,268 @@
+package com.baiktown.sentilight;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 전구 여러 대로 같은 명령을 보내는 비동기 fan-out
+ * - IP마다 Call.enqueue (작업 스레드에서 execute로 기다리지 않음), 재시도 대기는 RetryEngine이 scheduler에 예약
+ * - 전용 Dispatcher로 동시 요청 수를 제한: 전구가 1000대여도 OkHttp 디스패처 스레드는 maxInFlight개 이하
+ * - 전구 1대(ESP 웹 서버)에는 동시에 maxPerBulb개까지만 보내고 나머지는 디스패처 큐에서 대기
+ * - 전구별 전송 확인(성공/HTTP 오류/명령 거부/시간 초과, 지연 시간)을 DeliveryAggregator로 모아 진행 상황과 최종 Result 전달
+ * - BulbStateTable이 있으면 전구마다 바뀐 필드만 보내고, 이미 목표 상태인 전구는 요청 자체를 생략 (delta 전송)
+ * - 전구마다 직렬 레인: 전송 중 1건 + 대기 1건까지만 두고, 대기 중에 새 명령이 오면 대기 명령을 교체 (마지막 명령 우선)
+ *   → 빠르게 이어진 두 발화의 명령이 순서가 뒤바뀌어 옛 색으로 끝나지 않고, 밀린 옛 명령은 보내지 않음
+ * - BulbLatencyTracker가 있으면 시도마다 전구별 타임아웃(지연 평균 + 4σ, 연속 실패 시 2배)을 Call.timeout()으로 적용
+ *   → 꺼진 전구 1대가 전송 예산 전체를 한 번의 시도로 붙잡지 않고, 느린 전구는 넉넉한 타임아웃을 받음
+ * 연결 풀/이벤트 리스너는 공유 OkHttpClient와 같이 씁니다.
+ */
+final class TasmotaFanOut {
+
+    private static final String TAG = "TasmotaFanOut";
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    static final int DEFAULT_MAX_PER_BULB = 2;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ThreadPoolExecutor dispatchExecutor;
+    private final OkHttpClient client;
+    private final RetryEngine retry;
+    private final long deadlineMs;
+    private final BulbStateTable states; // null이면 항상 전체 명령
+    private final BulbLatencyTracker latencies; // null이면 시도마다 남은 예산 전체를 타임아웃으로
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * @param sharedClient 연결 풀/타임아웃 설정을 물려받을 공유 클라이언트
+     * @param maxInFlight  전체 동시 요청 수 (= 디스패처 스레드 상한)
+     * @param maxPerBulb   전구(호스트) 1대당 동시 요청 수
+     * @param deadlineMs   전구 명령 1건당 전송 예산 (재시도 포함)
+     * @param states       전구별 마지막 확인 상태 (null이면 delta 전송 없이 항상 전체 명령)
+     * @param latencies    전구별 지연 추적 (null이면 적응형 타임아웃 없이 남은 예산 전체)
+     */
+    TasmotaFanOut(OkHttpClient sharedClient, ScheduledExecutorService scheduler,
+                  int maxInFlight, int maxPerBulb, long deadlineMs, BulbStateTable states, BulbLatencyTracker latencies) {
+        // OkHttp 기본 디스패처 풀과 같은 구성(스레드 수는 Dispatcher의 maxRequests가 제한)에 이름만 붙임
+        this.dispatchExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "TasmotaFanOut-" + THREAD_NUMBER.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        Dispatcher dispatcher = new Dispatcher(dispatchExecutor);
+        dispatcher.setMaxRequests(Math.max(1, maxInFlight));
+        dispatcher.setMaxRequestsPerHost(Math.max(1, maxPerBulb));
+        OkHttpClient.Builder builder = sharedClient.newBuilder().dispatcher(dispatcher);
+        if (latencies != null) builder.addInterceptor(this::measure);
+        this.client = builder.build();
+        this.retry = new RetryEngine(scheduler, 50, 500, 3, 100);
+        this.deadlineMs = deadlineMs;
+        this.states = states;
+        this.latencies = latencies;
+    }
+
+    /**
+     * hosts("192.168.0.50" 또는 "127.0.0.1:8080") 전체에 command를 보내고 집계 결과로 완료됩니다. (실패해도 예외 없이 Result)
+     * 전구마다 레인에 넣으므로, 이전 명령이 아직 전송 중인 전구에는 그 응답 뒤에 보냅니다.
+     * @param listener 전구별 ack가 도착할 때마다 호출 (null 가능, OkHttp 콜백 스레드)
+     */
+    CompletableFuture<DeliveryAggregator.Result> send(LightCommand command, List<String> hosts, DeliveryAggregator.Listener listener) {
+        return fanOut(hosts, listener, host -> lanes.computeIfAbsent(host, Lane::new).submit(command));
+    }
+
+    CompletableFuture<DeliveryAggregator.Result> send(LightCommand command, List<String> hosts) {
+        return send(command, hosts, null);
+    }
+
+    /** hosts 전체에 State를 조회해 상태 표를 갱신합니다. (응답을 해석할 수 없는 전구는 모름으로) */
+    CompletableFuture<DeliveryAggregator.Result> poll(List<String> hosts) {
+        return fanOut(hosts, null, host -> deliver(host, LightCommand.commandUrl(host, "State"),
+                BulbStateTable.State::fromTasmotaJson));
+    }
+
+    /** 명령 1건을 전구 1대에 전송 (레인에서 차례가 왔을 때 호출되므로 그 시점의 상태 표로 delta 계산) */
+    private CompletableFuture<DeliveryAggregator.Ack> sendNow(String host, LightCommand command) {
+        BulbStateTable.State known = (states != null) ? states.get(host) : null;
+        String cmnd = TasmotaCommandCompiler.compileFor(command, known);
+        if (cmnd == null) return CompletableFuture.completedFuture(DeliveryAggregator.Ack.skipped(host)); // 이미 목표 상태
+        // 상태를 모르면 전체 명령이므로 LightCommand에 캐시된 URL 템플릿 사용
+        HttpUrl url = (known == null) ? command.toUrl(host) : LightCommand.commandUrl(host, cmnd);
+        final BulbStateTable.State target = TasmotaCommandCompiler.targetState(command, known);
+        return deliver(host, url, body -> {
+            BulbStateTable.State acked = BulbStateTable.State.fromTasmotaJson(body);
+            return (acked != null) ? acked : target;
+        });
+    }
+
+    /** 응답 본문 → 갱신할 전구 상태 (null이면 모름) */
+    private interface StateReader {
+        BulbStateTable.State read(String body);
+    }
+
+    /**
+     * GET 1건을 보내고 결과를 Ack로 변환 (future는 실패하지 않음)
+     * 성공이면 상태 표를 갱신하고, 실패면 상태 표에서 지운 뒤 완료 (레인의 다음 명령이 전체 명령으로 계산되도록 순서 보장)
+     */
+    private CompletableFuture<DeliveryAggregator.Ack> deliver(String host, HttpUrl url, StateReader stateReader) {
+        final long startedAt = System.nanoTime();
+        return request(url, true).handle((body, error) -> {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            DeliveryAggregator.Ack ack = (error == null)
+                    ? DeliveryAggregator.Ack.fromReply(host, latencyMs, body)
+                    : DeliveryAggregator.Ack.fromError(host, latencyMs, error);
+            if (states != null) {
+                if (ack.status == DeliveryAggregator.Status.OK) {
+                    states.update(host, stateReader.read(body));
+                } else {
+                    states.forget(host);
+                }
+            }
+            return ack;
+        });
+    }
+
+    /** 전구 1대의 직렬 전송 레인 (전송 중 최대 1건 + 대기 최대 1건, this로 동기화) */
+    private final class Lane {
+        private final String host;
+        private boolean busy;
+        private LightCommand pending;
+        private CompletableFuture<DeliveryAggregator.Ack> pendingDone;
+
+        Lane(String host) {
+            this.host = host;
+        }
+
+        CompletableFuture<DeliveryAggregator.Ack> submit(LightCommand command) {
+            CompletableFuture<DeliveryAggregator.Ack> done = new CompletableFuture<>();
+            CompletableFuture<DeliveryAggregator.Ack> replaced = null;
+            boolean startNow;
+            synchronized (this) {
+                startNow = !busy;
+                if (startNow) {
+                    busy = true;
+                } else {
+                    replaced = pendingDone;
+                    pending = command;
+                    pendingDone = done;
+                }
+            }
+            if (replaced != null) replaced.complete(DeliveryAggregator.Ack.superseded(host));
+            if (startNow) run(command, done);
+            return done;
+        }
+
+        private void run(LightCommand command, CompletableFuture<DeliveryAggregator.Ack> done) {
+            CompletableFuture<DeliveryAggregator.Ack> attempt;
+            try {
+                attempt = sendNow(host, command);
+            } catch (IllegalArgumentException e) {
+                attempt = CompletableFuture.completedFuture(DeliveryAggregator.Ack.fromError(host, 0, e));
+            }
+            attempt.thenAccept(ack -> {
+                LightCommand next;
+                CompletableFuture<DeliveryAggregator.Ack> nextDone;
+                synchronized (this) {
+                    next = pending;
+                    nextDone = pendingDone;
+                    pending = null;
+                    pendingDone = null;
+                    if (next == null) busy = false;
+                }
+                done.complete(ack);
+                if (next != null) run(next, nextDone);
+            });
+        }
+    }
+
+    /** 전구 1대 작업 시작 (반환한 future는 실패하지 않고 Ack로 완료) */
+    private interface PerBulb {
+        CompletableFuture<DeliveryAggregator.Ack> start(String host);
+    }
+
+    /** 전구마다 작업을 시작하고 Ack를 집계기에 모음 */
+    private CompletableFuture<DeliveryAggregator.Result> fanOut(List<String> hosts, DeliveryAggregator.Listener listener, PerBulb perBulb) {
+        final DeliveryAggregator aggregator = new DeliveryAggregator(hosts.size(), listener);
+        for (String host : hosts) {
+            CompletableFuture<DeliveryAggregator.Ack> one;
+            try {
+                one = perBulb.start(host);
+            } catch (IllegalArgumentException e) {
+                one = CompletableFuture.completedFuture(DeliveryAggregator.Ack.fromError(host, 0, e));
+            }
+            one.thenAccept(ack -> {
+                if (!ack.status.delivered()) {
+                    Log.e(TAG, "IP " + host + " 제어 실패: " + ack);
+                }
+                aggregator.record(ack);
+            });
+        }
+        return aggregator.result();
+    }
+
+    /** deadlineMs 안에서 재시도하는 비동기 GET (전구가 꺼져 있으면 연결 거부/타임아웃 → 재시도) */
+    CompletableFuture<String> request(HttpUrl url, boolean throwOnNon200) {
+        final Request req = new Request.Builder().url(url).get().build();
+        return retry.execute((attemptNo, remainingMs) -> {
+            Call call = client.newCall(req);
+            long timeoutMs = (latencies != null) ? Math.min(remainingMs, latencies.timeoutMs(url)) : remainingMs;
+            call.timeout().timeout(Math.max(1, timeoutMs), TimeUnit.MILLISECONDS);
+            return RetryEngine.enqueue(call, resp -> {
+                String body = (resp.body() != null) ? resp.body().string() : "";
+                if (!resp.isSuccessful() && throwOnNon200) {
+                    throw new RetryEngine.HttpStatusException(resp.code(), "Tasmota 전송 실패: HTTP " + resp.code() + " / URL: " + url + " / " + body);
+                }
+                return body;
+            });
+        }, System.currentTimeMillis() + deadlineMs);
+    }
+
+    /**
+     * 시도 1번의 지연 기록 (디스패처 스레드에서 실행되므로 디스패처 큐 대기 시간은 빠짐)
+     * 응답 헤더를 받으면 상태 코드와 무관하게 표본, 응답 없이 끝나면(타임아웃은 취소로 나타남) 연속 실패
+     */
+    private Response measure(Interceptor.Chain chain) throws IOException {
+        HttpUrl url = chain.request().url();
+        long startedAt = System.nanoTime();
+        try {
+            Response response = chain.proceed(chain.request());
+            latencies.recordSuccess(url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return response;
+        } catch (IOException e) {
+            latencies.recordFailure(url);
+            Log.w(TAG, "IP " + url.host() + ":" + url.port() + " 응답 없음 (" + latencies.describe(url) + "): " + e);
+            throw e;
+        }
+    }
+
+    /** 현재 실행 중/대기 중인 전구 요청 수 */
+    int runningCount() {
+        return client.dispatcher().runningCallsCount();
+    }
+
+    int queuedCount() {
+        return client.dispatcher().queuedCallsCount();
+    }
+
+    /** 지금까지 동시에 존재했던 디스패처 스레드 수의 최댓값 */
+    int largestThreadCount() {
+        return dispatchExecutor.getLargestPoolSize();
+    }
+}
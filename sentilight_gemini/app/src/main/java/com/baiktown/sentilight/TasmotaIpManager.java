@@ -9,7 +9,10 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,6 +23,10 @@ public class TasmotaIpManager {
     private static final String TAG = "TasmotaIpManager";
     private static final String PREF_NAME = "TasmotaIPPrefs";
     private static final String KEY_IP_LIST = "ipList";
+    private static final String KEY_IP_ZONES = "ipZones"; // IP → 구역 이름
+
+    /** 구역이 지정되지 않은 IP가 속하는 구역 */
+    public static final String DEFAULT_ZONE = "기본";
 
     // 💡 IPv4 유효성 검사를 위한 강화된 정규식 패턴 (0-255 범위 검증)
     private static final Pattern IPV4_PATTERN = Pattern.compile(
@@ -32,6 +39,7 @@ public class TasmotaIpManager {
     private final SharedPreferences prefs;
     private final Gson gson = new Gson();
     private final Type listType = new TypeToken<ArrayList<String>>() {}.getType(); // Type을 멤버 변수로 선언하여 효율성 개선
+    private final Type zoneMapType = new TypeToken<HashMap<String, String>>() {}.getType();
 
     public TasmotaIpManager(Context context) {
         this.context = context.getApplicationContext();
@@ -68,6 +76,20 @@ public class TasmotaIpManager {
         Log.d(TAG, "IP list saved. Total: " + listToSave.size());
     }
 
+    /** SharedPreferences에서 IP → 구역 매핑을 불러옵니다. */
+    private Map<String, String> loadZonesFromPrefs() {
+        String json = prefs.getString(KEY_IP_ZONES, null);
+        if (json != null) {
+            Map<String, String> loaded = gson.fromJson(json, zoneMapType);
+            return (loaded != null) ? loaded : new HashMap<>();
+        }
+        return new HashMap<>();
+    }
+
+    private void saveZones(Map<String, String> zones) {
+        prefs.edit().putString(KEY_IP_ZONES, gson.toJson(zones)).apply();
+    }
+
     /** IPv4 유효성 검사 메서드 */
     private boolean isValidIpv4(String ip) {
         if (ip == null) {
@@ -117,6 +139,8 @@ public class TasmotaIpManager {
 
         if (currentIps.remove(cleanIp)) {
             saveIpList(currentIps); // 삭제 후 저장
+            Map<String, String> zones = loadZonesFromPrefs();
+            if (zones.remove(cleanIp) != null) saveZones(zones);
             return true;
         }
         return false;
@@ -133,4 +157,45 @@ public class TasmotaIpManager {
         // 💡 FIX 4: 개수 반환 시에도 항상 최신 목록을 로드합니다.
         return loadIpsFromPrefs().size();
     }
-}
\ No newline at end of file
+
+    // -------------------- 구역(방/그룹) 관리 --------------------
+
+    /**
+     * IP를 구역에 배정합니다. zone이 null/공백이면 배정을 해제하여 기본 구역으로 돌립니다.
+     * 구역 이름은 Gemini 프롬프트의 괄호 형식에 들어가므로 '[', ']', '|'는 제거됩니다.
+     */
+    public void setZone(String ip, String zone) {
+        String cleanIp = ip.trim();
+        String cleanZone = (zone != null) ? zone.replaceAll("[\\[\\]|]", "").trim() : "";
+        Map<String, String> zones = loadZonesFromPrefs();
+        if (cleanZone.isEmpty() || DEFAULT_ZONE.equals(cleanZone)) {
+            zones.remove(cleanIp);
+        } else {
+            zones.put(cleanIp, cleanZone);
+        }
+        saveZones(zones);
+    }
+
+    /** IP가 속한 구역 이름 (배정되지 않았으면 DEFAULT_ZONE) */
+    public String getZone(String ip) {
+        String zone = loadZonesFromPrefs().get(ip.trim());
+        return (zone != null) ? zone : DEFAULT_ZONE;
+    }
+
+    /** 등록된 IP를 구역별로 묶어 반환합니다. (IP 목록 순서대로 구역이 처음 등장한 순서 유지) */
+    public Map<String, List<String>> getZoneMap() {
+        Map<String, String> zones = loadZonesFromPrefs();
+        Map<String, List<String>> grouped = new LinkedHashMap<>();
+        for (String ip : loadIpsFromPrefs()) {
+            String zone = zones.get(ip);
+            if (zone == null) zone = DEFAULT_ZONE;
+            List<String> ips = grouped.get(zone);
+            if (ips == null) {
+                ips = new ArrayList<>();
+                grouped.put(zone, ips);
+            }
+            ips.add(ip);
+        }
+        return grouped;
+    }
+}
@@ -0,0 +1,100 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BulbLatencyTracker 타임아웃 계산 테스트 (평균 + 4σ, 하한/상한, 연속 실패 시 2배)
+ */
+public class BulbLatencyTrackerTest {
+
+    private static final HttpUrl BULB = HttpUrl.get("http://192.168.0.50/cm?cmnd=Power");
+    private static final HttpUrl OTHER_PORT = HttpUrl.get("http://192.168.0.50:8080/cm?cmnd=Power");
+
+    private final BulbLatencyTracker tracker = new BulbLatencyTracker(50, 1000, 2500);
+
+    @Test
+    public void unknownBulbUsesInitialTimeout() {
+        assertEquals(1000, tracker.timeoutMs(BULB));
+        assertEquals("unknown", tracker.describe(BULB));
+    }
+
+    @Test
+    public void firstSampleAssumesHalfDeviation() {
+        // 평균 100, σ 50 → 100 + 4 × 50
+        tracker.recordSuccess(BULB, 100);
+        assertEquals(300, tracker.timeoutMs(BULB));
+    }
+
+    @Test
+    public void steadyLatencyNarrowsTimeout() {
+        for (int i = 0; i < 100; i++) tracker.recordSuccess(BULB, 100);
+        long timeout = tracker.timeoutMs(BULB);
+        assertTrue("timeout=" + timeout, timeout >= 100 && timeout < 110);
+    }
+
+    @Test
+    public void jitterWidensTimeout() {
+        for (int i = 0; i < 100; i++) tracker.recordSuccess(BULB, (i % 2 == 0) ? 50 : 150);
+        long timeout = tracker.timeoutMs(BULB);
+        // 평균 약 100, σ 약 50
+        assertTrue("timeout=" + timeout, timeout > 250 && timeout < 350);
+    }
+
+    @Test
+    public void floorAndCapApply() {
+        tracker.recordSuccess(BULB, 5);
+        assertEquals(50, tracker.timeoutMs(BULB));
+
+        tracker.recordSuccess(OTHER_PORT, 2000);
+        assertEquals(2500, tracker.timeoutMs(OTHER_PORT));
+    }
+
+    @Test
+    public void failuresDoubleTimeoutUntilCap() {
+        tracker.recordSuccess(BULB, 100);
+        tracker.recordFailure(BULB);
+        assertEquals(600, tracker.timeoutMs(BULB));
+        tracker.recordFailure(BULB);
+        assertEquals(1200, tracker.timeoutMs(BULB));
+        tracker.recordFailure(BULB);
+        assertEquals(2400, tracker.timeoutMs(BULB));
+        tracker.recordFailure(BULB);
+        assertEquals(2500, tracker.timeoutMs(BULB));
+    }
+
+    @Test
+    public void successResetsFailureStreak() {
+        tracker.recordSuccess(BULB, 100);
+        tracker.recordFailure(BULB);
+        tracker.recordFailure(BULB);
+        tracker.recordSuccess(BULB, 100);
+        assertTrue(tracker.timeoutMs(BULB) < 300);
+    }
+
+    @Test
+    public void failureWithoutSamplesBacksOffFromInitial() {
+        tracker.recordFailure(BULB);
+        assertEquals(2000, tracker.timeoutMs(BULB));
+    }
+
+    @Test
+    public void bulbsAreKeyedByHostAndPort() {
+        tracker.recordSuccess(BULB, 100);
+        assertEquals(1000, tracker.timeoutMs(OTHER_PORT));
+        assertEquals(300, tracker.timeoutMs(HttpUrl.get("http://192.168.0.50/cm?cmnd=State")));
+
+        tracker.clear();
+        assertEquals(1000, tracker.timeoutMs(BULB));
+    }
+
+    @Test
+    public void constructorKeepsInitialWithinBounds() {
+        assertEquals(300, new BulbLatencyTracker(300, 100, 2500).timeoutMs(BULB));
+        assertEquals(2500, new BulbLatencyTracker(300, 9000, 2500).timeoutMs(BULB));
+    }
+}
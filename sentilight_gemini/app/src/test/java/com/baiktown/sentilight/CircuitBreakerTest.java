@@ -0,0 +1,131 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CircuitBreaker 상태 전환 테스트 (openDurationMs 0이면 OPEN 직후 다음 tryAcquire가 HALF_OPEN 탐침)
+ */
+public class CircuitBreakerTest {
+
+    private static void fail(CircuitBreaker breaker, int times) {
+        for (int i = 0; i < times; i++) breaker.tryAcquire().onFailure();
+    }
+
+    private static void succeed(CircuitBreaker breaker, int times) {
+        for (int i = 0; i < times; i++) breaker.tryAcquire().onSuccess();
+    }
+
+    @Test
+    public void staysClosedBelowMinCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, 60_000);
+        fail(breaker, 4);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void opensAtFailureRateThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 60_000);
+        succeed(breaker, 2);
+        fail(breaker, 1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        fail(breaker, 1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertFalse(breaker.isClosed());
+    }
+
+    @Test
+    public void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, 60_000);
+        fail(breaker, 2);
+        succeed(breaker, 4);
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+        fail(breaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.5, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void halfOpenAllowsOnlyOneProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        fail(breaker, 2);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void probeSuccessClosesAndResetsWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        fail(breaker, 2);
+        breaker.tryAcquire().onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void probeFailureReopens() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        fail(breaker, 2);
+        breaker.tryAcquire().onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void lateResultFromEarlierStateIsIgnored() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        CircuitBreaker.Permit slow = breaker.tryAcquire(); // CLOSED 시절에 시작한 느린 호출
+        fail(breaker, 2);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        slow.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        probe.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void permitReportsOnlyOnce() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 60_000);
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        assertFalse(permit.isReported());
+        permit.onSuccess();
+        permit.onFailure();
+        permit.onFailure();
+        assertTrue(permit.isReported());
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void unreportedProbeReleasedAsFailureFreesTheSlot() {
+        // 호출자가 예외로 끝나 finally에서 실패로 반납 → 다시 OPEN, 다음 탐침 가능
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        fail(breaker, 2);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        if (!probe.isReported()) probe.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void listenerSeesEveryTransition() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0);
+        List<String> transitions = new ArrayList<>();
+        breaker.setStateListener((from, to) -> transitions.add(from + "→" + to));
+        fail(breaker, 2);
+        breaker.tryAcquire().onSuccess();
+        assertEquals(List.of("CLOSED→OPEN", "OPEN→HALF_OPEN", "HALF_OPEN→CLOSED"), transitions);
+    }
+}
@@ -0,0 +1,136 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ColorEngine 테스트: HSB → RGB(Android HSVToColor와 채널당 ±1), CT 테이블, 대비 색, 혼합
+ */
+public class ColorEngineTest {
+
+    // -------------------- HSB → RGB --------------------
+
+    @Test
+    public void primaryAndGrayColors() {
+        assertEquals(0xFFFF0000, ColorEngine.hsbToRgb(0, 100, 100));
+        assertEquals(0xFF00FF00, ColorEngine.hsbToRgb(120, 100, 100));
+        assertEquals(0xFF0000FF, ColorEngine.hsbToRgb(240, 100, 100));
+        assertEquals(0xFFFFFFFF, ColorEngine.hsbToRgb(200, 0, 100));
+        assertEquals(0xFF000000, ColorEngine.hsbToRgb(200, 80, 0));
+        assertEquals(0xFF808080, ColorEngine.hsbToRgb(0, 0, 50));
+    }
+
+    @Test
+    public void outOfRangeInputsAreNormalized() {
+        assertEquals(ColorEngine.hsbToRgb(0, 100, 100), ColorEngine.hsbToRgb(360, 100, 100));
+        assertEquals(ColorEngine.hsbToRgb(240, 80, 70), ColorEngine.hsbToRgb(-120, 80, 70));
+        assertEquals(ColorEngine.hsbToRgb(30, 100, 100), ColorEngine.hsbToRgb(30, 150, 120));
+        assertEquals(ColorEngine.hsbToRgb(30, 0, 0), ColorEngine.hsbToRgb(30, -5, -5));
+    }
+
+    @Test
+    public void matchesFloatHsvWithinOnePerChannel() {
+        for (int h = 0; h < 360; h++) {
+            for (int s = 0; s <= 100; s += 5) {
+                for (int v = 0; v <= 100; v += 5) {
+                    int actual = ColorEngine.hsbToRgb(h, s, v);
+                    int expected = referenceHsvToColor(h, s / 100f, v / 100f);
+                    assertEquals(0xFF, actual >>> 24);
+                    for (int shift = 0; shift <= 16; shift += 8) {
+                        int diff = Math.abs(((actual >> shift) & 0xFF) - ((expected >> shift) & 0xFF));
+                        assertTrue("h=" + h + " s=" + s + " v=" + v, diff <= 1);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void lightCommandUsesEngine() {
+        assertEquals(ColorEngine.hsbToRgb(200, 80, 70), LightCommand.of(200, 80, 70, 40, 300).toRgb());
+        assertEquals(LightCommand.NO_RGB, LightCommand.parse("Dimmer 40").toRgb());
+    }
+
+    // -------------------- CT → RGB --------------------
+
+    @Test
+    public void ctRunsFromCoolWhiteToWarmOrange() {
+        int cool = ColorEngine.ctToRgb(LightCommand.MIN_CT);
+        int warm = ColorEngine.ctToRgb(LightCommand.MAX_CT);
+        assertEquals(0xFF, cool >>> 24);
+        assertTrue((cool & 0xFF) > 240);          // 약 6500K: 거의 흰색
+        assertTrue((warm & 0xFF) < 30);           // 2000K: 파랑이 거의 없음
+        int previousBlue = 256;
+        for (int m = LightCommand.MIN_CT; m <= LightCommand.MAX_CT; m++) {
+            int rgb = ColorEngine.ctToRgb(m);
+            assertEquals(0xFF, (rgb >> 16) & 0xFF);
+            assertTrue((rgb & 0xFF) <= previousBlue);
+            previousBlue = rgb & 0xFF;
+        }
+    }
+
+    @Test
+    public void ctOutsideRangeIsClamped() {
+        assertEquals(ColorEngine.ctToRgb(LightCommand.MIN_CT), ColorEngine.ctToRgb(100));
+        assertEquals(ColorEngine.ctToRgb(LightCommand.MAX_CT), ColorEngine.ctToRgb(900));
+    }
+
+    // -------------------- 대비/혼합 --------------------
+
+    @Test
+    public void contrastFlipsHueSaturationAndValue() {
+        // 검은 배경: 밝게(95), 무채색이므로 채도 75
+        assertEquals(ColorEngine.hsbToRgb(180, 75, 95), ColorEngine.contrastColor(0xFF000000));
+        // 흰 배경: 어둡게(25), 채도 95
+        assertEquals(ColorEngine.hsbToRgb(180, 95, 25), ColorEngine.contrastColor(0xFFFFFFFF));
+        // 빨강: 보색(청록), 채도가 높으므로 75, 밝으므로 25
+        assertEquals(ColorEngine.hsbToRgb(180, 75, 25), ColorEngine.contrastColor(0xFFFF0000));
+        // 파랑(240) → 노랑(60)
+        assertEquals(ColorEngine.hsbToRgb(60, 75, 25), ColorEngine.contrastColor(0xFF0000FF));
+    }
+
+    @Test
+    public void contrastKeepsAlpha() {
+        assertEquals(0x80, ColorEngine.contrastColor(0x80000000) >>> 24);
+    }
+
+    @Test
+    public void mixEndpointsAndMidpoint() {
+        int from = 0xFF102030;
+        int to = 0xFFF0E0D0;
+        assertEquals(from, ColorEngine.mix(from, to, 0));
+        assertEquals(to, ColorEngine.mix(from, to, 256));
+        assertEquals(from, ColorEngine.mix(from, to, -10));
+        assertEquals(to, ColorEngine.mix(from, to, 999));
+
+        int mid = ColorEngine.mix(from, to, 128);
+        assertEquals(0xFF, mid >>> 24);
+        assertEquals(0x80, (mid >> 16) & 0xFF);
+        assertEquals(0x80, (mid >> 8) & 0xFF);
+        assertEquals(0x80, mid & 0xFF);
+    }
+
+    /** Android Color.HSVToColor(Skia SkHSVToColor)와 같은 float 계산 */
+    private static int referenceHsvToColor(float hue, float s, float v) {
+        int value = Math.round(v * 255);
+        if (s <= 0) return 0xFF000000 | value << 16 | value << 8 | value;
+        float hx = (hue < 0 || hue >= 360) ? 0 : hue / 60;
+        int w = (int) Math.floor(hx);
+        float f = hx - w;
+        int p = Math.round((1 - s) * v * 255);
+        int q = Math.round((1 - s * f) * v * 255);
+        int t = Math.round((1 - s * (1 - f)) * v * 255);
+        int r, g, b;
+        switch (w) {
+            case 0: r = value; g = t; b = p; break;
+            case 1: r = q; g = value; b = p; break;
+            case 2: r = p; g = value; b = t; break;
+            case 3: r = p; g = q; b = value; break;
+            case 4: r = t; g = p; b = value; break;
+            default: r = value; g = p; b = q; break;
+        }
+        return 0xFF000000 | r << 16 | g << 8 | b;
+    }
+}
@@ -0,0 +1,110 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DeliveryAggregator 테스트: Tasmota 응답 판정(rejectionOf), 실패 원인 분류, 집계 완료
+ */
+public class DeliveryAggregatorTest {
+
+    // -------------------- 응답 판정 --------------------
+
+    @Test
+    public void stateJsonIsAccepted() {
+        assertNull(DeliveryAggregator.rejectionOf("{\"POWER\":\"ON\",\"Dimmer\":40,\"HSBColor\":\"200,80,40\"}"));
+        assertNull(DeliveryAggregator.rejectionOf("{\"Command\":\"Done\"}"));
+    }
+
+    @Test
+    public void unknownOrErrorCommandIsRejected() {
+        assertEquals("명령 거부: Unknown", DeliveryAggregator.rejectionOf("{\"Command\":\"Unknown\"}"));
+        assertEquals("명령 거부: Error", DeliveryAggregator.rejectionOf("{\"Command\":\"Error\"}"));
+        assertNotNull(DeliveryAggregator.rejectionOf("{\"Command\":\"unknown\"}"));
+    }
+
+    @Test
+    public void warningIsRejected() {
+        // 웹 비밀번호가 설정된 전구: 200이지만 명령은 실행되지 않음
+        String reason = DeliveryAggregator.rejectionOf("{\"WARNING\":\"Need user=<username>&password=<password>\"}");
+        assertTrue(reason.startsWith("경고: Need user"));
+    }
+
+    @Test
+    public void emptyOrNonJsonIsRejected() {
+        assertEquals("빈 응답", DeliveryAggregator.rejectionOf(null));
+        assertEquals("빈 응답", DeliveryAggregator.rejectionOf("  "));
+        assertEquals("JSON 객체가 아닌 응답", DeliveryAggregator.rejectionOf("[1,2]"));
+        assertEquals("JSON 형식 오류", DeliveryAggregator.rejectionOf("<html>Tasmota</html>"));
+        // 기존 판정("ERROR" 접두사)으로는 성공이던 응답
+        assertEquals("JSON 형식 오류", DeliveryAggregator.rejectionOf("{\"POWER\":"));
+    }
+
+    // -------------------- Ack 분류 --------------------
+
+    @Test
+    public void fromReplyUsesRejection() {
+        assertEquals(DeliveryAggregator.Status.OK, DeliveryAggregator.Ack.fromReply("a", 10, "{\"POWER\":\"ON\"}").status);
+        DeliveryAggregator.Ack rejected = DeliveryAggregator.Ack.fromReply("a", 10, "{\"Command\":\"Unknown\"}");
+        assertEquals(DeliveryAggregator.Status.REJECTED, rejected.status);
+        assertEquals(200, rejected.httpCode);
+    }
+
+    @Test
+    public void fromErrorClassifiesUnwrappedCause() {
+        DeliveryAggregator.Ack http = DeliveryAggregator.Ack.fromError("a", 5,
+                new CompletionException(new RetryEngine.HttpStatusException(503, "unavailable")));
+        assertEquals(DeliveryAggregator.Status.HTTP_ERROR, http.status);
+        assertEquals(503, http.httpCode);
+        assertEquals(DeliveryAggregator.Status.TIMEOUT,
+                DeliveryAggregator.Ack.fromError("a", 5, new RetryEngine.DeadlineExceededException("late", null)).status);
+        assertEquals(DeliveryAggregator.Status.TIMEOUT,
+                DeliveryAggregator.Ack.fromError("a", 5, new InterruptedIOException("timeout")).status);
+        assertEquals(DeliveryAggregator.Status.NETWORK_ERROR,
+                DeliveryAggregator.Ack.fromError("a", 5, new ConnectException("refused")).status);
+    }
+
+    // -------------------- 집계 --------------------
+
+    @Test
+    public void completesWithLastAck() throws Exception {
+        List<String> progress = new ArrayList<>();
+        DeliveryAggregator aggregator = new DeliveryAggregator(4, (ack, done, total) -> progress.add(done + "/" + total));
+        CompletableFuture<DeliveryAggregator.Result> future = aggregator.result();
+
+        aggregator.record(DeliveryAggregator.Ack.fromReply("a", 30, "{\"POWER\":\"ON\"}"));
+        aggregator.record(DeliveryAggregator.Ack.skipped("b"));
+        aggregator.record(DeliveryAggregator.Ack.superseded("c"));
+        assertFalse(future.isDone());
+        aggregator.record(DeliveryAggregator.Ack.fromError("d", 90, new ConnectException("refused")));
+
+        DeliveryAggregator.Result result = future.get();
+        assertEquals(List.of("1/4", "2/4", "3/4", "4/4"), progress);
+        assertEquals(3, result.succeeded);
+        assertEquals(1, result.skipped);
+        assertEquals(1, result.superseded);
+        assertEquals(List.of("d"), result.failedHosts);
+        assertEquals(90, result.maxLatencyMs);
+        assertEquals(1, result.count(DeliveryAggregator.Status.NETWORK_ERROR));
+        assertFalse(result.allSucceeded());
+    }
+
+    @Test
+    public void emptyFanOutCompletesImmediately() throws Exception {
+        DeliveryAggregator aggregator = new DeliveryAggregator(0, null);
+        assertTrue(aggregator.result().isDone());
+        assertTrue(aggregator.result().get().allSucceeded());
+    }
+}
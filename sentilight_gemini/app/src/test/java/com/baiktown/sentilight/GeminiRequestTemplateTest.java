@@ -0,0 +1,111 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.HttpUrl;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * GeminiRequestTemplate 테스트: Content-Length == 실제 기록 바이트 수, Gson으로 다시 읽으면 원문 그대로
+ */
+public class GeminiRequestTemplateTest {
+
+    private static final String PREFIX = "사용자 기분: \"";
+    private static final String SUFFIX = "\"\n\\ 위 문장에 맞는 조명을 골라주세요.";
+
+    private final GeminiRequestTemplate template = new GeminiRequestTemplate(
+            HttpUrl.get("https://example.com/v1beta/models/m:generateContent?key=k"),
+            PREFIX, SUFFIX, "{\"temperature\":0.2}");
+
+    /** 본문을 Buffer에 쓰고 길이를 확인한 뒤 parts[0].text 반환 */
+    private JsonObject writeAndParse(String input) throws IOException {
+        RequestBody body = template.body(input);
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals("Content-Length: " + input, body.contentLength(), buffer.size());
+        return JsonParser.parseString(buffer.readUtf8()).getAsJsonObject();
+    }
+
+    private String roundTrip(String input) throws IOException {
+        return writeAndParse(input).getAsJsonArray("contents").get(0).getAsJsonObject()
+                .getAsJsonArray("parts").get(0).getAsJsonObject()
+                .get("text").getAsString();
+    }
+
+    private void assertRoundTrip(String input) throws IOException {
+        assertEquals(PREFIX + input + SUFFIX, roundTrip(input));
+    }
+
+    // -------------------- 문자 종류별 --------------------
+
+    @Test
+    public void ascii() throws IOException {
+        assertRoundTrip("I am tired today");
+        assertRoundTrip("");
+    }
+
+    @Test
+    public void hangul() throws IOException {
+        assertRoundTrip("오늘 너무 피곤해요");
+    }
+
+    @Test
+    public void emojiSurrogatePairs() throws IOException {
+        assertRoundTrip("기분 최고 😀🎉");
+        assertRoundTrip("😀");
+    }
+
+    @Test
+    public void quotesAndBackslashes() throws IOException {
+        assertRoundTrip("\"따옴표\" 와 \\역슬래시\\ 그리고 \\\"");
+    }
+
+    @Test
+    public void controlCharacters() throws IOException {
+        assertRoundTrip("줄\n바꿈\r탭\t널\u0000벨\u0007끝\u001f");
+        assertRoundTrip("줄 구분자\u2028문단\u2029");
+    }
+
+    @Test
+    public void loneSurrogatesBecomeQuestionMarks() throws IOException {
+        // okio는 짝 없는 서로게이트를 '?' 1바이트로 기록 → 길이도 그만큼
+        assertEquals(PREFIX + "a?b" + SUFFIX, roundTrip("a\uD83Db"));
+        assertEquals(PREFIX + "a?b" + SUFFIX, roundTrip("a\uDE00b"));
+        assertEquals(PREFIX + "끝?" + SUFFIX, roundTrip("끝\uD83D"));
+        assertEquals(PREFIX + "??" + SUFFIX, roundTrip("\uDE00\uD83D"));
+    }
+
+    @Test
+    public void nullInputIsEmpty() throws IOException {
+        assertEquals(PREFIX + SUFFIX, roundTrip(null));
+    }
+
+    // -------------------- 고정 부분 --------------------
+
+    @Test
+    public void keepsEnvelopeAndGenerationConfig() throws IOException {
+        JsonObject json = writeAndParse("피곤해");
+        assertEquals("user", json.getAsJsonArray("contents").get(0).getAsJsonObject().get("role").getAsString());
+        assertEquals(0.2, json.getAsJsonObject("generationConfig").get("temperature").getAsDouble(), 0.0);
+    }
+
+    @Test
+    public void omitsGenerationConfigWhenNull() throws IOException {
+        GeminiRequestTemplate plain = new GeminiRequestTemplate(
+                HttpUrl.get("https://example.com/"), "앞 ", " 뒤", null);
+        RequestBody body = plain.body("😀\"");
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(body.contentLength(), buffer.size());
+        JsonObject json = JsonParser.parseString(buffer.readUtf8()).getAsJsonObject();
+        assertEquals(1, json.size());
+    }
+}
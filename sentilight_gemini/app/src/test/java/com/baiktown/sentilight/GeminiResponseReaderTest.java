@@ -0,0 +1,122 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * GeminiResponseReader 테스트: 일반 응답, usage만 있는 SSE 조각, 건너뛸 필드, 안전 차단 후보, 타입 불일치
+ */
+public class GeminiResponseReaderTest {
+
+    private static final String REPLY = "[COMMAND: Dimmer 40] [EXPLANATION: 은은하게]";
+
+    private static GeminiResponseReader.Result read(String json) throws IOException {
+        return GeminiResponseReader.read(new StringReader(json));
+    }
+
+    private static void assertReadFails(String json, String messagePart) {
+        try {
+            read(json);
+            fail("IOException expected: " + json);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(messagePart));
+        }
+    }
+
+    // -------------------- 정상 응답 --------------------
+
+    @Test
+    public void readsTextAndUsage() throws IOException {
+        GeminiResponseReader.Result r = read("{\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":[{\"text\":\""
+                + REPLY + "\"}]},\"finishReason\":\"STOP\",\"index\":0}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":120,\"candidatesTokenCount\":30,\"totalTokenCount\":150},"
+                + "\"modelVersion\":\"gemini\"}");
+        assertEquals(REPLY, r.requireText());
+        assertEquals(120, r.promptTokens);
+        assertEquals(30, r.candidatesTokens);
+        assertEquals(150, r.totalTokens);
+        assertTrue(r.hasUsage());
+    }
+
+    @Test
+    public void usageOnlyChunkDoesNotThrow() throws IOException {
+        // 스트리밍 마지막 조각: 후보 없이 usageMetadata만
+        GeminiResponseReader.Result r = read("{\"usageMetadata\":{\"promptTokenCount\":10,\"totalTokenCount\":12}}");
+        assertNull(r.text);
+        assertTrue(r.hasUsage());
+        assertEquals(12, r.totalTokens);
+        try {
+            r.requireText();
+            fail("requireText should fail without candidates");
+        } catch (IOException expected) {
+            // 후보 없음
+        }
+    }
+
+    @Test
+    public void emptyCandidatesArrayHasNoText() throws IOException {
+        GeminiResponseReader.Result r = read("{\"candidates\":[]}");
+        assertNull(r.text);
+        assertFalse(r.hasUsage());
+    }
+
+    // -------------------- 건너뛰는 값 --------------------
+
+    @Test
+    public void skipsExtraCandidatesPartsAndUnknownFields() throws IOException {
+        GeminiResponseReader.Result r = read("{\"promptFeedback\":{\"safetyRatings\":[{\"category\":\"X\"}]},"
+                + "\"candidates\":["
+                + "{\"safetyRatings\":[{\"a\":1}],\"content\":{\"parts\":[{\"thought\":true,\"text\":\"" + REPLY + "\"},"
+                + "{\"text\":\"두 번째 part\"}],\"extra\":[1,2,{}]},\"citationMetadata\":{\"sources\":[]}},"
+                + "{\"content\":{\"parts\":[{\"text\":\"두 번째 후보\"}]}}],"
+                + "\"usageMetadata\":{\"promptTokensDetails\":[{\"modality\":\"TEXT\"}],\"totalTokenCount\":5},"
+                + "\"future\":null}");
+        assertEquals(REPLY, r.text);
+        assertEquals(5, r.totalTokens);
+    }
+
+    @Test
+    public void partWithoutTextIsEmpty() throws IOException {
+        assertEquals("", read("{\"candidates\":[{\"content\":{\"parts\":[{\"inlineData\":{}}]}}]}").text);
+    }
+
+    @Test
+    public void stopsAtEndOfRootObject() throws IOException {
+        // 루트 객체가 닫히면 뒤에 남은 내용은 읽지 않음
+        assertEquals(REPLY, read("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + REPLY + "\"}]}}]} 쓰레기").text);
+    }
+
+    // -------------------- 오류 --------------------
+
+    @Test
+    public void safetyBlockedCandidateWithoutContentFails() {
+        assertReadFails("{\"candidates\":[{\"finishReason\":\"SAFETY\",\"safetyRatings\":[]}]}", "content/parts 없음");
+        assertReadFails("{\"candidates\":[{\"content\":{\"role\":\"model\"},\"finishReason\":\"SAFETY\"}]}", "content/parts 없음");
+    }
+
+    @Test
+    public void typeMismatchIsWrappedAsIOException() {
+        assertReadFails("{\"usageMetadata\":{\"totalTokenCount\":{}}}", "형식 오류");
+        assertReadFails("{\"usageMetadata\":{\"totalTokenCount\":\"많음\"}}", "형식 오류");
+        assertReadFails("{\"candidates\":[[]]}", "형식 오류");
+        assertReadFails("[]", "형식 오류");
+    }
+
+    @Test
+    public void truncatedJsonFails() {
+        try {
+            read("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"잘린");
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // EOF
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * GeminiStreamScanner 점진 스캔 테스트 (태그/블록이 조각 경계에 걸치는 경우 포함)
+ */
+public class GeminiStreamScannerTest {
+
+    private final List<String> commands = new ArrayList<>();
+    private final List<String> explanations = new ArrayList<>();
+    private final GeminiStreamScanner scanner = new GeminiStreamScanner(new GeminiStreamScanner.Listener() {
+        @Override
+        public void onCommandClosed(String textSoFar) {
+            commands.add(textSoFar);
+        }
+
+        @Override
+        public void onExplanationUpdate(String explanationSoFar) {
+            explanations.add(explanationSoFar);
+        }
+    });
+
+    private void feed(String... chunks) {
+        for (String chunk : chunks) scanner.feed(chunk);
+    }
+
+    @Test
+    public void wholeReplyInOneChunk() {
+        feed("[COMMAND: HSBCOLOR 30,90,80;Dimmer 60;CT 400]\n[EXPLANATION: 따뜻한 주황]");
+        assertEquals(List.of("[COMMAND: HSBCOLOR 30,90,80;Dimmer 60;CT 400]"), commands);
+        assertEquals(List.of("따뜻한 주황"), explanations);
+    }
+
+    @Test
+    public void commandClosesAsSoonAsBracketArrives() {
+        feed("[COMMAND: HSBCOLOR 30,", "90,80;Dimmer 60");
+        assertFalse(scanner.isCommandClosed());
+        assertTrue(commands.isEmpty());
+
+        feed(";CT 400]", "\n[EXPLANATION: 설명");
+        assertTrue(scanner.isCommandClosed());
+        assertEquals(1, commands.size());
+        assertEquals(LightCommand.of(30, 90, 80, 60, 400), LightCommand.fromResponse(commands.get(0)));
+    }
+
+    @Test
+    public void tagsSplitAcrossChunks() {
+        feed("[COMM", "AND: HSBCOLOR 1,2,3]\n[EXPLAN", "ATION: 파란 ", "하늘]");
+        assertEquals(1, commands.size());
+        assertEquals(List.of("파란", "파란 하늘"), explanations);
+    }
+
+    @Test
+    public void explanationIsDeliveredBeforeItCloses() {
+        feed("[COMMAND: HSBCOLOR 1,2,3]", "[EXPLANATION: 편안한", " 저녁을", " 위한 색]", " 이후 텍스트]");
+        assertEquals(List.of("편안한", "편안한 저녁을", "편안한 저녁을 위한 색"), explanations);
+    }
+
+    @Test
+    public void commandIsReportedOnlyOnce() {
+        feed("[COMMAND: HSBCOLOR 1,2,3]", "[COMMAND: HSBCOLOR 4,5,6]");
+        assertEquals(1, commands.size());
+    }
+
+    @Test
+    public void whitespaceOnlyChangeDoesNotRepeatUpdate() {
+        feed("[EXPLANATION: 조용한", "  ", "]");
+        assertEquals(List.of("조용한"), explanations);
+    }
+
+    @Test
+    public void ignoresEmptyChunksAndKeepsFullText() {
+        feed(null, "", "앞말 ", "[COMMAND: Dimmer 40]");
+        assertEquals("앞말 [COMMAND: Dimmer 40]", scanner.getText());
+        assertEquals(List.of("앞말 [COMMAND: Dimmer 40]"), commands);
+        assertTrue(explanations.isEmpty());
+    }
+}
@@ -0,0 +1,139 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LightCommand 단일 패스 파싱과 값 보정 테스트
+ */
+public class LightCommandTest {
+
+    // -------------------- 파싱 --------------------
+
+    @Test
+    public void parse_readsAllFields() {
+        LightCommand cmd = LightCommand.parse("HSBCOLOR 200,80,70;Dimmer 40;CT 300");
+        assertEquals(200, cmd.hue);
+        assertEquals(80, cmd.saturation);
+        assertEquals(70, cmd.brightness);
+        assertEquals(40, cmd.dimmer);
+        assertEquals(300, cmd.ct);
+        assertTrue(cmd.has(LightCommand.HSB) && cmd.has(LightCommand.DIMMER) && cmd.has(LightCommand.CT));
+    }
+
+    @Test
+    public void parse_ignoresCaseOrderAndSpaces() {
+        LightCommand cmd = LightCommand.parse("  ct 300 ; dimmer 40;hsbcolor 200 , 80 , 70 ");
+        assertEquals(LightCommand.parse("HSBCOLOR 200,80,70;Dimmer 40;CT 300"), cmd);
+    }
+
+    @Test
+    public void parse_skipsUnknownCommandsAndNonNumericValues() {
+        LightCommand cmd = LightCommand.parse("Power ON;HSBCOLOR 10,20,30;Dimmer abc;Fade 1");
+        assertTrue(cmd.has(LightCommand.HSB));
+        assertFalse(cmd.has(LightCommand.DIMMER));
+        assertFalse(cmd.has(LightCommand.CT));
+        assertEquals("HSBCOLOR 10,20,30", cmd.toCommandString());
+    }
+
+    @Test
+    public void parse_incompleteHsbIsIgnored() {
+        LightCommand cmd = LightCommand.parse("HSBCOLOR 10,20;Dimmer 50");
+        assertFalse(cmd.has(LightCommand.HSB));
+        assertEquals("Dimmer 50", cmd.toCommandString());
+    }
+
+    @Test
+    public void parse_returnsNullWithoutKnownCommand() {
+        assertNull(LightCommand.parse("Power ON"));
+        assertNull(LightCommand.parse(""));
+    }
+
+    @Test
+    public void parse_rangeOfLargerText() {
+        String text = "xx HSBCOLOR 1,2,3 yy";
+        LightCommand cmd = LightCommand.parse(text, 3, 17);
+        assertEquals("HSBCOLOR 1,2,3", cmd.toCommandString());
+    }
+
+    @Test
+    public void fromResponse_findsCommandBlock() {
+        LightCommand cmd = LightCommand.fromResponse("[COMMAND: HSBCOLOR 30,90,80;Dimmer 60;CT 400]\n[EXPLANATION: 따뜻한 주황]");
+        assertEquals(LightCommand.of(30, 90, 80, 60, 400), cmd);
+    }
+
+    @Test
+    public void fromResponse_defaultsLikeLegacyExtractCommand() {
+        // 블록이 없거나 닫히지 않으면 끔, 블록에 HSBCOLOR가 없으면 기본 노란색
+        assertSame(LightCommand.OFF, LightCommand.fromResponse("설명만 있는 응답"));
+        assertSame(LightCommand.OFF, LightCommand.fromResponse("[COMMAND: HSBCOLOR 1,2,3"));
+        assertSame(LightCommand.DEFAULT, LightCommand.fromResponse("[COMMAND: Dimmer 40]"));
+    }
+
+    @Test
+    public void fromResponse_acceptsCharSequence() {
+        StringBuilder sb = new StringBuilder("앞 [COMMAND: HSBCOLOR 120,50,50;Dimmer 30;CT 250] 뒤");
+        assertEquals(LightCommand.of(120, 50, 50, 30, 250), LightCommand.fromResponse(sb));
+    }
+
+    // -------------------- 보정 --------------------
+
+    @Test
+    public void parse_clampsToPromptRanges() {
+        LightCommand cmd = LightCommand.parse("HSBCOLOR 400,150,120;Dimmer 999;CT 50");
+        assertEquals(359, cmd.hue);
+        assertEquals(100, cmd.saturation);
+        assertEquals(100, cmd.brightness);
+        assertEquals(100, cmd.dimmer);
+        assertEquals(153, cmd.ct);
+        assertEquals(500, LightCommand.parse("CT 9999").ct);
+    }
+
+    @Test
+    public void parse_longNumberDoesNotOverflow() {
+        LightCommand cmd = LightCommand.parse("HSBCOLOR 99999999999,1,1");
+        assertEquals(359, cmd.hue);
+    }
+
+    @Test
+    public void of_clampsNegativeValues() {
+        LightCommand cmd = LightCommand.of(-5, -1, -1, -1, -1);
+        assertEquals(0, cmd.hue);
+        assertEquals(0, cmd.saturation);
+        assertEquals(0, cmd.dimmer);
+        assertEquals(153, cmd.ct);
+    }
+
+    // -------------------- 인턴/인코딩 --------------------
+
+    @Test
+    public void sameValuesShareOneInstance() {
+        assertSame(LightCommand.parse("HSBCOLOR 200,80,70;Dimmer 40;CT 300"),
+                LightCommand.of(200, 80, 70, 40, 300));
+        // 보정 후 같은 값이면 같은 인스턴스
+        assertSame(LightCommand.parse("HSBCOLOR 500,80,70;Dimmer 40;CT 300"),
+                LightCommand.parse("HSBCOLOR 359,80,70;Dimmer 40;CT 300"));
+    }
+
+    @Test
+    public void toUrl_usesHostPortAndCompiledCommand() {
+        LightCommand cmd = LightCommand.of(200, 80, 70, 40, 300);
+        HttpUrl url = cmd.toUrl("127.0.0.1:8080");
+        assertEquals("127.0.0.1", url.host());
+        assertEquals(8080, url.port());
+        assertEquals("/cm", url.encodedPath());
+        assertEquals(TasmotaCommandCompiler.compile(cmd), url.queryParameter("cmnd"));
+
+        HttpUrl other = cmd.toUrl("192.168.0.50");
+        assertEquals("192.168.0.50", other.host());
+        assertEquals(80, other.port());
+        assertEquals(url.query(), other.query());
+    }
+}
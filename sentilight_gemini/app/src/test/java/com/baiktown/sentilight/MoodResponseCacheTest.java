@@ -0,0 +1,205 @@
+package com.baiktown.sentilight;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MoodResponseCache 테스트: 키 정규화(조사/해요체), TTL 만료, LRU 제거 순서, 디스크 스냅샷
+ */
+public class MoodResponseCacheTest {
+
+    private static final String REPLY = "[COMMAND: Dimmer 40] [EXPLANATION: 테스트]";
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    // -------------------- 정규화 --------------------
+
+    @Test
+    public void normalize_stripsParticlesAndPunctuation() {
+        assertEquals("기분 좋아", MoodResponseCache.normalize("기분이 좋아!"));
+        assertEquals("회사 너무 힘들어", MoodResponseCache.normalize("회사에서 너무   힘들어..."));
+        assertEquals("오늘 피곤해", MoodResponseCache.normalize("오늘은 피곤해 ㅋㅋ"));
+        assertEquals("", MoodResponseCache.normalize("?! ㅎㅎ"));
+        assertEquals("", MoodResponseCache.normalize(null));
+    }
+
+    @Test
+    public void normalize_keepsOneSyllableWords() {
+        // 떼고 남는 글자가 2자 미만이면 조사로 보지 않음 ("나는", "이"는 그대로)
+        assertEquals("나는 좋아", MoodResponseCache.normalize("나는 좋아"));
+        assertEquals("이", MoodResponseCache.normalize("이"));
+    }
+
+    @Test
+    public void normalize_stripsPoliteEnding() {
+        assertEquals(MoodResponseCache.normalize("피곤해"), MoodResponseCache.normalize("피곤해요"));
+        assertEquals(MoodResponseCache.normalize("기분이 좋아"), MoodResponseCache.normalize("기분이 좋아요!"));
+        assertEquals(MoodResponseCache.normalize("너무 슬퍼"), MoodResponseCache.normalize("너무 슬퍼요"));
+        assertEquals(MoodResponseCache.normalize("힘들지"), MoodResponseCache.normalize("힘들지요"));
+    }
+
+    @Test
+    public void normalize_keepsYoThatIsPartOfTheWord() {
+        assertEquals("휴식 필요", MoodResponseCache.normalize("휴식이 필요"));
+        assertEquals("이게 중요", MoodResponseCache.normalize("이게 중요"));
+        assertEquals("오늘 월요", MoodResponseCache.normalize("오늘은 월요"));
+        assertFalse(MoodResponseCache.normalize("필요").equals(MoodResponseCache.normalize("필")));
+    }
+
+    @Test
+    public void normalizedKeysShareOneEntry() {
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.put("피곤해요!", REPLY);
+        assertEquals(REPLY, cache.get("피곤해"));
+        assertEquals(1, cache.size());
+    }
+
+    // -------------------- TTL / LRU --------------------
+
+    @Test
+    public void expiredEntryIsDropped() throws InterruptedException {
+        MoodResponseCache cache = new MoodResponseCache(8, 50);
+        cache.put("피곤해", REPLY);
+        assertTrue(cache.contains("피곤해"));
+        Thread.sleep(120);
+        assertFalse(cache.contains("피곤해"));
+        assertNull(cache.get("피곤해"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void zeroTtlNeverExpires() throws InterruptedException {
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.put("피곤해", REPLY);
+        Thread.sleep(20);
+        assertEquals(REPLY, cache.get("피곤해"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        MoodResponseCache cache = new MoodResponseCache(2, 0);
+        cache.put("피곤해", "a");
+        cache.put("행복해", "b");
+        assertEquals("a", cache.get("피곤해"));   // 피곤해가 최근 사용 → 행복해가 가장 오래됨
+        cache.put("우울해", "c");
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("행복해"));
+        assertEquals("a", cache.get("피곤해"));
+        assertEquals("c", cache.get("우울해"));
+    }
+
+    @Test
+    public void containsDoesNotTouchCounters() {
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.put("피곤해", REPLY);
+        assertTrue(cache.contains("피곤해"));
+        assertFalse(cache.contains("행복해"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    // -------------------- 디스크 스냅샷 --------------------
+
+    @Test
+    public void snapshotRoundTripKeepsEntriesAndLruOrder() throws IOException {
+        File file = new File(tmp.getRoot(), "cache.bin");
+        MoodResponseCache cache = new MoodResponseCache(3, 0);
+        cache.put("피곤해", "a");
+        cache.put("행복해", "b");
+        cache.put("우울해", "c");
+        cache.get("피곤해");                     // LRU 순서: 행복해, 우울해, 피곤해
+        cache.saveSnapshot(file);
+
+        MoodResponseCache loaded = new MoodResponseCache(3, 0);
+        loaded.loadSnapshot(file);
+        assertEquals(3, loaded.size());
+        assertEquals("c", loaded.get("우울해"));
+        assertEquals("a", loaded.get("피곤해"));
+
+        // 복원된 LRU 순서대로 가장 오래된 행복해가 먼저 밀려남
+        loaded.put("신나", "d");
+        assertFalse(loaded.contains("행복해"));
+        assertEquals("b", cache.get("행복해"));
+    }
+
+    @Test
+    public void snapshotSkipsExpiredEntries() throws IOException, InterruptedException {
+        File file = new File(tmp.getRoot(), "cache.bin");
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.put("피곤해", REPLY);
+        cache.saveSnapshot(file);
+        Thread.sleep(120);
+
+        MoodResponseCache loaded = new MoodResponseCache(8, 50);
+        loaded.loadSnapshot(file);
+        assertEquals(0, loaded.size());
+    }
+
+    @Test
+    public void missingSnapshotIsIgnored() {
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.loadSnapshot(new File(tmp.getRoot(), "none.bin"));
+        cache.loadSnapshot(null);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void badMagicIsRejected() throws IOException {
+        File file = tmp.newFile("bad.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x12345678);
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF("피곤해");
+            out.writeUTF(REPLY);
+        }
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.loadSnapshot(file);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void truncatedSnapshotLoadsNothing() throws IOException {
+        File file = new File(tmp.getRoot(), "cache.bin");
+        MoodResponseCache cache = new MoodResponseCache(8, 0);
+        cache.put("피곤해", "a");
+        cache.put("행복해", "b");
+        cache.saveSnapshot(file);
+
+        // 마지막 항목 중간에서 잘린 파일: 앞 항목만 반쯤 들어오지 않아야 함
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        MoodResponseCache loaded = new MoodResponseCache(8, 0);
+        loaded.loadSnapshot(file);
+        assertEquals(0, loaded.size());
+    }
+
+    @Test
+    public void negativeCountIsRejected() throws IOException {
+        File file = new File(tmp.getRoot(), "cache.bin");
+        new MoodResponseCache(8, 0).saveSnapshot(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(-1);
+        }
+        MoodResponseCache loaded = new MoodResponseCache(8, 0);
+        loaded.loadSnapshot(file);
+        assertEquals(0, loaded.size());
+    }
+}
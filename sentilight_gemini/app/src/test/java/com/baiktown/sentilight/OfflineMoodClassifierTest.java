@@ -0,0 +1,95 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * OfflineMoodClassifier 테스트: 분명한 문장은 바로 사용(≥0.8), 부정/섞인 문장은 임계값 미만, 단서 없으면 null
+ */
+public class OfflineMoodClassifierTest {
+
+    private static final double THRESHOLD = OfflineMoodClassifier.DEFAULT_CONFIDENCE_THRESHOLD;
+
+    private final OfflineMoodClassifier classifier = new OfflineMoodClassifier();
+
+    private void assertBypass(String moodText, String expectedMood) {
+        OfflineMoodClassifier.Result r = classifier.classify(moodText);
+        assertNotNull(moodText, r);
+        assertEquals(moodText, expectedMood, r.mood);
+        assertTrue(moodText + " → " + r.confidence, r.confidence >= THRESHOLD);
+        assertTrue(moodText, r.isUsable(THRESHOLD));
+    }
+
+    private void assertBelowThreshold(String moodText) {
+        OfflineMoodClassifier.Result r = classifier.classify(moodText);
+        assertNotNull(moodText, r);
+        assertTrue(moodText + " → " + r.confidence, r.confidence < THRESHOLD);
+        assertFalse(moodText, r.isUsable(THRESHOLD));
+    }
+
+    // -------------------- 분명한 한 가지 분위기 --------------------
+
+    @Test
+    public void clearSingleMoodBypassesGemini() {
+        assertBypass("너무 피곤해", "tired");
+        assertBypass("오늘 정말 행복해", "happy");
+        assertBypass("우울해", "sad");
+        assertBypass("스트레스 받아", "angry");
+        assertBypass("불안해", "anxious");
+        assertBypass("공부해야 해", "focus");
+        assertBypass("이제 잘래", "sleep");
+    }
+
+    @Test
+    public void punctuationAndSpacingDoNotMatter() {
+        assertBypass("  피곤!!! ", "tired");
+        assertBypass("나른 해요~", "tired");
+    }
+
+    @Test
+    public void resultCarriesSceneForMood() {
+        OfflineMoodClassifier.Result r = classifier.classify("너무 피곤해");
+        assertEquals("HSBCOLOR 30,60,40;Dimmer 35;CT 450", r.command);
+        assertEquals("[COMMAND: " + r.command + "] [EXPLANATION: " + r.explanation + "]", r.toBracketText());
+        assertFalse(r.negated);
+    }
+
+    // -------------------- 부정/섞인 문장 --------------------
+
+    @Test
+    public void negatedSentencesStayBelowThreshold() {
+        assertBelowThreshold("안 피곤해");
+        assertBelowThreshold("우울하지 않아");
+        assertBelowThreshold("기분이 안 좋아");
+        assertBelowThreshold("별로 행복하지 않아");
+        assertTrue(classifier.classify("안 피곤해").negated);
+        assertTrue(classifier.classify("우울하지 않아").negated);
+    }
+
+    @Test
+    public void negationIsNeverUsableEvenWithLowThreshold() {
+        assertFalse(classifier.classify("안 피곤해").isUsable(0.0));
+    }
+
+    @Test
+    public void mixedMoodsStayBelowThreshold() {
+        assertBelowThreshold("피곤한데 행복해");
+        assertFalse(classifier.classify("피곤한데 행복해").negated);
+    }
+
+    // -------------------- 단서 없음 --------------------
+
+    @Test
+    public void noKeywordsGivesNull() {
+        assertNull(classifier.classify("오늘 점심은 김밥"));
+        assertNull(classifier.classify("ㅋㅋ"));
+        assertNull(classifier.classify("!!!"));
+        assertNull(classifier.classify(""));
+        assertNull(classifier.classify(null));
+    }
+}
@@ -0,0 +1,60 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 오프라인 대체 응답/오프라인 백엔드 테스트: 부정되었거나 애매한 분류 결과는 추측한 분위기 대신 중립 조명
+ */
+public class OfflineMoodInterpreterTest {
+
+    private static final double THRESHOLD = OfflineMoodClassifier.DEFAULT_CONFIDENCE_THRESHOLD;
+
+    private final OfflineMoodClassifier classifier = new OfflineMoodClassifier();
+
+    private String fallbackFor(String moodText) {
+        return OfflineMoodInterpreter.replyFor(classifier.classify(moodText), THRESHOLD);
+    }
+
+    @Test
+    public void clearMoodKeepsItsScene() {
+        assertEquals(classifier.classify("너무 피곤해").toBracketText(), fallbackFor("너무 피곤해"));
+    }
+
+    @Test
+    public void negatedMoodFallsBackToNeutral() {
+        // 분류기는 부정된 분위기(happy)를 반환하므로 그대로 쓰면 정반대의 밝은 조명이 됨
+        assertEquals("happy", classifier.classify("기분이 안 좋아").mood);
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, fallbackFor("기분이 안 좋아"));
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, fallbackFor("행복하지 않아"));
+    }
+
+    @Test
+    public void negationIsRejectedEvenWithLowThreshold() {
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY,
+                OfflineMoodInterpreter.replyFor(classifier.classify("기분이 안 좋아"), 0.1));
+    }
+
+    @Test
+    public void unknownTextFallsBackToNeutral() {
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, fallbackFor("오늘 점심은 김밥"));
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, OfflineMoodInterpreter.replyFor(null, THRESHOLD));
+    }
+
+    // -------------------- 선택 가능한 오프라인 백엔드 --------------------
+
+    @Test
+    public void backendUsesSameFloor() {
+        OfflineMoodInterpreter backend = new OfflineMoodInterpreter(classifier);
+        assertEquals(classifier.classify("너무 피곤해").toBracketText(), backend.interpret("너무 피곤해"));
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, backend.interpret("기분이 안 좋아"));
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, backend.interpret("행복하지 않아"));
+    }
+
+    @Test
+    public void backendThresholdIsConfigurable() {
+        // 부정 표현이 없어도 신뢰도가 임계값 미만이면 중립
+        assertEquals(OfflineMoodInterpreter.NEUTRAL_REPLY, new OfflineMoodInterpreter(classifier, 1.1).interpret("너무 피곤해"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.baiktown.sentilight;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RetryEngine 오류 분류와 재시도/마감 처리 테스트
+ */
+public class RetryEngineTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    // -------------------- 오류 분류 --------------------
+
+    @Test
+    public void retryableStatusCodes() {
+        assertTrue(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(429, "too many")));
+        assertTrue(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(500, "internal")));
+        assertTrue(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(503, "unavailable")));
+        assertFalse(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(400, "bad request")));
+        assertFalse(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(401, "unauthorized")));
+        assertFalse(RetryEngine.isRetryable(new RetryEngine.HttpStatusException(404, "not found")));
+    }
+
+    @Test
+    public void retryableNetworkErrors() {
+        assertTrue(RetryEngine.isRetryable(new ConnectException("refused")));
+        assertTrue(RetryEngine.isRetryable(new NoRouteToHostException("no route")));
+        assertTrue(RetryEngine.isRetryable(new SocketTimeoutException("read timed out")));
+        // OkHttp callTimeout
+        assertTrue(RetryEngine.isRetryable(new InterruptedIOException("timeout")));
+    }
+
+    @Test
+    public void nonRetryableErrors() {
+        assertFalse(RetryEngine.isRetryable(new InterruptedIOException("대기 중 인터럽트")));
+        assertFalse(RetryEngine.isRetryable(new IOException("Canceled")));
+        assertFalse(RetryEngine.isRetryable(new IllegalStateException("parse error")));
+        assertFalse(RetryEngine.isRetryable(new RetryEngine.DeadlineExceededException("late", null)));
+    }
+
+    @Test
+    public void jitterStaysBetweenBaseAndCap() {
+        RetryEngine engine = new RetryEngine(scheduler, 50, 400, 3, 10);
+        for (int i = 0; i < 200; i++) {
+            long delay = engine.nextDelayMs(300);
+            assertTrue(delay >= 50 && delay <= 400);
+        }
+        assertEquals(50, engine.nextDelayMs(0));
+    }
+
+    // -------------------- 실행 --------------------
+
+    @Test
+    public void retriesRetryableFailureUntilSuccess() throws Exception {
+        RetryEngine engine = new RetryEngine(scheduler, 1, 5, 3, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        String result = engine.execute((attemptNo, remainingMs) -> {
+            attempts.incrementAndGet();
+            if (attemptNo < 3) return failed(new RetryEngine.HttpStatusException(503, "unavailable"));
+            return CompletableFuture.completedFuture("ok");
+        }, System.currentTimeMillis() + 5_000).get(5, TimeUnit.SECONDS);
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void nonRetryableFailureStopsImmediately() throws Exception {
+        RetryEngine engine = new RetryEngine(scheduler, 1, 5, 3, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        RetryEngine.HttpStatusException badRequest = new RetryEngine.HttpStatusException(400, "bad request");
+        CompletableFuture<String> future = engine.execute((attemptNo, remainingMs) -> {
+            attempts.incrementAndGet();
+            return failed(badRequest);
+        }, System.currentTimeMillis() + 5_000);
+        assertSame(badRequest, causeOf(future));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void attemptExceptionIsClassifiedLikeFailedFuture() throws Exception {
+        RetryEngine engine = new RetryEngine(scheduler, 1, 5, 2, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = engine.execute((attemptNo, remainingMs) -> {
+            attempts.incrementAndGet();
+            throw new ConnectException("refused");
+        }, System.currentTimeMillis() + 5_000);
+        assertTrue(causeOf(future) instanceof ConnectException);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void passesRemainingBudgetAndGivesUpAtDeadline() throws Exception {
+        RetryEngine engine = new RetryEngine(scheduler, 1, 5, 3, 100);
+        long deadline = System.currentTimeMillis() + 50;
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = engine.execute((attemptNo, remainingMs) -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture("late");
+        }, deadline);
+        // 남은 예산(50ms)이 시도 최소 예산(100ms)보다 작으면 시도하지 않음
+        assertTrue(causeOf(future) instanceof RetryEngine.DeadlineExceededException);
+        assertEquals(0, attempts.get());
+
+        long[] seen = new long[1];
+        new RetryEngine(scheduler, 1, 5, 1, 10).execute((attemptNo, remainingMs) -> {
+            seen[0] = remainingMs;
+            return CompletableFuture.completedFuture("ok");
+        }, System.currentTimeMillis() + 1_000).get(5, TimeUnit.SECONDS);
+        assertTrue(seen[0] > 900 && seen[0] <= 1_000);
+    }
+
+    @Test
+    public void stopsRetryingWhenBackoffWouldMissDeadline() throws Exception {
+        RetryEngine engine = new RetryEngine(scheduler, 500, 500, 5, 100);
+        RetryEngine.HttpStatusException unavailable = new RetryEngine.HttpStatusException(503, "unavailable");
+        CompletableFuture<String> future = engine.execute((attemptNo, remainingMs) -> failed(unavailable),
+                System.currentTimeMillis() + 300);
+        Throwable cause = causeOf(future);
+        assertTrue(cause instanceof RetryEngine.DeadlineExceededException);
+        assertSame(unavailable, cause.getCause());
+    }
+
+    @Test
+    public void awaitUnwrapsIOException() {
+        CompletableFuture<String> future = failed(new ConnectException("refused"));
+        try {
+            RetryEngine.await(future);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e instanceof ConnectException);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        f.completeExceptionally(e);
+        return f;
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("실패해야 하는 호출이 성공함");
+    }
+}
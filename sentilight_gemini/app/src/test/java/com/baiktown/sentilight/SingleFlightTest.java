@@ -0,0 +1,126 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * SingleFlight 합치기/취소 테스트 (starter가 돌려준 future를 테스트에서 직접 완료)
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<String> flights = new SingleFlight<>();
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicReference<GeminiRequestHandle> handle = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<String>> pending = new AtomicReference<>();
+
+    /** 시작 횟수를 세고, 완료되지 않은 future를 handle에 묶어 반환하는 starter */
+    private final SingleFlight.Starter<String> starter = h -> {
+        starts.incrementAndGet();
+        handle.set(h);
+        CompletableFuture<String> f = new CompletableFuture<>();
+        h.bind(f);
+        pending.set(f);
+        return f;
+    };
+
+    @Test
+    public void concurrentJoinsShareOneStart() throws Exception {
+        CompletableFuture<String> a = flights.join("k", starter);
+        CompletableFuture<String> b = flights.join("k", starter);
+        assertEquals(1, starts.get());
+        assertNotSame(a, b);
+
+        pending.get().complete("reply");
+        assertEquals("reply", a.get());
+        assertEquals("reply", b.get());
+        assertEquals(1, flights.getStartedCount());
+        assertEquals(1, flights.getCoalescedCount());
+    }
+
+    @Test
+    public void differentKeysStartSeparately() {
+        flights.join("a", starter);
+        flights.join("b", starter);
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    public void completedFlightIsRemoved() {
+        flights.join("k", starter);
+        pending.get().complete("first");
+        flights.join("k", starter);
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    public void failureReachesEveryWaiter() throws Exception {
+        CompletableFuture<String> a = flights.join("k", starter);
+        CompletableFuture<String> b = flights.join("k", starter);
+        IOException error = new IOException("503");
+        pending.get().completeExceptionally(error);
+        assertSame(error, causeOf(a));
+        assertSame(error, causeOf(b));
+    }
+
+    @Test
+    public void starterExceptionFailsTheFlight() throws Exception {
+        IOException error = new IOException("bind failed");
+        CompletableFuture<String> a = flights.join("k", h -> {
+            throw error;
+        });
+        assertSame(error, causeOf(a));
+        // 실패한 키는 제거되어 다음 호출은 새로 시작
+        flights.join("k", starter);
+        assertEquals(1, starts.get());
+    }
+
+    @Test
+    public void oneWaiterCancelDoesNotAffectOthers() throws Exception {
+        CompletableFuture<String> a = flights.join("k", starter);
+        CompletableFuture<String> b = flights.join("k", starter);
+        a.cancel(true);
+        assertFalse(handle.get().isCancelled());
+        assertFalse(pending.get().isCancelled());
+
+        pending.get().complete("reply");
+        assertEquals("reply", b.get());
+    }
+
+    @Test
+    public void lastWaiterCancelCancelsTheRequest() throws Exception {
+        CompletableFuture<String> a = flights.join("k", starter);
+        CompletableFuture<String> b = flights.join("k", starter);
+        a.cancel(true);
+        b.cancel(true);
+        assertTrue(handle.get().isCancelled());
+        assertTrue(pending.get().isCancelled());
+
+        // 취소된 요청에는 합류하지 않고 새로 시작
+        CompletableFuture<String> c = flights.join("k", starter);
+        assertEquals(2, starts.get());
+        pending.get().complete("fresh");
+        assertEquals("fresh", c.get());
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        return null;
+    }
+}
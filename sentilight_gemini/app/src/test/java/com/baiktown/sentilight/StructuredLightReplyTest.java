@@ -0,0 +1,121 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * StructuredLightReply.parse 테스트: 숫자 형식, 필수 필드 누락/null, 빈 설명, 범위 밖 값 보정
+ */
+public class StructuredLightReplyTest {
+
+    private static StructuredLightReply parse(String json) throws IOException {
+        return StructuredLightReply.parse(new StringReader(json));
+    }
+
+    private static void assertParseFails(String json) {
+        try {
+            parse(json);
+            fail("IOException expected: " + json);
+        } catch (IOException expected) {
+            // 필수 필드 누락/형식 오류
+        }
+    }
+
+    // -------------------- 정상 응답 --------------------
+
+    @Test
+    public void parse_readsAllFields() throws IOException {
+        StructuredLightReply r = parse("{\"hue\":60,\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250,"
+                + "\"explanation\":\" 밝은 노란빛 \"}");
+        assertEquals(60, r.hue);
+        assertEquals(100, r.saturation);
+        assertEquals(90, r.brightness);
+        assertEquals(70, r.dimmer);
+        assertEquals(250, r.ct);
+        assertEquals("밝은 노란빛", r.explanation);
+        assertEquals(LightCommand.of(60, 100, 90, 70, 250), r.toLightCommand());
+    }
+
+    @Test
+    public void parse_acceptsNumericStringsAndDecimals() throws IOException {
+        StructuredLightReply r = parse("{\"hue\":\"60\",\"saturation\":60.0,\"brightness\":\"49.6\",\"dimmer\":70.4,"
+                + "\"ct\":\"250\",\"explanation\":\"x\"}");
+        assertEquals(60, r.hue);
+        assertEquals(60, r.saturation);
+        assertEquals(50, r.brightness);
+        assertEquals(70, r.dimmer);
+        assertEquals(250, r.ct);
+    }
+
+    @Test
+    public void parse_skipsUnknownFields() throws IOException {
+        StructuredLightReply r = parse("{\"mood\":{\"name\":\"tired\"},\"hue\":30,\"saturation\":60,\"brightness\":40,"
+                + "\"dimmer\":35,\"ct\":450,\"tags\":[1,2],\"explanation\":\"주황빛\"}");
+        assertEquals(30, r.hue);
+        assertEquals("주황빛", r.explanation);
+    }
+
+    // -------------------- 필수 필드 --------------------
+
+    @Test
+    public void parse_missingRequiredFieldFails() {
+        assertParseFails("{\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250,\"explanation\":\"x\"}");
+        assertParseFails("{\"hue\":60,\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"explanation\":\"x\"}");
+        assertParseFails("{}");
+    }
+
+    @Test
+    public void parse_nullRequiredFieldFails() {
+        assertParseFails("{\"hue\":null,\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250}");
+        assertParseFails("{\"hue\":60,\"saturation\":100,\"brightness\":90,\"dimmer\":null,\"ct\":250}");
+    }
+
+    @Test
+    public void parse_malformedValuesFail() {
+        assertParseFails("{\"hue\":\"노랑\",\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250}");
+        assertParseFails("{\"hue\":{},\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250}");
+        assertParseFails("[60,100,90,70,250]");
+        assertParseFails("{\"hue\":60,");
+    }
+
+    // -------------------- 설명 --------------------
+
+    @Test
+    public void parse_emptyExplanationGetsDefaultText() throws IOException {
+        for (String explanation : new String[]{"", "\"explanation\":\"   \",", "\"explanation\":null,"}) {
+            StructuredLightReply r = parse("{" + explanation
+                    + "\"hue\":60,\"saturation\":100,\"brightness\":90,\"dimmer\":70,\"ct\":250}");
+            assertTrue(r.explanation, r.explanation.startsWith(r.toCommand()));
+            assertTrue(r.explanation, r.explanation.endsWith("(설명 없음)"));
+        }
+    }
+
+    // -------------------- 범위 밖 값 --------------------
+
+    @Test
+    public void parse_outOfRangeValuesAreClampedByLightCommand() throws IOException {
+        StructuredLightReply r = parse("{\"hue\":400,\"saturation\":-10,\"brightness\":150,\"dimmer\":-1,"
+                + "\"ct\":9999,\"explanation\":\"x\"}");
+        // 파싱 값은 그대로, toLightCommand에서 보정
+        assertEquals(400, r.hue);
+        assertEquals(-10, r.saturation);
+        assertEquals(LightCommand.of(LightCommand.MAX_HUE, 0, 100, 0, LightCommand.MAX_CT), r.toLightCommand());
+
+        StructuredLightReply low = parse("{\"hue\":-20,\"saturation\":50,\"brightness\":50,\"dimmer\":50,"
+                + "\"ct\":0,\"explanation\":\"x\"}");
+        assertEquals(LightCommand.of(0, 50, 50, 50, LightCommand.MIN_CT), low.toLightCommand());
+    }
+
+    @Test
+    public void parse_hugeValuesSaturateInsteadOfWrapping() throws IOException {
+        StructuredLightReply r = parse("{\"hue\":1e12,\"saturation\":-1e12,\"brightness\":50,\"dimmer\":50,"
+                + "\"ct\":250,\"explanation\":\"x\"}");
+        assertEquals(LightCommand.of(LightCommand.MAX_HUE, 0, 50, 50, 250), r.toLightCommand());
+    }
+}
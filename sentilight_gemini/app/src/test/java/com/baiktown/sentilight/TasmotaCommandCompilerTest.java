@@ -0,0 +1,90 @@
+package com.baiktown.sentilight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * TasmotaCommandCompiler 테스트: 상태를 모를 때의 전체 명령(단일 명령/Backlog0)과 상태를 알 때의 delta 명령
+ */
+public class TasmotaCommandCompilerTest {
+
+    private static final BulbStateTable.State RED_70 = BulbStateTable.State.color(0, 100, 70);
+    private static final BulbStateTable.State WARM_40 = BulbStateTable.State.white(400, 40);
+
+    // -------------------- 전체 명령 (상태 모름) --------------------
+
+    @Test
+    public void colorCommand_mergesDimmerIntoHsbAndDropsCt() {
+        // CT는 백색 모드로 되돌려 색을 지우므로 버리고, Dimmer는 HSB 밝기로 합쳐 명령 1개
+        assertEquals("HSBColor 200,80,40", TasmotaCommandCompiler.compile(LightCommand.of(200, 80, 70, 40, 300)));
+        assertEquals("HSBColor 10,20,30", TasmotaCommandCompiler.compile(LightCommand.parse("HSBCOLOR 10,20,30")));
+    }
+
+    @Test
+    public void zeroSaturationWithCt_usesWhiteChannelInBacklog0() {
+        assertEquals("Backlog0 CT 300;Dimmer 40", TasmotaCommandCompiler.compile(LightCommand.of(0, 0, 70, 40, 300)));
+        assertEquals("Backlog0 CT 250;Dimmer 60", TasmotaCommandCompiler.compile(LightCommand.parse("CT 250;Dimmer 60")));
+    }
+
+    @Test
+    public void zeroBrightness_isPowerOff() {
+        assertEquals(TasmotaCommandCompiler.POWER_OFF, TasmotaCommandCompiler.compile(LightCommand.of(120, 50, 80, 0, 300)));
+        assertEquals(TasmotaCommandCompiler.POWER_OFF, TasmotaCommandCompiler.compile(LightCommand.parse("HSBCOLOR 120,50,0")));
+        assertEquals(TasmotaCommandCompiler.POWER_OFF, TasmotaCommandCompiler.compile(LightCommand.parse("Dimmer 0")));
+    }
+
+    @Test
+    public void singleFieldCommand_withoutKnownState_isSentAsIs() {
+        assertEquals("Dimmer 40", TasmotaCommandCompiler.compile(LightCommand.parse("Dimmer 40")));
+        assertEquals("CT 300", TasmotaCommandCompiler.compile(LightCommand.parse("CT 300")));
+    }
+
+    @Test
+    public void encodedQuery_usesCompiledForm() {
+        assertEquals("cmnd=HSBColor+200%2C80%2C40", LightCommand.of(200, 80, 70, 40, 300).toEncodedQuery());
+    }
+
+    // -------------------- delta (상태 앎) --------------------
+
+    @Test
+    public void alreadyAtTarget_returnsNull() {
+        assertNull(TasmotaCommandCompiler.compileFor(LightCommand.parse("HSBCOLOR 0,100,70"), RED_70));
+        assertNull(TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 400;Dimmer 40"), WARM_40));
+        assertNull(TasmotaCommandCompiler.compileFor(LightCommand.parse("Dimmer 0"), BulbStateTable.State.OFF));
+    }
+
+    @Test
+    public void sameColorDifferentBrightness_sendsDimmerOnly() {
+        assertEquals("Dimmer 30", TasmotaCommandCompiler.compileFor(LightCommand.parse("HSBCOLOR 0,100,30"), RED_70));
+        assertEquals("Dimmer 30", TasmotaCommandCompiler.compileFor(LightCommand.parse("Dimmer 30"), RED_70));
+    }
+
+    @Test
+    public void differentColor_sendsFullHsb() {
+        assertEquals("HSBColor 240,100,70", TasmotaCommandCompiler.compileFor(LightCommand.parse("HSBCOLOR 240,100,70"), RED_70));
+        assertEquals("HSBColor 0,100,70", TasmotaCommandCompiler.compileFor(LightCommand.parse("HSBCOLOR 0,100,70"), WARM_40));
+    }
+
+    @Test
+    public void whiteMode_sendsOnlyChangedField() {
+        assertEquals("Dimmer 80", TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 400;Dimmer 80"), WARM_40));
+        assertEquals("CT 200", TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 200;Dimmer 40"), WARM_40));
+        assertEquals("CT 200", TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 200"), WARM_40));
+        assertEquals("Backlog0 CT 200;Dimmer 80", TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 200;Dimmer 80"), WARM_40));
+    }
+
+    @Test
+    public void colorToWhite_switchesModeBeforeDimmer() {
+        assertEquals("Backlog0 CT 400;Dimmer 70", TasmotaCommandCompiler.compileFor(LightCommand.parse("CT 400"), RED_70));
+    }
+
+    @Test
+    public void powerChanges() {
+        assertEquals(TasmotaCommandCompiler.POWER_OFF, TasmotaCommandCompiler.compileFor(LightCommand.parse("Dimmer 0"), RED_70));
+        // 꺼진 전구: 밝기만 있는 명령은 목표 색을 알 수 없으므로 그대로, 색 명령은 전체로 (켜짐)
+        assertEquals("Dimmer 40", TasmotaCommandCompiler.compileFor(LightCommand.parse("Dimmer 40"), BulbStateTable.State.OFF));
+        assertEquals("HSBColor 0,100,70", TasmotaCommandCompiler.compileFor(LightCommand.parse("HSBCOLOR 0,100,70"), BulbStateTable.State.OFF));
+    }
+}
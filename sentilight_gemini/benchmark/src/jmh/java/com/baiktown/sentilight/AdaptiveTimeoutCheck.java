@@ -0,0 +1,107 @@
+package com.baiktown.sentilight;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 전구별 적응형 타임아웃(BulbLatencyTracker) 효과 측정 (TasmotaEmulator 전구 대상 단발 실행, 전송 예산 3초 = 앱과 같음)
+ * - healthy: 응답 20~60ms
+ * - mesh: 메시로 연결된 느린 전구, 응답 700~1200ms
+ * - flaky: 응답 20~60ms지만 요청의 20%는 응답하지 않음 (Wi-Fi 패킷 손실)
+ * - unplugged: 연결은 받지만 응답하지 않음 (꺼진 전구)
+ * - fixed: 시도마다 남은 예산 전체를 타임아웃으로 (적응형 이전 방식)
+ * - adaptive: 시도마다 전구별 평균 + 4σ (300ms~2500ms, 처음 1초, 연속 실패 시 2배)
+ * 같은 명령을 여러 라운드 보내고 종류별 전달 수와 ack 지연(평균/최대)을 출력합니다.
+ * 실행: ./gradlew :benchmark:adaptiveTimeoutCheck
+ */
+public final class AdaptiveTimeoutCheck {
+
+    private static final long DEADLINE_MS = 3000;
+    private static final int ROUNDS = 10;
+    private static final String[] KINDS = {"healthy", "mesh", "flaky", "unplugged"};
+    private static final int[] COUNTS = {20, 3, 5, 2};
+
+    public static void main(String[] args) throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        OkHttpClient client = new OkHttpClient();
+        System.out.println("mode      kind       delivered   avg-ack   max-ack");
+        for (String mode : new String[]{"fixed", "adaptive"}) {
+            List<LocalStandInServer> servers = new ArrayList<>();
+            List<TasmotaEmulator> bulbs = new ArrayList<>();
+            List<String> hosts = new ArrayList<>();
+            Map<String, String> kindOf = new HashMap<>();
+            for (int k = 0; k < KINDS.length; k++) {
+                for (int i = 0; i < COUNTS[k]; i++) {
+                    TasmotaEmulator bulb = new TasmotaEmulator();
+                    LocalStandInServer server = new LocalStandInServer();
+                    switch (KINDS[k]) {
+                        case "mesh":
+                            server.setHandler(bulb).setLatency(700, 500);
+                            break;
+                        case "flaky":
+                            server.setHandler((m, t, b) -> {
+                                if (ThreadLocalRandom.current().nextInt(100) < 20) sleep(4 * DEADLINE_MS);
+                                return bulb.handle(m, t, b);
+                            }).setLatency(20, 40);
+                            break;
+                        case "unplugged":
+                            server.setHandler(bulb).setLatency(60_000, 0);
+                            break;
+                        default:
+                            server.setHandler(bulb).setLatency(20, 40);
+                    }
+                    servers.add(server.start());
+                    bulbs.add(bulb);
+                    hosts.add(server.getHostAndPort());
+                    kindOf.put(server.getHostAndPort(), KINDS[k]);
+                }
+            }
+
+            BulbLatencyTracker tracker = mode.equals("adaptive") ? new BulbLatencyTracker(300, 1000, 2500) : null;
+            TasmotaFanOut fanOut = new TasmotaFanOut(client, scheduler,
+                    TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, DEADLINE_MS, null, tracker);
+            Map<String, long[]> perKind = new ConcurrentHashMap<>(); // delivered, sent, latency sum, latency max
+            for (String kind : KINDS) perKind.put(kind, new long[4]);
+            for (int round = 0; round < ROUNDS; round++) {
+                // 라운드마다 색을 바꿔 같은 명령이 합쳐지지 않게 함
+                LightCommand command = LightCommand.parse("HSBCOLOR " + (round * 30) + ",80,70;Dimmer 70");
+                fanOut.send(command, hosts, (ack, done, total) -> {
+                    long[] s = perKind.get(kindOf.get(ack.host));
+                    synchronized (s) {
+                        if (ack.status.delivered()) s[0]++;
+                        s[1]++;
+                        s[2] += ack.latencyMs;
+                        s[3] = Math.max(s[3], ack.latencyMs);
+                    }
+                }).get();
+            }
+            for (String kind : KINDS) {
+                long[] s = perKind.get(kind);
+                System.out.println(String.format(Locale.US, "%-9s %-9s %5d/%-5d %7dms %7dms",
+                        mode, kind, s[0], s[1], s[1] == 0 ? 0 : s[2] / s[1], s[3]));
+            }
+            System.out.println();
+            for (LocalStandInServer server : servers) server.close();
+            for (TasmotaEmulator bulb : bulbs) bulb.close();
+        }
+        scheduler.shutdownNow();
+        System.exit(0);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.baiktown.sentilight;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Tasmota 명령 묶음 방식 비교 (TasmotaEmulator 대상 단발 실행)
+ * - bare: 기존 전송 형태 "HSBCOLOR h,s,b;Dimmer d;CT c" 를 그대로 cmnd에 넣음
+ * - backlog: 같은 문자열을 일반 Backlog로 (명령 사이 200ms)
+ * - compiled: TasmotaCommandCompiler 결과 (LightCommand.toUrl)
+ * 명령마다 새 에뮬레이터에서 요청 1번을 보내고, 응답 시간 / 마지막 명령이 적용될 때까지의 시간 / 최종 상태를 출력합니다.
+ * 실행: ./gradlew :benchmark:backlogCheck
+ */
+public final class BacklogCheck {
+
+    private static final String[] COMMANDS = {
+            "HSBCOLOR 60,100,100;Dimmer 70;CT 250",  // 색 + 밝기 + CT (프롬프트 기본 형태)
+            "HSBCOLOR 210,80,60;Dimmer 35",
+            "HSBCOLOR 0,0,90;Dimmer 60;CT 420",     // 채도 0 → 백색 채널
+            "Dimmer 40;CT 370",
+            "HSBCOLOR 0,0,0;Dimmer 0;CT 500",       // OFF
+    };
+
+    public static void main(String[] args) throws Exception {
+        OkHttpClient client = new OkHttpClient();
+        System.out.println("command                                mode      resp(ms)  settle(ms)  executed  state");
+        for (String text : COMMANDS) {
+            LightCommand command = LightCommand.parse(text);
+            for (String mode : new String[]{"bare", "backlog", "compiled"}) {
+                try (TasmotaEmulator bulb = new TasmotaEmulator();
+                     LocalStandInServer server = new LocalStandInServer().setHandler(bulb).start()) {
+                    HttpUrl url;
+                    if (mode.equals("compiled")) {
+                        url = command.toUrl(server.getHostAndPort());
+                    } else {
+                        String cmnd = mode.equals("backlog") ? "Backlog " + command.toCommandString() : command.toCommandString();
+                        url = HttpUrl.get("http://" + server.getHostAndPort() + "/cm?cmnd="
+                                + URLEncoder.encode(cmnd, StandardCharsets.UTF_8));
+                    }
+                    long t0 = System.nanoTime();
+                    try (Response resp = client.newCall(new Request.Builder().url(url).get().build()).execute()) {
+                        resp.body().string();
+                    }
+                    long respMs = (System.nanoTime() - t0) / 1_000_000;
+                    while (bulb.getPendingCommandCount() > 0) Thread.sleep(5);
+                    long settleMs = Math.max(0, (bulb.getLastChangeNanos() - t0) / 1_000_000);
+                    System.out.println(String.format(Locale.US, "%-38s %-9s %8d  %10d  %8d  %s",
+                            text, mode, respMs, settleMs, bulb.getExecutedCommandCount(), bulb.stateJson()));
+                }
+            }
+        }
+        System.out.println();
+        System.out.println("compiled 형태:");
+        for (String text : COMMANDS) {
+            System.out.println("  " + text + "  →  " + TasmotaCommandCompiler.compile(LightCommand.parse(text)));
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.baiktown.sentilight;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 벤치마크 공용 입력 데이터
+ * - 실제 Gemini 응답/발화와 같은 모양과 길이의 문자열
+ * - TasmotaIpManager용 메모리 SharedPreferences
+ */
+final class BenchmarkFixtures {
+
+    /** 대표 발화 (캐시 키 정규화/오프라인 분류 입력) */
+    static final String[] MOODS = {
+            "오늘 너무 피곤해요ㅠㅠ",
+            "기분이 정말 좋아!!",
+            "회사에서 스트레스 받아서 짜증나",
+            "내일 시험이라 공부에 집중해야 해요",
+            "그냥 그래",
+            "비 오는 날이라 좀 우울하고 외로워요...",
+    };
+
+    /** 괄호 형식 응답 (generateContent 결과 텍스트) */
+    static final String BRACKET_REPLY =
+            "[COMMAND: HSBCOLOR 30,60,40;Dimmer 35;CT 450] [EXPLANATION: 따뜻하고 은은한 주황빛으로 피로를 풀어줍니다.]";
+
+    /** 공백/대소문자/순서가 흐트러진 응답 (정규식 정리 경로가 하는 일이 많은 경우) */
+    static final String MESSY_REPLY =
+            "네, 알겠습니다.\n[COMMAND:  hsbcolor 210, 50 ,60 ;  Dimmer 50 ; ct 350 ]\n[EXPLANATION: 잔잔한 푸른빛으로 마음을 차분히 감싸줍니다.]";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Gemini generateContent 응답 봉투
+     * @param candidates 후보 수 (두 번째 이후 후보는 GeminiResponseReader가 건너뛰는 부분)
+     * @param textRepeat 후보 텍스트 뒤에 덧붙일 설명 반복 횟수 (응답 크기 조절)
+     */
+    static String geminiResponse(int candidates, int textRepeat) {
+        StringBuilder text = new StringBuilder(BRACKET_REPLY);
+        for (int i = 0; i < textRepeat; i++) {
+            text.append(" 조명은 기분에 맞춰 천천히 바뀌며, 밝기와 색온도를 함께 낮춰 눈의 피로를 줄입니다.");
+        }
+        String escaped = text.toString().replace("\"", "\\\"");
+
+        StringBuilder sb = new StringBuilder("{\"candidates\":[");
+        for (int c = 0; c < candidates; c++) {
+            if (c > 0) sb.append(',');
+            sb.append("{\"content\":{\"parts\":[{\"text\":\"").append(escaped).append("\"}],\"role\":\"model\"},")
+                    .append("\"finishReason\":\"STOP\",\"index\":").append(c).append(',')
+                    .append("\"safetyRatings\":[")
+                    .append("{\"category\":\"HARM_CATEGORY_SEXUALLY_EXPLICIT\",\"probability\":\"NEGLIGIBLE\"},")
+                    .append("{\"category\":\"HARM_CATEGORY_HATE_SPEECH\",\"probability\":\"NEGLIGIBLE\"},")
+                    .append("{\"category\":\"HARM_CATEGORY_HARASSMENT\",\"probability\":\"NEGLIGIBLE\"},")
+                    .append("{\"category\":\"HARM_CATEGORY_DANGEROUS_CONTENT\",\"probability\":\"NEGLIGIBLE\"}],")
+                    .append("\"citationMetadata\":{\"citationSources\":[{\"startIndex\":0,\"endIndex\":42,\"uri\":\"https://example.com/lighting\"}]},")
+                    .append("\"avgLogprobs\":-0.1234}");
+        }
+        sb.append("],\"usageMetadata\":{\"promptTokenCount\":142,\"candidatesTokenCount\":")
+                .append(38 + textRepeat * 24).append(",\"totalTokenCount\":").append(180 + textRepeat * 24).append("},")
+                .append("\"modelVersion\":\"gemini-2.5-flash\"}");
+        return sb.toString();
+    }
+
+    /** IP 목록/구역이 미리 저장된 메모리 Context (TasmotaIpManager 입력) */
+    static Context contextWithIps(int ipCount) {
+        StringBuilder ips = new StringBuilder("[");
+        StringBuilder zones = new StringBuilder("{");
+        String[] zoneNames = {"거실", "침실", "주방", "서재"};
+        for (int i = 0; i < ipCount; i++) {
+            String ip = "192.168." + (i / 250) + "." + (10 + i % 250);
+            if (i > 0) {
+                ips.append(',');
+                zones.append(',');
+            }
+            ips.append('"').append(ip).append('"');
+            zones.append('"').append(ip).append("\":\"").append(zoneNames[i % zoneNames.length]).append('"');
+        }
+        ips.append(']');
+        zones.append('}');
+
+        // TasmotaIpManager.KEY_IP_LIST / KEY_IP_ZONES
+        MemoryPreferences prefs = new MemoryPreferences();
+        prefs.values.put("ipList", ips.toString());
+        prefs.values.put("ipZones", zones.toString());
+        return new Context() {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+
+            @Override
+            public SharedPreferences getSharedPreferences(String name, int mode) {
+                return prefs;
+            }
+        };
+    }
+
+    /** 저장은 즉시 반영, 조회는 HashMap (디스크 I/O 제외, JSON 파싱 비용만 측정) */
+    private static final class MemoryPreferences implements SharedPreferences {
+        final Map<String, String> values = new HashMap<>();
+
+        @Override
+        public String getString(String key, String defValue) {
+            String v = values.get(key);
+            return (v != null) ? v : defValue;
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                @Override
+                public Editor putString(String key, String value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public void apply() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.baiktown.sentilight;
+
+import android.graphics.Color;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 프레임 분량(4096색)의 색상 계산 (점수는 색 1개당 ns)
+ * - hsvToColorFloat: 기존 방식 (float[] 할당 + Color.HSVToColor, Skia와 같은 연산의 JVM 스텁)
+ * - colorEngineHsb / colorEngineCt / colorEngineContrast / colorEngineMix: ColorEngine 테이블 + 정수 연산
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ColorEngineBenchmark {
+
+    private static final int FRAME = 4096;
+
+    private final int[] hues = new int[FRAME];
+    private final int[] saturations = new int[FRAME];
+    private final int[] brightnesses = new int[FRAME];
+    private final int[] mireds = new int[FRAME];
+    private final int[] colors = new int[FRAME];
+    private final int[] out = new int[FRAME];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < FRAME; i++) {
+            hues[i] = random.nextInt(360);
+            saturations[i] = random.nextInt(101);
+            brightnesses[i] = random.nextInt(101);
+            mireds[i] = LightCommand.MIN_CT + random.nextInt(LightCommand.MAX_CT - LightCommand.MIN_CT + 1);
+            colors[i] = 0xFF000000 | random.nextInt(1 << 24);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public int[] hsvToColorFloat() {
+        for (int i = 0; i < FRAME; i++) {
+            out[i] = Color.HSVToColor(new float[]{hues[i], saturations[i] / 100f, brightnesses[i] / 100f});
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public int[] colorEngineHsb() {
+        for (int i = 0; i < FRAME; i++) {
+            out[i] = ColorEngine.hsbToRgb(hues[i], saturations[i], brightnesses[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public int[] colorEngineCt() {
+        for (int i = 0; i < FRAME; i++) {
+            out[i] = ColorEngine.ctToRgb(mireds[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public int[] colorEngineContrast() {
+        for (int i = 0; i < FRAME; i++) {
+            out[i] = ColorEngine.contrastColor(colors[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public int[] colorEngineMix() {
+        for (int i = 0; i < FRAME; i++) {
+            out[i] = ColorEngine.mix(colors[i], colors[FRAME - 1 - i], i & 0xFF);
+        }
+        return out;
+    }
+}
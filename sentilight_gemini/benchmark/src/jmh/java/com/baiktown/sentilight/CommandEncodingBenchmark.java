@@ -0,0 +1,58 @@
+package com.baiktown.sentilight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+
+/**
+ * 전구 N대 fan-out의 요청 URL 생성
+ * - legacyPerIp: 명령 문자열 URL 인코딩 + IP마다 "http://ip/cm?cmnd=..." 문자열 조립 후 HttpUrl 파싱
+ * - cachedTemplate: LightCommand에 캐시된 HttpUrl 템플릿에서 호스트만 교체
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CommandEncodingBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int ipCount;
+
+    private String[] ips;
+    private LightCommand command;
+    private String rawCommand;
+
+    @Setup
+    public void setUp() {
+        ips = new String[ipCount];
+        for (int i = 0; i < ipCount; i++) ips[i] = "192.168.0." + (50 + i);
+        command = LightCommand.fromResponse(BenchmarkFixtures.BRACKET_REPLY);
+        rawCommand = command.toCommandString();
+    }
+
+    @Benchmark
+    public void legacyPerIp(Blackhole bh) {
+        String encoded = URLEncoder.encode(rawCommand, StandardCharsets.UTF_8);
+        for (String ip : ips) {
+            bh.consume(HttpUrl.get("http://" + ip + "/cm?cmnd=" + encoded));
+        }
+    }
+
+    @Benchmark
+    public void cachedTemplate(Blackhole bh) {
+        for (String ip : ips) {
+            bh.consume(command.toUrl(ip));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 전구별 전송 확인(ack) 집계 확인 (문제 있는 전구가 섞인 에뮬레이터 대상 단발 실행)
+ * - 정상 전구 10대 + 인증 경고 / HTTP 500 / 응답 지연(예산 초과) / 꺼진 전구(연결 거부) / JSON이 아닌 응답 각 1대
+ * - send()가 바로 반환되는 시간, 첫 ack와 마지막 ack 도착 시간, 전구별 판정을 출력
+ * - 비교: 기존 판정(응답이 "ERROR"로 시작하지 않으면 성공)으로 같은 응답을 셌을 때의 성공 수
+ * 실행: ./gradlew :benchmark:deliveryCheck
+ */
+public final class DeliveryCheck {
+
+    private static final int HEALTHY = 10;
+    private static final long DEADLINE_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        List<LocalStandInServer> servers = new ArrayList<>();
+        List<TasmotaEmulator> bulbs = new ArrayList<>();
+        List<String> hosts = new ArrayList<>();
+        for (int i = 0; i < HEALTHY; i++) {
+            TasmotaEmulator bulb = new TasmotaEmulator();
+            bulbs.add(bulb);
+            hosts.add(start(servers, new LocalStandInServer().setHandler(bulb).setLatency(20, 30)));
+        }
+        hosts.add(start(servers, new LocalStandInServer().setHandler((m, t, b) ->
+                LocalStandInServer.Reply.json(200, "{\"WARNING\":\"Need user=<username>&password=<password>\"}"))));
+        hosts.add(start(servers, new LocalStandInServer().setHandler((m, t, b) ->
+                LocalStandInServer.Reply.json(500, "{\"error\":\"internal\"}"))));
+        hosts.add(start(servers, new LocalStandInServer().setHandler((m, t, b) ->
+                LocalStandInServer.Reply.json(200, "{\"POWER\":\"ON\"}")).setLatency(3 * DEADLINE_MS, 0)));
+        hosts.add("127.0.0.1:" + unusedPort());
+        hosts.add(start(servers, new LocalStandInServer().setHandler((m, t, b) ->
+                new LocalStandInServer.Reply(200, "text/html", java.util.Collections.singletonList("<html>Tasmota</html>"), 0))));
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        TasmotaFanOut fanOut = new TasmotaFanOut(new OkHttpClient(), scheduler,
+                TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, DEADLINE_MS, null, null);
+        LightCommand command = LightCommand.fromResponse(BenchmarkFixtures.BRACKET_REPLY);
+
+        final long t0 = System.nanoTime();
+        final long[] firstAckMs = {-1};
+        CompletableFuture<DeliveryAggregator.Result> future = fanOut.send(command, hosts, (ack, done, total) -> {
+            long at = (System.nanoTime() - t0) / 1_000_000;
+            synchronized (firstAckMs) {
+                if (firstAckMs[0] < 0) firstAckMs[0] = at;
+            }
+            System.out.println(String.format(Locale.US, "  +%5dms  %2d/%d  %s", at, done, total, ack));
+        });
+        long returnedMs = (System.nanoTime() - t0) / 1_000_000;
+        DeliveryAggregator.Result result = future.get();
+        long finalMs = (System.nanoTime() - t0) / 1_000_000;
+
+        // 기존 판정: 예외면 "ERROR: ..." 문자열, 아니면 본문을 그대로 받아 "ERROR" 접두사만 검사
+        int legacyOk = 0;
+        for (DeliveryAggregator.Ack ack : result.acks) {
+            boolean gotBody = ack.status == DeliveryAggregator.Status.OK || ack.status == DeliveryAggregator.Status.REJECTED;
+            if (gotBody) legacyOk++;
+        }
+
+        System.out.println();
+        System.out.println("send() 반환: " + returnedMs + "ms, 첫 ack: " + firstAckMs[0] + "ms, 최종 집계: " + finalMs + "ms");
+        System.out.println("최종: " + result);
+        System.out.println("기존 판정이었다면 성공: " + legacyOk + "/" + result.total
+                + " (JSON 판정: " + result.succeeded + "/" + result.total + ")");
+
+        for (LocalStandInServer server : servers) server.close();
+        for (TasmotaEmulator bulb : bulbs) bulb.close();
+        scheduler.shutdownNow();
+        System.exit(0);
+    }
+
+    private static String start(List<LocalStandInServer> servers, LocalStandInServer server) throws IOException {
+        servers.add(server.start());
+        return server.getHostAndPort();
+    }
+
+    /** 바인딩했다 바로 닫은 포트 (꺼진 전구처럼 연결 거부) */
+    private static int unusedPort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.baiktown.sentilight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * delta 전송(BulbStateTable) 효과 측정 (TasmotaEmulator 전구 N대 대상 단발 실행)
+ * - full: 상태 표 없이 매번 모든 전구에 전체 명령
+ * - delta: 시작 시 State 조회(poll) 1회 후, 전구별로 바뀐 필드만 보내고 이미 목표 상태인 전구는 생략
+ * 전구의 절반은 처음부터 첫 프리셋 상태로 두고, 같은 프리셋 반복/밝기만 변경/백색 전환 순서로 보냅니다.
+ * 출력: 단계별 HTTP 요청 수, 전구가 실행한 명령 수, 모든 전구가 목표 상태에 도달했는지
+ * 실행: ./gradlew :benchmark:deltaDispatchCheck
+ */
+public final class DeltaDispatchCheck {
+
+    private static final int BULBS = 100;
+
+    private static final String[] SEQUENCE = {
+            "HSBCOLOR 30,80,70;Dimmer 60;CT 300",  // 절반은 이미 이 상태
+            "HSBCOLOR 30,80,70;Dimmer 60;CT 300",  // 같은 프리셋 반복
+            "HSBCOLOR 30,80,70;Dimmer 40;CT 300",  // 밝기만 변경
+            "HSBCOLOR 0,0,80;Dimmer 50;CT 420",    // 백색 전환
+            "HSBCOLOR 0,0,80;Dimmer 50;CT 370",    // 색온도만 변경
+            "HSBCOLOR 0,0,0;Dimmer 0;CT 500",      // 끄기
+            "HSBCOLOR 0,0,0;Dimmer 0;CT 500",
+    };
+
+    public static void main(String[] args) throws Exception {
+        OkHttpClient client = new OkHttpClient();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        System.out.println("mode   step  command                               requests  executed  skipped  at-target");
+        for (String mode : new String[]{"full", "delta"}) {
+            List<TasmotaEmulator> bulbs = new ArrayList<>();
+            List<LocalStandInServer> servers = new ArrayList<>();
+            List<String> hosts = new ArrayList<>();
+            for (int i = 0; i < BULBS; i++) {
+                TasmotaEmulator bulb = new TasmotaEmulator();
+                if (i % 2 == 0) bulb.handle("GET", "/cm?cmnd=HSBColor+30%2C80%2C60", "");
+                LocalStandInServer server = new LocalStandInServer().setHandler(bulb).start();
+                bulbs.add(bulb);
+                servers.add(server);
+                hosts.add(server.getHostAndPort());
+            }
+
+            BulbStateTable table = mode.equals("delta") ? new BulbStateTable(60_000) : null;
+            TasmotaFanOut fanOut = new TasmotaFanOut(client, scheduler, 16, 2, 10_000, table, null);
+            long totalRequests = 0, totalExecuted = 0;
+            if (table != null) {
+                fanOut.poll(hosts).get();
+                long polled = requests(servers);
+                totalRequests += polled;
+                System.out.println(String.format(Locale.US, "%-6s %4s  %-36s  %8d", mode, "-", "(State 조회)", polled));
+            }
+            for (int step = 0; step < SEQUENCE.length; step++) {
+                LightCommand command = LightCommand.parse(SEQUENCE[step]);
+                long before = requests(servers), executedBefore = executed(bulbs);
+                DeliveryAggregator.Result result = fanOut.send(command, hosts).get();
+                long sent = requests(servers) - before, ran = executed(bulbs) - executedBefore;
+                totalRequests += sent;
+                totalExecuted += ran;
+
+                BulbStateTable.State target = TasmotaCommandCompiler.targetState(command, null);
+                int atTarget = 0;
+                for (TasmotaEmulator bulb : bulbs) {
+                    BulbStateTable.State actual = BulbStateTable.State.fromTasmotaJson(bulb.stateJson());
+                    if (target.equals(actual)) atTarget++;
+                }
+                System.out.println(String.format(Locale.US, "%-6s %4d  %-36s  %8d  %8d  %7d  %d/%d",
+                        mode, step + 1, SEQUENCE[step], sent, ran, result.skipped, atTarget, BULBS));
+            }
+            System.out.println(String.format(Locale.US, "%-6s 합계 요청 %d, 실행 명령 %d%n", mode, totalRequests, totalExecuted));
+            for (LocalStandInServer server : servers) server.close();
+            for (TasmotaEmulator bulb : bulbs) bulb.close();
+        }
+        scheduler.shutdownNow();
+        System.exit(0);
+    }
+
+    private static long requests(List<LocalStandInServer> servers) {
+        long n = 0;
+        for (LocalStandInServer s : servers) n += s.getRequestCount();
+        return n;
+    }
+
+    private static long executed(List<TasmotaEmulator> bulbs) {
+        long n = 0;
+        for (TasmotaEmulator b : bulbs) n += b.getExecutedCommandCount();
+        return n;
+    }
+}
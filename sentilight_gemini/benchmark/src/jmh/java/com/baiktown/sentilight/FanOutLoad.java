@@ -0,0 +1,120 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 전구 N대 fan-out 부하 측정 (JMH가 아닌 단발 실행: 스레드 수와 벽시계 시간을 함께 봐야 하므로)
+ * - 대상: 전구마다 LocalStandInServer 1개 (같은 Tasmota 흉내 응답, 응답 지연 20ms + 지터 10ms)
+ * - legacy: 기존 방식 (IP마다 newCachedThreadPool 작업 + 블로킹 execute + Thread.sleep 재시도)
+ * - enqueue-16 / enqueue-64: TasmotaFanOut (전용 Dispatcher, 동시 16건(기본값)/64건, 완료 집계기)
+ * 스레드 수는 실행마다 새로 만든 풀의 getLargestPoolSize (동시에 존재한 작업 스레드 최댓값)
+ * OkHttp의 호스트당 동시 요청 제한은 포트를 구분하지 않아 127.0.0.1의 에뮬레이터가 모두 한 호스트로 묶이므로 전체 제한과 같게 둡니다.
+ * 실행: ./gradlew :benchmark:fanOutLoad
+ */
+public final class FanOutLoad {
+
+    private static final int[] BULBS = {10, 100, 1000};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        // 전구마다 주소가 달라야 전구별 레인/동시 요청 제한이 실제처럼 동작
+        List<LocalStandInServer> emulators = new ArrayList<>();
+        try {
+            for (int i = 0; i < BULBS[BULBS.length - 1]; i++) {
+                emulators.add(new LocalStandInServer()
+                        .setHandler((method, target, body) ->
+                                LocalStandInServer.Reply.json(200, "{\"POWER\":\"ON\",\"Dimmer\":35,\"HSBColor\":\"30,60,40\",\"CT\":450}"))
+                        .setLatency(20, 10)
+                        .start());
+            }
+            LightCommand command = LightCommand.fromResponse(BenchmarkFixtures.BRACKET_REPLY);
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            OkHttpClient client = new OkHttpClient(); // 연결 풀 공유 (앱과 같은 구성)
+
+            System.out.println("mode        bulbs  wall(ms)  threads  ok");
+            for (int bulbs : BULBS) {
+                List<String> hosts = new ArrayList<>();
+                for (int i = 0; i < bulbs; i++) hosts.add(emulators.get(i).getHostAndPort());
+                for (int round = 0; round < ROUNDS; round++) {
+                    report("legacy", bulbs, runLegacy(client, command, hosts));
+                    report("enqueue-16", bulbs, runEnqueue(new TasmotaFanOut(client, scheduler, 16, 16, 60_000, null, null), command, hosts));
+                    report("enqueue-64", bulbs, runEnqueue(new TasmotaFanOut(client, scheduler, 64, 64, 60_000, null, null), command, hosts));
+                }
+            }
+            scheduler.shutdownNow();
+        } finally {
+            for (LocalStandInServer emulator : emulators) emulator.close();
+        }
+        System.exit(0);
+    }
+
+    private static void report(String mode, int bulbs, long[] r) {
+        System.out.println(String.format(Locale.US, "%-11s %5d  %8d  %7d  %d", mode, bulbs, r[0], r[1], r[2]));
+    }
+
+    /** @return {wall ms, 최대 작업 스레드 수, 성공 수} */
+    private static long[] runEnqueue(TasmotaFanOut fanOut, LightCommand command, List<String> hosts) throws Exception {
+        long t0 = System.nanoTime();
+        DeliveryAggregator.Result result = fanOut.send(command, hosts).get();
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        return new long[]{wall, fanOut.largestThreadCount(), result.succeeded};
+    }
+
+    private static long[] runLegacy(OkHttpClient client, LightCommand command, List<String> hosts) throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        CountDownLatch done = new CountDownLatch(hosts.size());
+        AtomicInteger ok = new AtomicInteger();
+        try {
+            long t0 = System.nanoTime();
+            for (String host : hosts) {
+                String url = command.toUrl(host).toString();
+                executor.execute(() -> {
+                    try {
+                        legacyExecute(client, url);
+                        ok.incrementAndGet();
+                    } catch (IOException e) {
+                        // 실패 수는 ok에서 빠진 값으로 확인
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+            return new long[]{wall, executor.getLargestPoolSize(), ok.get()};
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** 기존 executeTasmotaRequest (블로킹 execute, 실패 시 200ms 잠든 뒤 1회 재시도) */
+    private static String legacyExecute(OkHttpClient client, String url) throws IOException {
+        Request req = new Request.Builder().url(url).get().build();
+        IOException last = null;
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try (Response resp = client.newCall(req).execute()) {
+                return (resp.body() != null) ? resp.body().string() : "";
+            } catch (IOException e) {
+                last = e;
+                try {
+                    Thread.sleep(200L);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+        throw last;
+    }
+}
@@ -0,0 +1,46 @@
+package com.baiktown.sentilight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TasmotaIpManager 목록 로드 (발화마다 SharedPreferences의 JSON을 다시 파싱)
+ * - getIpList: ipList JSON 배열 → List
+ * - getZoneMap: ipList + ipZones JSON 객체 → 구역별 묶음
+ * SharedPreferences는 메모리 구현이므로 디스크 I/O는 포함하지 않습니다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class IpListLoadBenchmark {
+
+    @Param({"5", "50"})
+    public int ipCount;
+
+    private TasmotaIpManager ipManager;
+
+    @Setup
+    public void setUp() {
+        ipManager = new TasmotaIpManager(BenchmarkFixtures.contextWithIps(ipCount));
+    }
+
+    @Benchmark
+    public List<String> getIpList() {
+        return ipManager.getIpList();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getZoneMap() {
+        return ipManager.getZoneMap();
+    }
+}
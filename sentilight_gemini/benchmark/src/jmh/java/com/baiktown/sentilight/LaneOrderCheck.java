@@ -0,0 +1,120 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 연속 명령의 전구별 순서/합치기 확인 (TasmotaEmulator 전구 N대 대상 단발 실행)
+ * - 전구는 요청마다 실행 전 0~60ms 무작위 지연 (연결마다 도착 순서가 바뀔 수 있음)
+ * - 한 라운드에 색이 다른 명령 5개를 5ms 간격으로 모든 전구에 보냄 (빠르게 이어진 발화)
+ * - unordered: 명령마다 IP별 요청을 바로 보냄 (레인 이전 방식)
+ * - lanes: TasmotaFanOut 전구별 레인 (전송 중 1 + 대기 1, 대기 명령은 최신으로 교체)
+ * 출력: 전구가 받은 요청 수, 마지막 명령 색으로 끝난 전구 수
+ * OkHttp의 호스트당 동시 요청 제한은 포트를 구분하지 않으므로(127.0.0.1 하나로 묶임) 두 방식 모두 제한을 전체 제한과 같게 둡니다.
+ * 실행: ./gradlew :benchmark:laneOrderCheck
+ */
+public final class LaneOrderCheck {
+
+    private static final int BULBS = 20;
+    private static final int ROUNDS = 10;
+    private static final int[] HUES = {0, 60, 120, 180, 240};
+
+    public static void main(String[] args) throws Exception {
+        Dispatcher unbounded = new Dispatcher();
+        unbounded.setMaxRequestsPerHost(unbounded.getMaxRequests());
+        OkHttpClient client = new OkHttpClient.Builder().dispatcher(unbounded).build();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<TasmotaEmulator> bulbs = new ArrayList<>();
+        List<LocalStandInServer> servers = new ArrayList<>();
+        List<String> hosts = new ArrayList<>();
+        for (int i = 0; i < BULBS; i++) {
+            TasmotaEmulator bulb = new TasmotaEmulator().setApplyJitter(60);
+            LocalStandInServer server = new LocalStandInServer().setHandler(bulb).setLatency(10, 0).start();
+            bulbs.add(bulb);
+            servers.add(server);
+            hosts.add(server.getHostAndPort());
+        }
+        TasmotaFanOut fanOut = new TasmotaFanOut(client, scheduler,
+                TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, TasmotaFanOut.DEFAULT_MAX_IN_FLIGHT, 10_000, null, null);
+        LightCommand last = command(HUES[HUES.length - 1]);
+
+        System.out.println("mode        round  requests  latest-wins  superseded");
+        for (String mode : new String[]{"unordered", "lanes"}) {
+            long totalRequests = 0, totalWins = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long before = requests(servers);
+                List<CompletableFuture<?>> all = new ArrayList<>();
+                int superseded = 0;
+                for (int hue : HUES) {
+                    LightCommand command = command(hue);
+                    if (mode.equals("lanes")) {
+                        all.add(fanOut.send(command, hosts));
+                    } else {
+                        for (String host : hosts) all.add(enqueue(client, command, host));
+                    }
+                    Thread.sleep(5);
+                }
+                for (CompletableFuture<?> f : all) {
+                    Object r = f.get();
+                    if (r instanceof DeliveryAggregator.Result) superseded += ((DeliveryAggregator.Result) r).superseded;
+                }
+                long sent = requests(servers) - before;
+                int wins = 0;
+                for (TasmotaEmulator bulb : bulbs) {
+                    if (last.equals(bulb.currentCommand())) wins++;
+                }
+                totalRequests += sent;
+                totalWins += wins;
+                System.out.println(String.format(Locale.US, "%-11s %5d  %8d  %6d/%d  %10d",
+                        mode, round + 1, sent, wins, BULBS, superseded));
+            }
+            System.out.println(String.format(Locale.US, "%-11s 합계 요청 %d, 마지막 색으로 끝남 %d/%d%n",
+                    mode, totalRequests, totalWins, BULBS * ROUNDS));
+        }
+        for (LocalStandInServer server : servers) server.close();
+        for (TasmotaEmulator bulb : bulbs) bulb.close();
+        scheduler.shutdownNow();
+        System.exit(0);
+    }
+
+    /** 에뮬레이터 상태 표현(HSB 밝기 = Dimmer)과 같은 형태의 명령 */
+    private static LightCommand command(int hue) {
+        return LightCommand.parse("HSBCOLOR " + hue + ",90,70;Dimmer 70");
+    }
+
+    private static CompletableFuture<String> enqueue(OkHttpClient client, LightCommand command, String host) {
+        CompletableFuture<String> f = new CompletableFuture<>();
+        client.newCall(new Request.Builder().url(command.toUrl(host)).get().build()).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                try (Response r = response) {
+                    f.complete(r.body().string());
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                f.completeExceptionally(e);
+            }
+        });
+        return f;
+    }
+
+    private static long requests(List<LocalStandInServer> servers) {
+        long n = 0;
+        for (LocalStandInServer s : servers) n += s.getRequestCount();
+        return n;
+    }
+}
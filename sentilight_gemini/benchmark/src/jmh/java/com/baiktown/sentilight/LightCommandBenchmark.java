@@ -0,0 +1,91 @@
+package com.baiktown.sentilight;
+
+import android.graphics.Color;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 응답 → 명령 파싱, HSB → RGB 변환
+ * - legacy*: 기존 정규식 경로 (extractCommand + convertHsbToRgb, 호출마다 Pattern.compile)
+ * - lightCommand*: LightCommand 단일 패스 스캐너 (인턴된 인스턴스의 캐시 포함)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class LightCommandBenchmark {
+
+    @Param({"clean", "messy"})
+    public String reply;
+
+    private String response;
+
+    @Setup
+    public void setUp() {
+        response = "clean".equals(reply) ? BenchmarkFixtures.BRACKET_REPLY : BenchmarkFixtures.MESSY_REPLY;
+    }
+
+    @Benchmark
+    public String legacyExtractCommand() {
+        return legacyExtractCommand(response);
+    }
+
+    @Benchmark
+    public LightCommand lightCommandParse() {
+        return LightCommand.fromResponse(response);
+    }
+
+    @Benchmark
+    public int legacyParseToRgb() {
+        return legacyConvertHsbToRgb(legacyExtractCommand(response));
+    }
+
+    @Benchmark
+    public int lightCommandParseToRgb() {
+        return LightCommand.fromResponse(response).toRgb();
+    }
+
+    @Benchmark
+    public String lightCommandToCommandString() {
+        return LightCommand.fromResponse(response).toCommandString();
+    }
+
+    // -------------------- 기존 구현 (비교 기준) --------------------
+
+    static String legacyExtractCommand(String fullResponse) {
+        Pattern pattern = Pattern.compile("\\[COMMAND:\\s*(.*?)\\]", Pattern.DOTALL);
+        Matcher matcher = pattern.matcher(fullResponse);
+        if (matcher.find() && matcher.group(1) != null) {
+            String raw = matcher.group(1).trim();
+            String cleaned = raw.replaceAll("\\s+", " ");
+            cleaned = cleaned.replaceAll("[^A-Za-z0-9,;\\s]", "");
+            if (!cleaned.toUpperCase().contains("HSBCOLOR")) {
+                return "HSBCOLOR 60,100,100;Dimmer 70;CT 250";
+            }
+            return cleaned;
+        }
+        return "HSBCOLOR 0,0,0;Dimmer 0;CT 500";
+    }
+
+    static int legacyConvertHsbToRgb(String hsbCommand) {
+        Pattern pattern = Pattern.compile("HSBCOLOR\\s*(\\d+),(\\d+),(\\d+)", Pattern.CASE_INSENSITIVE);
+        Matcher matcher = pattern.matcher(hsbCommand);
+        if (matcher.find()) {
+            float h = Float.parseFloat(matcher.group(1));
+            float s = Float.parseFloat(matcher.group(2)) / 100f;
+            float v = Float.parseFloat(matcher.group(3)) / 100f;
+            return Color.HSVToColor(new float[]{h, s, v});
+        }
+        return Color.parseColor("#181B1C");
+    }
+}
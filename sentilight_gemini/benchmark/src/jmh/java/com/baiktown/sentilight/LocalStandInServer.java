@@ -0,0 +1,308 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 네트워크 없이 해석기/파이프라인을 벤치마크하기 위한 localhost 대역(stand-in) HTTP 서버
+ * - 경로 조각(예: ":generateContent", ":streamGenerateContent", "/chat/completions")별로 녹화된 응답을 재생
+ * - 응답 전 지연(기본 + 무작위 지터)과 SSE 조각 사이 지연을 설정할 수 있음
+ * - 새 연결의 첫 요청에만 더하는 지연으로 TCP/TLS 핸드셰이크 비용을 흉내낼 수 있음 (연결 재사용 효과 측정용)
+ * - HTTP/1.1 keep-alive 지원 (스트리밍 응답만 연결 종료로 본문 끝을 알림)
+ * java.net 소켓만 사용합니다. 벤치마크 모듈 전용이며 앱에는 포함되지 않습니다.
+ */
+public class LocalStandInServer implements Closeable {
+
+    /** 요청을 받아 응답을 결정하는 처리기 (녹화 재생 대신 직접 구현 가능, 여러 스레드에서 호출됨) */
+    public interface Handler {
+        Reply handle(String method, String target, String body);
+    }
+
+    /** 재생할 응답 1건 */
+    public static final class Reply {
+        final int status;
+        final String contentType;
+        final List<String> chunks;   // 2개 이상이면 조각 사이에 chunkDelayMs 지연 후 연결 종료
+        final long chunkDelayMs;
+
+        public Reply(int status, String contentType, List<String> chunks, long chunkDelayMs) {
+            this.status = status;
+            this.contentType = contentType;
+            this.chunks = chunks;
+            this.chunkDelayMs = chunkDelayMs;
+        }
+
+        public static Reply json(int status, String body) {
+            return new Reply(status, "application/json; charset=utf-8", Collections.singletonList(body), 0);
+        }
+
+        /** Gemini generateContent 응답 봉투에 text를 담은 응답 */
+        public static Reply geminiText(String text) {
+            return json(200, geminiEnvelope(text));
+        }
+
+        /** Gemini streamGenerateContent?alt=sse 응답: 텍스트 조각마다 "data: {...}" 이벤트 1개 */
+        public static Reply geminiStream(long chunkDelayMs, String... textChunks) {
+            String[] events = new String[textChunks.length];
+            for (int i = 0; i < textChunks.length; i++) {
+                events[i] = "data: " + geminiEnvelope(textChunks[i]) + "\r\n\r\n";
+            }
+            return new Reply(200, "text/event-stream", Arrays.asList(events), chunkDelayMs);
+        }
+
+        /** OpenAI 호환 chat/completions 응답 */
+        public static Reply openAiText(String text) {
+            JsonObject message = new JsonObject();
+            message.addProperty("role", "assistant");
+            message.addProperty("content", text);
+            JsonObject choice = new JsonObject();
+            choice.addProperty("index", 0);
+            choice.add("message", message);
+            JsonArray choices = new JsonArray();
+            choices.add(choice);
+            JsonObject root = new JsonObject();
+            root.add("choices", choices);
+            return json(200, GSON.toJson(root));
+        }
+
+        private static String geminiEnvelope(String text) {
+            JsonObject part = new JsonObject();
+            part.addProperty("text", text);
+            JsonArray parts = new JsonArray();
+            parts.add(part);
+            JsonObject content = new JsonObject();
+            content.add("parts", parts);
+            content.addProperty("role", "model");
+            JsonObject candidate = new JsonObject();
+            candidate.add("content", content);
+            JsonArray candidates = new JsonArray();
+            candidates.add(candidate);
+            JsonObject root = new JsonObject();
+            root.add("candidates", candidates);
+            return GSON.toJson(root);
+        }
+    }
+
+    private static final Gson GSON = new Gson();
+    private static final Reply NOT_FOUND = Reply.json(404, "{\"error\":\"no recording\"}");
+
+    private final Map<String, Reply> recordings = new ConcurrentHashMap<>();
+    private volatile Handler handler = this::replayRecording;
+    private volatile long latencyMs = 0;
+    private volatile long jitterMs = 0;
+    private volatile long connectionSetupMs = 0;
+    private final Random random = new Random();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+
+    // -------------------- 설정 --------------------
+
+    /** 요청 경로(쿼리 제외)에 pathFragment가 포함되면 reply를 재생합니다. (여러 개가 맞으면 가장 긴 조각 우선) */
+    public LocalStandInServer record(String pathFragment, Reply reply) {
+        recordings.put(pathFragment, reply);
+        return this;
+    }
+
+    /** 녹화 재생 대신 사용할 처리기 (null이면 녹화 재생으로 복원) */
+    public LocalStandInServer setHandler(Handler handler) {
+        this.handler = (handler != null) ? handler : this::replayRecording;
+        return this;
+    }
+
+    /** 응답 헤더 전 지연: latencyMs + [0, jitterMs) 무작위 */
+    public LocalStandInServer setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+        return this;
+    }
+
+    /** 새 연결의 첫 요청에만 더하는 지연 (TCP/TLS 핸드셰이크 왕복 흉내, keep-alive로 재사용된 요청은 지연 없음) */
+    public LocalStandInServer setConnectionSetupDelay(long connectionSetupMs) {
+        this.connectionSetupMs = Math.max(0, connectionSetupMs);
+        return this;
+    }
+
+    // -------------------- 수명 주기 --------------------
+
+    /** 127.0.0.1의 빈 포트에 바인딩하고 요청 수신을 시작합니다. */
+    public synchronized LocalStandInServer start() throws IOException {
+        if (serverSocket != null) return this;
+        serverSocket = new ServerSocket(0, 512, InetAddress.getByName("127.0.0.1"));
+        workers = Executors.newCachedThreadPool();
+        final ServerSocket ss = serverSocket;
+        workers.execute(() -> {
+            while (!ss.isClosed()) {
+                try {
+                    Socket socket = ss.accept();
+                    workers.execute(() -> serveConnection(socket));
+                } catch (IOException e) {
+                    // close() 시 accept가 깨어나며 종료
+                }
+            }
+        });
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** 예: "http://127.0.0.1:54321/" */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort() + "/";
+    }
+
+    /** 전구 IP 자리에 넣을 수 있는 "127.0.0.1:포트" 형식 주소 */
+    public String getHostAndPort() {
+        return "127.0.0.1:" + getPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /** 지금까지 받은 연결 수 */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverSocket == null) return;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        workers.shutdownNow();
+        serverSocket = null;
+    }
+
+    // -------------------- 요청 처리 --------------------
+
+    private Reply replayRecording(String method, String target, String body) {
+        int q = target.indexOf('?');
+        String path = (q >= 0) ? target.substring(0, q) : target;
+        Reply best = null;
+        int bestLength = -1;
+        for (Map.Entry<String, Reply> e : recordings.entrySet()) {
+            if (path.contains(e.getKey()) && e.getKey().length() > bestLength) {
+                best = e.getValue();
+                bestLength = e.getKey().length();
+            }
+        }
+        return (best != null) ? best : NOT_FOUND;
+    }
+
+    private void serveConnection(Socket socket) {
+        connectionCount.incrementAndGet();
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            boolean firstRequest = true;
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) return;
+
+                int contentLength = 0;
+                boolean clientClose = false;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    String lower = header.toLowerCase(Locale.ROOT);
+                    if (lower.startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(header.substring(15).trim());
+                    } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                        clientClose = true;
+                    }
+                }
+                byte[] body = new byte[contentLength];
+                int read = 0;
+                while (read < contentLength) {
+                    int n = in.read(body, read, contentLength - read);
+                    if (n < 0) return;
+                    read += n;
+                }
+
+                String[] parts = requestLine.split(" ");
+                String method = parts[0];
+                String target = (parts.length > 1) ? parts[1] : "/";
+                requestCount.incrementAndGet();
+
+                Reply reply = handler.handle(method, target, new String(body, StandardCharsets.UTF_8));
+                if (firstRequest) {
+                    sleepQuietly(connectionSetupMs);
+                    firstRequest = false;
+                }
+                sleepQuietly(latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0));
+
+                boolean streaming = reply.chunks.size() > 1;
+                StringBuilder head = new StringBuilder()
+                        .append("HTTP/1.1 ").append(reply.status).append(reply.status < 400 ? " OK" : " ERROR").append("\r\n")
+                        .append("Content-Type: ").append(reply.contentType).append("\r\n");
+                if (streaming || clientClose) {
+                    head.append("Connection: close\r\n");
+                }
+                if (!streaming) {
+                    head.append("Content-Length: ")
+                            .append(reply.chunks.get(0).getBytes(StandardCharsets.UTF_8).length).append("\r\n");
+                }
+                head.append("\r\n");
+                out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+
+                for (int i = 0; i < reply.chunks.size(); i++) {
+                    if (i > 0) sleepQuietly(reply.chunkDelayMs);
+                    out.write(reply.chunks.get(i).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+                if (streaming || clientClose) return;
+            }
+        } catch (IOException | RuntimeException e) {
+            // 클라이언트 취소/연결 종료는 정상 상황
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') break;
+            if (c != '\r') line.write(c);
+        }
+        if (c == -1 && line.size() == 0) return null;
+        return line.toString("UTF-8");
+    }
+
+    private static void sleepQuietly(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
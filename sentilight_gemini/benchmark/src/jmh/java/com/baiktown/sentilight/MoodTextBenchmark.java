@@ -0,0 +1,41 @@
+package com.baiktown.sentilight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 발화 1건의 로컬 처리 (네트워크 전에 항상 실행되는 경로)
+ * - normalize: 응답 캐시 키 정규화 (MoodResponseCache.normalize)
+ * - classify: 오프라인 기분 분류기
+ * 대표 발화를 돌아가며 사용합니다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MoodTextBenchmark {
+
+    private final OfflineMoodClassifier classifier = new OfflineMoodClassifier();
+    private int next;
+
+    private String nextMood() {
+        String mood = BenchmarkFixtures.MOODS[next];
+        next = (next + 1) % BenchmarkFixtures.MOODS.length;
+        return mood;
+    }
+
+    @Benchmark
+    public String normalize() {
+        return MoodResponseCache.normalize(nextMood());
+    }
+
+    @Benchmark
+    public OfflineMoodClassifier.Result classify() {
+        return classifier.classify(nextMood());
+    }
+}
@@ -0,0 +1,77 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * Gemini 요청 본문 생성 (프롬프트 조립 + JSON 직렬화 + sink 쓰기까지)
+ * - legacyJsonTree: 프롬프트 문자열 연결 → JsonObject/JsonArray 트리 → gson.toJson → RequestBody.create
+ * - template: GeminiRequestTemplate (고정부는 미리 직렬화된 바이트, 사용자 문장만 이스케이프)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RequestBodyBenchmark {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final Gson gson = new Gson();
+    private final Buffer sink = new Buffer();
+    private GeminiRequestTemplate template;
+    private String userInput;
+
+    @Setup
+    public void setUp() {
+        HttpUrl url = HttpUrl.get("https://generativelanguage.googleapis.com/v1/models/gemini-2.5-flash:generateContent?key=bench");
+        template = new GeminiRequestTemplate(url, MoodPrompts.PREFIX, MoodPrompts.BRACKET_SUFFIX, null);
+        userInput = BenchmarkFixtures.MOODS[5];
+    }
+
+    @Benchmark
+    public long legacyJsonTree() throws IOException {
+        String prompt = MoodPrompts.PREFIX + userInput + MoodPrompts.BRACKET_SUFFIX;
+
+        JsonObject part = new JsonObject();
+        part.addProperty("text", prompt);
+        JsonArray contentsArray = new JsonArray();
+        JsonObject content = new JsonObject();
+        content.addProperty("role", "user");
+        JsonArray partsArray = new JsonArray();
+        partsArray.add(part);
+        content.add("parts", partsArray);
+        contentsArray.add(content);
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("contents", contentsArray);
+
+        return write(RequestBody.create(gson.toJson(requestBody), JSON));
+    }
+
+    @Benchmark
+    public long template() throws IOException {
+        return write(template.body(userInput));
+    }
+
+    private long write(RequestBody body) throws IOException {
+        body.writeTo(sink);
+        long size = sink.size();
+        sink.clear();
+        return size;
+    }
+}
@@ -0,0 +1,64 @@
+package com.baiktown.sentilight;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gemini 응답 봉투에서 후보 텍스트 추출 (UTF-8 바이트 → 텍스트)
+ * - legacyStringDom: 본문 전체 String → gson JsonObject 트리 → candidates[0].content.parts[0].text
+ * - streamingReader: GeminiResponseReader (charStream을 JsonReader로 한 번 훑고 나머지는 skipValue)
+ * small: 후보 1개 (~1KB), large: 후보 3개 + 긴 텍스트 (~60KB)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ResponseParseBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private final Gson gson = new Gson();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        String json = "small".equals(size)
+                ? BenchmarkFixtures.geminiResponse(1, 0)
+                : BenchmarkFixtures.geminiResponse(3, 200);
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String legacyStringDom() throws IOException {
+        String responseString = new String(body, StandardCharsets.UTF_8);
+        JsonObject jsonResponse = gson.fromJson(responseString, JsonObject.class);
+        if (jsonResponse == null || !jsonResponse.has("candidates") || jsonResponse.getAsJsonArray("candidates").size() == 0) {
+            throw new IOException("Gemini 응답이 비어 있거나 후보가 없습니다.");
+        }
+        JsonObject contentObj = jsonResponse.getAsJsonArray("candidates").get(0).getAsJsonObject().getAsJsonObject("content");
+        return contentObj.getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
+    }
+
+    @Benchmark
+    public String streamingReader() throws IOException {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)) {
+            return GeminiResponseReader.read(reader).requireText();
+        }
+    }
+}
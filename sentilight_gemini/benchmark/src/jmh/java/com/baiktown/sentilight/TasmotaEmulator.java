@@ -0,0 +1,238 @@
+package com.baiktown.sentilight;
+
+import java.io.Closeable;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LocalStandInServer에 붙이는 Tasmota RGBCCT 전구 흉내 처리기 (/cm?cmnd=...)
+ * - 명령: HSBColor h,s,b / Dimmer d / CT c / Power ON|OFF / State (빈 cmnd 포함)
+ * - Backlog: ';'로 나눈 명령을 backlogDelayMs(기본 200ms) 간격으로 실행 (첫 명령은 바로, 나머지는 응답 뒤에)
+ * - Backlog0: 지연 없이 요청 안에서 모두 실행
+ * - Backlog 없이 ';'를 이어 붙이면 실제 펌웨어처럼 첫 명령만 실행하고 나머지는 첫 명령의 인자 찌꺼기로 버림
+ * - HSBColor는 색 모드, CT는 백색 모드로 전환 (색 모드에서 CT를 보내면 색이 사라짐)
+ * - setApplyJitter: 요청이 실행되기 전 무작위 지연 (Wi-Fi 재전송 등으로 연결마다 도착 순서가 바뀌는 상황 재현)
+ * 응답은 펌웨어와 비슷한 상태 JSON ({"POWER":"ON","Dimmer":70,"Color":"B3B300","HSBColor":"60,100,70","White":0,"CT":250})
+ * 벤치마크 확인 프로그램(*Check) 전용이며 앱에는 포함되지 않습니다.
+ */
+public final class TasmotaEmulator implements LocalStandInServer.Handler, Closeable {
+
+    public static final long DEFAULT_BACKLOG_DELAY_MS = 200;
+
+    private final long backlogDelayMs;
+    private final ScheduledExecutorService backlogTimer;
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private final AtomicInteger executedCommands = new AtomicInteger();
+    private volatile long applyJitterMs = 0;
+
+    // 전구 상태 (this로 동기화)
+    private boolean power = false;
+    private boolean colorMode = false;
+    private int hue = 0;
+    private int saturation = 0;
+    private int dimmer = 100;
+    private int ct = LightCommand.MIN_CT;
+    private long lastChangeNanos = System.nanoTime();
+
+    public TasmotaEmulator() {
+        this(DEFAULT_BACKLOG_DELAY_MS);
+    }
+
+    public TasmotaEmulator(long backlogDelayMs) {
+        this.backlogDelayMs = Math.max(0, backlogDelayMs);
+        this.backlogTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "TasmotaEmulator-backlog");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** 요청마다 실행 전 [0, jitterMs) 무작위 지연 */
+    public TasmotaEmulator setApplyJitter(long jitterMs) {
+        this.applyJitterMs = Math.max(0, jitterMs);
+        return this;
+    }
+
+    // -------------------- HTTP 처리 --------------------
+
+    @Override
+    public LocalStandInServer.Reply handle(String method, String target, String body) {
+        int q = target.indexOf('?');
+        String path = (q >= 0) ? target.substring(0, q) : target;
+        if (!"/cm".equals(path)) {
+            return LocalStandInServer.Reply.json(404, "{\"WARNING\":\"Unknown path\"}");
+        }
+        String cmnd = queryParam((q >= 0) ? target.substring(q + 1) : "", "cmnd");
+        long jitter = applyJitterMs;
+        if (jitter > 0) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(jitter));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String name = commandName(cmnd);
+        String data = cmnd.substring(name.length()).trim();
+
+        if (name.equalsIgnoreCase("Backlog0") || name.equalsIgnoreCase("Backlog")) {
+            List<String> commands = new ArrayList<>();
+            for (String c : data.split(";")) {
+                if (!c.trim().isEmpty()) commands.add(c.trim());
+            }
+            boolean immediate = name.equalsIgnoreCase("Backlog0");
+            for (int i = 0; i < commands.size(); i++) {
+                final String c = commands.get(i);
+                if (immediate || i == 0) {
+                    execute(c);
+                } else {
+                    pendingCommands.incrementAndGet();
+                    backlogTimer.schedule(() -> {
+                        execute(c);
+                        pendingCommands.decrementAndGet();
+                    }, backlogDelayMs * i, TimeUnit.MILLISECONDS);
+                }
+            }
+            return LocalStandInServer.Reply.json(200, stateJson());
+        }
+        if (!execute(cmnd)) {
+            return LocalStandInServer.Reply.json(200, "{\"Command\":\"Unknown\"}");
+        }
+        return LocalStandInServer.Reply.json(200, stateJson());
+    }
+
+    /** 명령 1개 실행 (Backlog 없는 요청에서는 ';' 뒤도 인자로 들어옴). 모르는 명령이면 false */
+    private boolean execute(String command) {
+        String name = commandName(command).toUpperCase(Locale.ROOT);
+        String data = command.substring(name.length()).trim();
+        synchronized (this) {
+            switch (name) {
+                case "":
+                case "STATE":
+                    return true;
+                case "HSBCOLOR": {
+                    String[] parts = data.split(",", 3);
+                    if (parts.length < 3) return true; // 인자가 모자라면 현재 값만 응답
+                    hue = clamp(leadingInt(parts[0], hue), 0, LightCommand.MAX_HUE);
+                    saturation = clamp(leadingInt(parts[1], saturation), 0, LightCommand.MAX_PERCENT);
+                    dimmer = clamp(leadingInt(parts[2], dimmer), 0, LightCommand.MAX_PERCENT);
+                    colorMode = true;
+                    power = dimmer > 0;
+                    break;
+                }
+                case "DIMMER":
+                    dimmer = clamp(leadingInt(data, dimmer), 0, LightCommand.MAX_PERCENT);
+                    power = dimmer > 0;
+                    break;
+                case "CT":
+                    ct = clamp(leadingInt(data, ct), LightCommand.MIN_CT, LightCommand.MAX_CT);
+                    colorMode = false;
+                    power = dimmer > 0;
+                    break;
+                case "POWER": {
+                    String v = data.toUpperCase(Locale.ROOT);
+                    if (v.startsWith("ON") || v.startsWith("1")) {
+                        power = true;
+                    } else if (v.startsWith("OFF") || v.startsWith("0")) {
+                        power = false;
+                    }
+                    break;
+                }
+                default:
+                    return false;
+            }
+            lastChangeNanos = System.nanoTime();
+        }
+        executedCommands.incrementAndGet();
+        return true;
+    }
+
+    // -------------------- 상태 조회 --------------------
+
+    public synchronized String stateJson() {
+        int rgb = !power ? 0 : (colorMode
+                ? ColorEngine.hsbToRgb(hue, saturation, dimmer)
+                : ColorEngine.mix(0xFF000000, ColorEngine.ctToRgb(ct), dimmer * 256 / 100));
+        return String.format(Locale.ROOT,
+                "{\"POWER\":\"%s\",\"Dimmer\":%d,\"Color\":\"%06X\",\"HSBColor\":\"%d,%d,%d\",\"White\":%d,\"CT\":%d}",
+                power ? "ON" : "OFF", dimmer, rgb & 0xFFFFFF, hue, saturation, colorMode ? dimmer : 0,
+                (power && !colorMode) ? dimmer : 0, ct);
+    }
+
+    public synchronized boolean isPowerOn() {
+        return power;
+    }
+
+    public synchronized boolean isColorMode() {
+        return colorMode;
+    }
+
+    /** 현재 상태를 LightCommand로 (색 모드면 HSB+Dimmer, 백색 모드면 CT+Dimmer, 꺼져 있으면 null) */
+    public synchronized LightCommand currentCommand() {
+        if (!power) return null;
+        return LightCommand.parse(colorMode
+                ? "HSBCOLOR " + hue + "," + saturation + "," + dimmer + ";Dimmer " + dimmer
+                : "CT " + ct + ";Dimmer " + dimmer);
+    }
+
+    /** 마지막으로 상태가 바뀐 시각 (System.nanoTime 기준) */
+    public synchronized long getLastChangeNanos() {
+        return lastChangeNanos;
+    }
+
+    /** Backlog 지연 때문에 아직 실행되지 않은 명령 수 */
+    public int getPendingCommandCount() {
+        return pendingCommands.get();
+    }
+
+    public int getExecutedCommandCount() {
+        return executedCommands.get();
+    }
+
+    @Override
+    public void close() {
+        backlogTimer.shutdownNow();
+    }
+
+    // -------------------- 유틸 --------------------
+
+    /** 앞쪽의 영문자/숫자 (펌웨어처럼 공백이나 '=' 전까지가 명령 이름) */
+    private static String commandName(String command) {
+        int i = 0;
+        while (i < command.length() && Character.isLetterOrDigit(command.charAt(i))) i++;
+        return command.substring(0, i);
+    }
+
+    /** "100;Dimmer 70" → 100 (펌웨어의 atoi처럼 숫자가 끝나는 곳에서 멈춤, 숫자가 없으면 fallback) */
+    private static int leadingInt(String s, int fallback) {
+        String t = s.trim();
+        int i = 0, v = 0;
+        while (i < t.length() && i < 6 && Character.isDigit(t.charAt(i))) {
+            v = v * 10 + (t.charAt(i) - '0');
+            i++;
+        }
+        return (i == 0) ? fallback : v;
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
+    }
+
+    private static String queryParam(String query, String key) {
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = (eq >= 0) ? pair.substring(0, eq) : pair;
+            if (k.equals(key)) {
+                return (eq >= 0) ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8).trim() : "";
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,128 @@
+package com.baiktown.sentilight;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 마이크 버튼 시점의 Gemini 연결 예열(TasmotaController.warmUpGeminiConnection) 전/후 첫 바이트 시간(TTFB) 비교
+ * - LocalStandInServer를 Gemini 대역으로 사용: 새 연결의 첫 요청에만 핸드셰이크 지연(TCP+TLS 흉내), 모든 응답에 생성 지연
+ * - DNS 조회 지연은 OkHttp Dns로 흉내 (가짜 호스트 → 127.0.0.1)
+ * - 라운드마다 연결 풀을 비움 (유휴 후 첫 발화 상황)
+ * - cold: 바로 generateContent 호출 (예열 이전 방식)
+ * - warm: 앱과 같은 예열 요청(GET models/{model}, 비동기)을 보내고 발화 시간만큼 기다린 뒤 generateContent 호출
+ * generateContent 호출의 TTFB(평균/최소/최대)와 그 호출이 새 연결을 열었는지를 출력합니다.
+ * 실행: ./gradlew :benchmark:warmUpTtfbCheck
+ */
+public final class WarmUpTtfbCheck {
+
+    private static final String HOST = "generativelanguage.stand-in";
+    private static final String MODEL = "gemini-2.0-flash";
+    private static final long DNS_MS = 60;
+    private static final long HANDSHAKE_MS = 150;
+    private static final long GENERATION_MS = 300;
+    private static final long SPEECH_MS = 1500;
+    private static final int ROUNDS = 10;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    public static void main(String[] args) throws Exception {
+        LocalStandInServer server = new LocalStandInServer()
+                .record("models/" + MODEL, LocalStandInServer.Reply.json(200, "{\"name\":\"models/" + MODEL + "\"}"))
+                .record(":generateContent", LocalStandInServer.Reply.geminiText(BenchmarkFixtures.BRACKET_REPLY))
+                .setConnectionSetupDelay(HANDSHAKE_MS)
+                .setLatency(GENERATION_MS, 0)
+                .start();
+        String baseUrl = "http://" + HOST + ":" + server.getPort() + "/v1beta/";
+
+        Dns slowDns = hostname -> {
+            sleep(DNS_MS);
+            return HOST.equals(hostname)
+                    ? Collections.singletonList(InetAddress.getByName("127.0.0.1"))
+                    : Dns.SYSTEM.lookup(hostname);
+        };
+        OkHttpClient client = new OkHttpClient.Builder().dns(slowDns).build();
+
+        System.out.println(String.format(Locale.US, "DNS %dms + 핸드셰이크 %dms, 생성 %dms, 발화 %dms, %d라운드",
+                DNS_MS, HANDSHAKE_MS, GENERATION_MS, SPEECH_MS, ROUNDS));
+        System.out.println("mode   avg-ttfb  min-ttfb  max-ttfb  new-conn");
+        for (String mode : new String[]{"cold", "warm"}) {
+            long sum = 0, min = Long.MAX_VALUE, max = 0;
+            int newConnections = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                client.connectionPool().evictAll();
+                if (mode.equals("warm")) {
+                    warmUp(client, baseUrl);
+                    sleep(SPEECH_MS);
+                }
+
+                AtomicBoolean connected = new AtomicBoolean();
+                OkHttpClient observed = client.newBuilder().eventListener(new EventListener() {
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+                        connected.set(true);
+                    }
+                }).build();
+                Request request = new Request.Builder()
+                        .url(baseUrl + "models/" + MODEL + ":generateContent?key=stand-in")
+                        .post(RequestBody.create("{\"contents\":[]}", JSON))
+                        .build();
+                long t0 = System.nanoTime();
+                try (Response response = observed.newCall(request).execute()) {
+                    long ttfb = (System.nanoTime() - t0) / 1_000_000;
+                    sum += ttfb;
+                    min = Math.min(min, ttfb);
+                    max = Math.max(max, ttfb);
+                    response.body().string();
+                }
+                if (connected.get()) newConnections++;
+            }
+            System.out.println(String.format(Locale.US, "%-5s %7dms %7dms %7dms  %5d/%d",
+                    mode, sum / ROUNDS, min, max, newConnections, ROUNDS));
+        }
+        System.out.println("stand-in 연결 수: " + server.getConnectionCount() + ", 요청 수: " + server.getRequestCount());
+
+        server.close();
+        System.exit(0);
+    }
+
+    /** 앱의 예열과 같은 요청: 토큰을 쓰지 않는 모델 조회 GET, 응답은 바로 닫고 연결만 풀에 남김 */
+    private static void warmUp(OkHttpClient client, String baseUrl) {
+        Request request = new Request.Builder()
+                .url(baseUrl + "models/" + MODEL + "?key=stand-in")
+                .get()
+                .build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                System.out.println("예열 실패: " + e.getMessage());
+            }
+        });
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package android.content;
+
+/** 벤치마크용 android.content.Context 스텁 (TasmotaIpManager가 쓰는 멤버만) */
+public abstract class Context {
+
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract Context getApplicationContext();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+}
@@ -0,0 +1,15 @@
+package android.content;
+
+/** 벤치마크용 android.content.SharedPreferences 스텁 (TasmotaIpManager가 쓰는 멤버만) */
+public interface SharedPreferences {
+
+    String getString(String key, String defValue);
+
+    Editor edit();
+
+    interface Editor {
+        Editor putString(String key, String value);
+
+        void apply();
+    }
+}
@@ -0,0 +1,66 @@
+package android.graphics;
+
+/**
+ * 벤치마크용 android.graphics.Color 스텁 (JVM 전용)
+ * - HSVToColor는 Android(Skia SkHSVToColor)와 같은 반올림 규칙으로 구현해 실제 연산량을 유지
+ * - 앱 코드가 쓰는 메서드만 제공
+ */
+public final class Color {
+
+    private Color() {
+    }
+
+    public static int HSVToColor(float[] hsv) {
+        return HSVToColor(0xFF, hsv);
+    }
+
+    public static int HSVToColor(int alpha, float[] hsv) {
+        float s = Math.max(0f, Math.min(1f, hsv[1]));
+        float v = Math.max(0f, Math.min(1f, hsv[2]));
+        int vByte = Math.round(v * 255);
+        if (Math.abs(s) <= 1f / (1 << 12)) {
+            return argb(alpha, vByte, vByte, vByte);
+        }
+
+        float hx = (hsv[0] < 0 || hsv[0] >= 360f) ? 0 : hsv[0] / 60;
+        float w = (float) Math.floor(hx);
+        float f = hx - w;
+
+        int p = Math.round((1 - s) * v * 255);
+        int q = Math.round((1 - (s * f)) * v * 255);
+        int t = Math.round((1 - (s * (1 - f))) * v * 255);
+
+        int r, g, b;
+        switch ((int) w) {
+            case 0: r = vByte; g = t; b = p; break;
+            case 1: r = q; g = vByte; b = p; break;
+            case 2: r = p; g = vByte; b = t; break;
+            case 3: r = p; g = q; b = vByte; break;
+            case 4: r = t; g = p; b = vByte; break;
+            default: r = vByte; g = p; b = q; break;
+        }
+        return argb(alpha, r, g, b);
+    }
+
+    /** "#RRGGBB" 또는 "#AARRGGBB" */
+    public static int parseColor(String colorString) {
+        if (colorString.length() > 0 && colorString.charAt(0) == '#') {
+            long color = Long.parseLong(colorString.substring(1), 16);
+            if (colorString.length() == 7) {
+                color |= 0x00000000ff000000L;
+            } else if (colorString.length() != 9) {
+                throw new IllegalArgumentException("Unknown color");
+            }
+            return (int) color;
+        }
+        throw new IllegalArgumentException("Unknown color");
+    }
+
+    public static int argb(int alpha, int red, int green, int blue) {
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    public static int rgb(int red, int green, int blue) {
+        return argb(0xFF, red, green, blue);
+    }
+}